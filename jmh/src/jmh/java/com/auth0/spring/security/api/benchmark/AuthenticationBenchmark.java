@@ -0,0 +1,88 @@
+package com.auth0.spring.security.api.benchmark;
+
+import com.auth0.spring.security.api.BearerSecurityContextRepository;
+import com.auth0.spring.security.api.JwtAuthenticationProvider;
+import com.auth0.spring.security.api.authentication.PreAuthenticatedAuthenticationJsonWebToken;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.web.context.HttpRequestResponseHolder;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link JwtAuthenticationProvider#authenticate(Authentication)} on its own and as part of the full
+ * bearer path (load the context, verify the token and read its authorities) for valid and rejected tokens.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class AuthenticationBenchmark {
+
+    @Param({"HS256", "RS256"})
+    public String algorithm;
+
+    @Param({"small", "medium", "large"})
+    public String payload;
+
+    @Param({"valid", "expired", "badSignature"})
+    public String scenario;
+
+    private BearerSecurityContextRepository repository;
+    private JwtAuthenticationProvider provider;
+    private HttpServletRequest request;
+    private Authentication preAuthenticated;
+
+    @Setup
+    public void setUp() throws Exception {
+        BenchmarkTokens tokens = new BenchmarkTokens();
+        String token = tokens.create(algorithm, payload, scenario);
+        repository = new BearerSecurityContextRepository();
+        provider = tokens.provider(algorithm);
+        request = BenchmarkRequests.withAuthorization("Bearer " + token);
+        preAuthenticated = PreAuthenticatedAuthenticationJsonWebToken.usingToken(token);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Object authenticate() {
+        return authenticate(preAuthenticated);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Object authenticateConcurrently() {
+        return authenticate(preAuthenticated);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Object bearerPath() {
+        return fullPath();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Object bearerPathConcurrently() {
+        return fullPath();
+    }
+
+    private Object fullPath() {
+        SecurityContext context = repository.loadContext(new HttpRequestResponseHolder(request, null));
+        Object result = authenticate(context.getAuthentication());
+        if (result instanceof Authentication) {
+            return ((Authentication) result).getAuthorities();
+        }
+        return result;
+    }
+
+    private Object authenticate(Authentication authentication) {
+        try {
+            return provider.authenticate(authentication);
+        } catch (AuthenticationException e) {
+            return e;
+        }
+    }
+}
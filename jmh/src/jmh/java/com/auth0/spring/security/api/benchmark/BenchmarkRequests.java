@@ -0,0 +1,44 @@
+package com.auth0.spring.security.api.benchmark;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+/**
+ * Minimal requests carrying only an Authorization header, so no mocking framework shows up in the measurements.
+ */
+final class BenchmarkRequests {
+
+    private static final HttpServletRequest UNSUPPORTED = (HttpServletRequest) Proxy.newProxyInstance(
+            BenchmarkRequests.class.getClassLoader(),
+            new Class<?>[]{HttpServletRequest.class},
+            new InvocationHandler() {
+                @Override
+                public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                    throw new UnsupportedOperationException(method.getName());
+                }
+            });
+
+    private BenchmarkRequests() {
+    }
+
+    static HttpServletRequest withAuthorization(final String value) {
+        return new HttpServletRequestWrapper(UNSUPPORTED) {
+            @Override
+            public String getHeader(String name) {
+                return "Authorization".equalsIgnoreCase(name) ? value : null;
+            }
+
+            @Override
+            public Object getAttribute(String name) {
+                return null;
+            }
+
+            @Override
+            public void setAttribute(String name, Object o) {
+            }
+        };
+    }
+}
@@ -0,0 +1,185 @@
+package com.auth0.spring.security.api.benchmark;
+
+import com.auth0.jwk.Jwk;
+import com.auth0.jwk.JwkException;
+import com.auth0.jwk.JwkProvider;
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTCreator;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.spring.security.api.JwtAuthenticationProvider;
+import com.auth0.spring.security.api.authentication.RSAPSSAlgorithm;
+import org.apache.commons.codec.binary.Base64;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.GeneralSecurityException;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.security.interfaces.ECKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAKey;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Creates the keys, providers and tokens shared by the benchmarks.
+ */
+final class BenchmarkTokens {
+
+    static final String ISSUER = "https://benchmark.auth0.com/";
+    static final String AUDIENCE = "https://api.benchmark.com";
+    static final String KEY_ID = "benchmark-key";
+
+    private static final byte[] SECRET = "a-256-bit-secret-used-only-in-benchmarks".getBytes(StandardCharsets.UTF_8);
+    private static final long ONE_HOUR = 60 * 60 * 1000;
+
+    private final KeyPair rsaKeyPair;
+    private final KeyPair ecKeyPair;
+
+    BenchmarkTokens() throws GeneralSecurityException {
+        this.rsaKeyPair = rsaKeyPair();
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+        this.ecKeyPair = generator.generateKeyPair();
+    }
+
+    JwtAuthenticationProvider provider(String algorithm) {
+        if ("HS256".equals(algorithm)) {
+            return new JwtAuthenticationProvider(SECRET, ISSUER, AUDIENCE);
+        }
+        return new JwtAuthenticationProvider(new FixedJwkProvider(jwk(algorithm)), ISSUER, AUDIENCE);
+    }
+
+    /**
+     * @param algorithm one of HS256, RS256, PS256 or ES256
+     * @param payload one of small, medium or large. Larger payloads carry more scopes and custom claims
+     * @param scenario one of valid, expired or badSignature
+     * @return a signed token
+     */
+    String create(String algorithm, String payload, String scenario) throws NoSuchAlgorithmException {
+        final long now = System.currentTimeMillis();
+        final boolean expired = "expired".equals(scenario);
+        JWTCreator.Builder builder = JWT.create()
+                .withHeader(Collections.singletonMap("kid", (Object) KEY_ID))
+                .withIssuer(ISSUER)
+                .withAudience(AUDIENCE)
+                .withSubject("auth0|5870f8a1c3ee2b6a3a6b2e37")
+                .withIssuedAt(new Date(now - (expired ? 2 * ONE_HOUR : 0)))
+                .withExpiresAt(new Date(now + (expired ? -ONE_HOUR : ONE_HOUR)))
+                .withClaim("scope", scopes(scopeCount(payload)))
+                .withClaim("metadata", padding(paddingLength(payload)));
+        return builder.sign(signingAlgorithm(algorithm, "badSignature".equals(scenario)));
+    }
+
+    private Algorithm signingAlgorithm(String algorithm, boolean badSignature) throws NoSuchAlgorithmException {
+        switch (algorithm) {
+            case "HS256":
+                return Algorithm.HMAC256(badSignature ? "some-other-secret".getBytes(StandardCharsets.UTF_8) : SECRET);
+            case "ES256":
+                if (!badSignature) {
+                    return Algorithm.ECDSA256((ECKey) ecKeyPair.getPrivate());
+                }
+                try {
+                    KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+                    generator.initialize(new ECGenParameterSpec("secp256r1"));
+                    return Algorithm.ECDSA256((ECKey) generator.generateKeyPair().getPrivate());
+                } catch (GeneralSecurityException e) {
+                    throw new IllegalStateException(e);
+                }
+            case "PS256":
+                return RSAPSSAlgorithm.PS256((RSAKey) (badSignature ? rsaKeyPair() : rsaKeyPair).getPrivate());
+            default:
+                return Algorithm.RSA256((RSAKey) (badSignature ? rsaKeyPair() : rsaKeyPair).getPrivate());
+        }
+    }
+
+    private Jwk jwk(String algorithm) {
+        if ("ES256".equals(algorithm)) {
+            ECPublicKey publicKey = (ECPublicKey) ecKeyPair.getPublic();
+            Map<String, Object> attributes = new HashMap<>();
+            attributes.put("crv", "P-256");
+            attributes.put("x", coordinate(publicKey.getW().getAffineX().toByteArray()));
+            attributes.put("y", coordinate(publicKey.getW().getAffineY().toByteArray()));
+            return new Jwk(KEY_ID, "EC", algorithm, "sig", null, null, null, null, attributes);
+        }
+        final PublicKey publicKey = rsaKeyPair.getPublic();
+        return new Jwk(KEY_ID, "RSA", algorithm, "sig", null, null, null, null, Collections.<String, Object>emptyMap()) {
+            @Override
+            public PublicKey getPublicKey() {
+                return publicKey;
+            }
+        };
+    }
+
+    private static String coordinate(byte[] value) {
+        return Base64.encodeBase64URLSafeString(value.length > 32 ? Arrays.copyOfRange(value, value.length - 32, value.length) : value);
+    }
+
+    private static KeyPair rsaKeyPair() throws NoSuchAlgorithmException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        return generator.generateKeyPair();
+    }
+
+    private static int scopeCount(String payload) {
+        switch (payload) {
+            case "small":
+                return 2;
+            case "medium":
+                return 10;
+            default:
+                return 40;
+        }
+    }
+
+    private static int paddingLength(String payload) {
+        switch (payload) {
+            case "small":
+                return 0;
+            case "medium":
+                return 256;
+            default:
+                return 1024;
+        }
+    }
+
+    private static String scopes(int count) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                builder.append(' ');
+            }
+            builder.append(i % 2 == 0 ? "read:resource" : "write:resource").append(i);
+        }
+        return builder.toString();
+    }
+
+    private static String padding(int length) {
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            builder.append((char) ('a' + i % 26));
+        }
+        return builder.toString();
+    }
+
+    private static class FixedJwkProvider implements JwkProvider {
+        private final Jwk jwk;
+
+        FixedJwkProvider(Jwk jwk) {
+            this.jwk = jwk;
+        }
+
+        @Override
+        public Jwk get(String keyId) throws JwkException {
+            if (!jwk.getId().equals(keyId)) {
+                throw new JwkException("Unknown key " + keyId);
+            }
+            return jwk;
+        }
+    }
+}
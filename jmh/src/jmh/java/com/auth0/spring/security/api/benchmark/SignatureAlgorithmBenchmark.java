@@ -0,0 +1,55 @@
+package com.auth0.spring.security.api.benchmark;
+
+import com.auth0.spring.security.api.JwtAuthenticationProvider;
+import com.auth0.spring.security.api.authentication.PreAuthenticatedAuthenticationJsonWebToken;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the cost of verifying the signature of the same token with each of the asymmetric algorithms
+ * accepted from a json web key set. The key and its verifier are resolved once, so only verification is measured.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class SignatureAlgorithmBenchmark {
+
+    @Param({"RS256", "PS256", "ES256"})
+    public String algorithm;
+
+    @Param({"valid", "badSignature"})
+    public String scenario;
+
+    private JwtAuthenticationProvider provider;
+    private Authentication preAuthenticated;
+
+    @Setup
+    public void setUp() throws Exception {
+        BenchmarkTokens tokens = new BenchmarkTokens();
+        provider = tokens.provider(algorithm);
+        preAuthenticated = PreAuthenticatedAuthenticationJsonWebToken.usingToken(tokens.create(algorithm, "small", scenario));
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Object authenticate() {
+        return authenticate(preAuthenticated);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Object authenticateConcurrently() {
+        return authenticate(preAuthenticated);
+    }
+
+    private Object authenticate(Authentication authentication) {
+        try {
+            return provider.authenticate(authentication);
+        } catch (AuthenticationException e) {
+            return e;
+        }
+    }
+}
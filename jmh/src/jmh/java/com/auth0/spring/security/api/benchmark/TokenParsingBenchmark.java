@@ -0,0 +1,64 @@
+package com.auth0.spring.security.api.benchmark;
+
+import com.auth0.spring.security.api.BearerSecurityContextRepository;
+import com.auth0.spring.security.api.authentication.PreAuthenticatedAuthenticationJsonWebToken;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.web.context.HttpRequestResponseHolder;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the work done for every request before any signature is verified: reading the bearer token
+ * from the request, decoding it and reading the scopes of an already verified token. The token is only decoded
+ * when the authentication of the loaded context is asked for, so {@code loadContext} alone measures reading it.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class TokenParsingBenchmark {
+
+    @Param({"HS256", "RS256"})
+    public String algorithm;
+
+    @Param({"small", "medium", "large"})
+    public String payload;
+
+    private BearerSecurityContextRepository repository;
+    private HttpServletRequest request;
+    private String token;
+    private Authentication verified;
+
+    @Setup
+    public void setUp() throws Exception {
+        BenchmarkTokens tokens = new BenchmarkTokens();
+        token = tokens.create(algorithm, payload, "valid");
+        repository = new BearerSecurityContextRepository();
+        request = BenchmarkRequests.withAuthorization("Bearer " + token);
+        verified = tokens.provider(algorithm).authenticate(PreAuthenticatedAuthenticationJsonWebToken.usingToken(token));
+    }
+
+    @Benchmark
+    public SecurityContext loadContext() {
+        return repository.loadContext(new HttpRequestResponseHolder(request, null));
+    }
+
+    @Benchmark
+    public Authentication loadContextAndAuthentication() {
+        return repository.loadContext(new HttpRequestResponseHolder(request, null)).getAuthentication();
+    }
+
+    @Benchmark
+    public PreAuthenticatedAuthenticationJsonWebToken usingToken() {
+        return PreAuthenticatedAuthenticationJsonWebToken.usingToken(token);
+    }
+
+    @Benchmark
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return verified.getAuthorities();
+    }
+}
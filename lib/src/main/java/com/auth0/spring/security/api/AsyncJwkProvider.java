@@ -0,0 +1,17 @@
+package com.auth0.spring.security.api;
+
+import com.auth0.jwk.Jwk;
+import com.google.common.util.concurrent.ListenableFuture;
+
+/**
+ * Provider of json web keys that doesn't block the caller while the keys are obtained.
+ */
+public interface AsyncJwkProvider {
+
+    /**
+     * Starts obtaining the key with the given id
+     * @param keyId value of the {@code kid} header of the token
+     * @return a future with the key, failed with a {@link com.auth0.jwk.JwkException} if the key can't be obtained
+     */
+    ListenableFuture<Jwk> getAsync(String keyId);
+}
@@ -0,0 +1,108 @@
+package com.auth0.spring.security.api;
+
+import com.auth0.spring.security.api.authentication.PreAuthenticatedAuthenticationJsonWebToken;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.ProviderNotFoundException;
+import org.springframework.security.core.Authentication;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Authenticates JWTs on a dedicated executor and returns the result as a future, so callers running on
+ * event loop or other non-blocking threads never wait for the issuer keys to be downloaded.
+ * When the executor can't take more work the returned future fails right away instead of queueing without bound.
+ */
+public class AsyncJwtAuthenticationManager {
+
+    private final AuthenticationProvider provider;
+    private final ListeningExecutorService executor;
+
+    /**
+     * Creates a new manager
+     * @param provider that verifies the tokens, usually a {@link JwtAuthenticationProvider}
+     * @param executor where the tokens are verified
+     */
+    public AsyncJwtAuthenticationManager(AuthenticationProvider provider, ExecutorService executor) {
+        if (provider == null) {
+            throw new IllegalArgumentException("A non-null provider is required");
+        }
+        if (executor == null) {
+            throw new IllegalArgumentException("A non-null executor is required");
+        }
+        this.provider = provider;
+        this.executor = MoreExecutors.listeningDecorator(executor);
+    }
+
+    /**
+     * Creates a new manager verifying the tokens on its own pool of daemon threads
+     * @param provider that verifies the tokens, usually a {@link JwtAuthenticationProvider}
+     * @param threads number of threads verifying tokens
+     * @param maxPending number of tokens that can wait for a thread before new ones are rejected
+     * @return a new manager
+     */
+    public static AsyncJwtAuthenticationManager withBoundedExecutor(AuthenticationProvider provider, int threads, int maxPending) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("The number of threads must be positive");
+        }
+        if (maxPending <= 0) {
+            throw new IllegalArgumentException("The number of pending authentications must be positive");
+        }
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(maxPending),
+                new ThreadFactoryBuilder().setNameFormat("jwt-authentication-%d").setDaemon(true).build());
+        return new AsyncJwtAuthenticationManager(provider, executor);
+    }
+
+    /**
+     * Authenticates the given bearer token
+     * @param token the raw JWT
+     * @return a future with the authenticated token, failed with a {@link BadCredentialsException} if the value is not a JWT
+     */
+    public ListenableFuture<Authentication> authenticate(String token) {
+        final Authentication authentication = PreAuthenticatedAuthenticationJsonWebToken.usingToken(token);
+        if (authentication == null) {
+            return Futures.immediateFailedFuture(new BadCredentialsException("Not a valid token"));
+        }
+        return authenticate(authentication);
+    }
+
+    /**
+     * Authenticates the given token
+     * @param authentication the token to authenticate, usually a {@link PreAuthenticatedAuthenticationJsonWebToken}
+     * @return a future with the authenticated token, or failed with the {@link org.springframework.security.core.AuthenticationException} thrown by the provider
+     */
+    public ListenableFuture<Authentication> authenticate(final Authentication authentication) {
+        if (authentication == null || !provider.supports(authentication.getClass())) {
+            return Futures.immediateFailedFuture(new ProviderNotFoundException("No AuthenticationProvider found for the given authentication"));
+        }
+        try {
+            return executor.submit(new Callable<Authentication>() {
+                @Override
+                public Authentication call() throws Exception {
+                    return provider.authenticate(authentication);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            return Futures.immediateFailedFuture(new AuthenticationServiceException("Too many pending authentications", e));
+        }
+    }
+
+    /**
+     * Stops the executor, letting the authentications already submitted complete
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,25 @@
+package com.auth0.spring.security.api;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+
+/**
+ * Receives the outcome of every JWT authentication, e.g. to keep an audit trail.
+ * It is called on the request threads so implementations must be thread safe and cheap,
+ * see {@link SampledAuthenticationAuditor} to only report a fraction of the outcomes.
+ */
+public interface AuthenticationAuditor {
+
+    /**
+     * Called when a token is successfully authenticated
+     * @param authentication the authenticated token
+     */
+    void authenticated(Authentication authentication);
+
+    /**
+     * Called when a token is rejected
+     * @param authentication the token that was rejected
+     * @param exception the reason of the rejection
+     */
+    void rejected(Authentication authentication, AuthenticationException exception);
+}
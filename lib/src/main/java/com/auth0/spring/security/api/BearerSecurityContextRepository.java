@@ -1,6 +1,10 @@
 package com.auth0.spring.security.api;
 
+import com.auth0.spring.security.api.authentication.AuthenticationMetrics;
+import com.auth0.spring.security.api.authentication.AuthenticationMetrics.Failure;
+import com.auth0.spring.security.api.authentication.AuthenticationMetrics.Stage;
 import com.auth0.spring.security.api.authentication.PreAuthenticatedAuthenticationJsonWebToken;
+import com.auth0.spring.security.api.authentication.PreAuthenticatedOpaqueToken;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.core.Authentication;
@@ -14,17 +18,89 @@ import javax.servlet.http.HttpServletResponse;
 
 public class BearerSecurityContextRepository implements SecurityContextRepository {
     private final static Logger logger = LoggerFactory.getLogger(BearerSecurityContextRepository.class);
+    private static final String BEARER = "Bearer";
+    private static final String TOKEN_ATTRIBUTE = BearerSecurityContextRepository.class.getName() + ".TOKEN";
 
+    private final AuthenticationMetrics metrics;
+    private final boolean opaqueTokens;
+    private final PublicPaths publicPaths;
+
+    public BearerSecurityContextRepository() {
+        this(null);
+    }
+
+    /**
+     * Creates a new repository that reports the time spent decoding the tokens found in the requests
+     * @param metrics that receive the measures, or null to not measure anything
+     */
+    public BearerSecurityContextRepository(AuthenticationMetrics metrics) {
+        this(metrics, false);
+    }
+
+    /**
+     * Creates a new repository that reports the time spent decoding the tokens found in the requests
+     * @param metrics that receive the measures, or null to not measure anything
+     * @param opaqueTokens whether the tokens that are not a JWT are kept as a {@link PreAuthenticatedOpaqueToken}
+     *                     to be introspected, instead of leaving the request unauthenticated
+     */
+    public BearerSecurityContextRepository(AuthenticationMetrics metrics, boolean opaqueTokens) {
+        this(metrics, opaqueTokens, null);
+    }
+
+    /**
+     * Creates a new repository that doesn't look for a token in the requests to the given public paths,
+     * so they are always unauthenticated and cost nothing to load
+     * @param metrics that receive the measures, or null to not measure anything
+     * @param opaqueTokens whether the tokens that are not a JWT are kept as a {@link PreAuthenticatedOpaqueToken}
+     * @param publicPaths of the requests that never need authentication, or null to look for a token in every request
+     */
+    public BearerSecurityContextRepository(AuthenticationMetrics metrics, boolean opaqueTokens, PublicPaths publicPaths) {
+        this.metrics = metrics;
+        this.opaqueTokens = opaqueTokens;
+        this.publicPaths = publicPaths;
+    }
+
+    /**
+     * The token found in the request is only decoded when the authentication of the returned context is first asked for.
+     * Spring's anonymous filter asks for it on every request, so in a default filter chain only the requests to the
+     * public paths, which never read the token, don't pay for decoding it.
+     */
     @Override
     public SecurityContext loadContext(HttpRequestResponseHolder requestResponseHolder) {
-        SecurityContext context = SecurityContextHolder.createEmptyContext();
-        String token = tokenFromRequest(requestResponseHolder.getRequest());
-        Authentication authentication = PreAuthenticatedAuthenticationJsonWebToken.usingToken(token);
-        if (authentication != null) {
-            context.setAuthentication(authentication);
-            logger.debug("Found bearer token in request. Saving it in SecurityContext");
+        if (isPublic(requestResponseHolder.getRequest())) {
+            return SecurityContextHolder.createEmptyContext();
+        }
+        final String token = tokenFromRequest(requestResponseHolder.getRequest());
+        if (token == null) {
+            return SecurityContextHolder.createEmptyContext();
         }
-        return context;
+        logger.debug("Found bearer token in request. Saving it in SecurityContext");
+        return new LazyBearerSecurityContext(this, token);
+    }
+
+    /**
+     * Decodes the given token, called by {@link LazyBearerSecurityContext} on its first use
+     * @return the pre authenticated token, or null if it can't be decoded
+     */
+    Authentication authenticationFor(String token) {
+        Authentication authentication = metrics == null ? PreAuthenticatedAuthenticationJsonWebToken.usingToken(token) : decode(token);
+        if (authentication == null && opaqueTokens) {
+            authentication = PreAuthenticatedOpaqueToken.usingToken(token);
+        }
+        return authentication;
+    }
+
+    private Authentication decode(String token) {
+        if (token == null) {
+            return null;
+        }
+        final long start = System.nanoTime();
+        final Authentication authentication = PreAuthenticatedAuthenticationJsonWebToken.usingToken(token);
+        metrics.recordTime(Stage.DECODE, System.nanoTime() - start);
+        if (authentication == null && !opaqueTokens) {
+            metrics.recordFailure(Failure.MALFORMED_TOKEN);
+        }
+        return authentication;
     }
 
     @Override
@@ -33,22 +109,47 @@ public class BearerSecurityContextRepository implements SecurityContextRepositor
 
     @Override
     public boolean containsContext(HttpServletRequest request) {
-        return tokenFromRequest(request) != null;
+        return !isPublic(request) && tokenFromRequest(request) != null;
+    }
+
+    private boolean isPublic(HttpServletRequest request) {
+        return publicPaths != null && publicPaths.matches(request);
     }
 
     private String tokenFromRequest(HttpServletRequest request) {
-        final String value = request.getHeader("Authorization");
+        final Object memo = request.getAttribute(TOKEN_ATTRIBUTE);
+        if (memo instanceof String) {
+            final String token = (String) memo;
+            return token.isEmpty() ? null : token;
+        }
+        final String token = tokenFromHeader(request.getHeader("Authorization"));
+        request.setAttribute(TOKEN_ATTRIBUTE, token == null ? "" : token);
+        return token;
+    }
 
-        if (value == null || !value.toLowerCase().startsWith("bearer")) {
+    /**
+     * Extracts the token of a {@code Bearer} authorization header value by scanning it in place,
+     * so the only allocated string is the token itself.
+     */
+    static String tokenFromHeader(String value) {
+        if (value == null || !value.regionMatches(true, 0, BEARER, 0, BEARER.length())) {
             return null;
         }
-
-        String[] parts = value.split(" ");
-
-        if (parts.length < 2) {
+        final int length = value.length();
+        int start = BEARER.length();
+        if (start >= length || value.charAt(start) != ' ') {
             return null;
         }
-
-        return parts[1].trim();
+        while (start < length && value.charAt(start) <= ' ') {
+            start++;
+        }
+        int end = start;
+        while (end < length && value.charAt(end) > ' ') {
+            end++;
+        }
+        if (start == end) {
+            return null;
+        }
+        return value.substring(start, end);
     }
 }
@@ -0,0 +1,123 @@
+package com.auth0.spring.security.api;
+
+import com.auth0.jwk.Jwk;
+import com.auth0.jwk.JwkException;
+import com.auth0.jwk.JwkProvider;
+import com.auth0.jwk.SigningKeyNotFoundException;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.SettableFuture;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * {@link JwkProvider} that lets a single caller at a time look up a given key id in the wrapped provider.
+ * Concurrent callers asking for the same key id wait for the result of the lookup already in progress,
+ * and key ids that are not in the key set downloaded by the wrapped provider are remembered for a while so they don't
+ * reach it again. Key ids that could not be looked up because the key set could not be downloaded, or because a rate
+ * limit kept it from being downloaded, are not remembered.
+ */
+public class CoalescingJwkProvider implements JwkProvider {
+
+    private static final long DEFAULT_TIMEOUT_MILLIS = 5000;
+    private static final long DEFAULT_MISSING_KEY_TTL_MILLIS = 30000;
+    private static final long MAX_MISSING_KEYS = 1000;
+
+    private final JwkProvider provider;
+    private final long timeoutMillis;
+    private final ConcurrentMap<String, SettableFuture<Jwk>> lookups = new ConcurrentHashMap<>();
+    private final Cache<String, SigningKeyNotFoundException> missingKeys;
+
+    /**
+     * Creates a new provider that waits up to 5 seconds for a lookup in progress and remembers missing keys for 30 seconds
+     * @param provider that obtains the keys
+     */
+    public CoalescingJwkProvider(JwkProvider provider) {
+        this(provider, DEFAULT_TIMEOUT_MILLIS, DEFAULT_MISSING_KEY_TTL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Creates a new provider
+     * @param provider that obtains the keys
+     * @param timeout maximum time to wait for a lookup of the same key id already in progress
+     * @param missingKeyTtl time a key id that is not in the key set is rejected without asking the wrapped provider again
+     * @param unit of the timeout and the missing key ttl
+     */
+    public CoalescingJwkProvider(JwkProvider provider, long timeout, long missingKeyTtl, TimeUnit unit) {
+        if (provider == null) {
+            throw new IllegalArgumentException("A non-null provider is required");
+        }
+        if (timeout <= 0) {
+            throw new IllegalArgumentException("The timeout must be positive");
+        }
+        if (missingKeyTtl < 0) {
+            throw new IllegalArgumentException("The missing key ttl cannot be negative");
+        }
+        this.provider = provider;
+        this.timeoutMillis = unit.toMillis(timeout);
+        this.missingKeys = CacheBuilder.newBuilder()
+                .maximumSize(MAX_MISSING_KEYS)
+                .expireAfterWrite(missingKeyTtl, unit)
+                .build();
+    }
+
+    @Override
+    public Jwk get(String keyId) throws JwkException {
+        final SigningKeyNotFoundException missing = missingKeys.getIfPresent(keyId);
+        if (missing != null) {
+            throw new KeyIdRejectedException("No key found with kid " + keyId + ", it was missing in a recent lookup", missing);
+        }
+        final SettableFuture<Jwk> lookup = SettableFuture.create();
+        final SettableFuture<Jwk> inProgress = lookups.putIfAbsent(keyId, lookup);
+        if (inProgress != null) {
+            return await(keyId, inProgress);
+        }
+        try {
+            final Jwk jwk = provider.get(keyId);
+            lookup.set(jwk);
+            return jwk;
+        } catch (KeyIdRejectedException e) {
+            lookup.setException(e);
+            throw e;
+        } catch (SigningKeyNotFoundException e) {
+            if (!JwksFetcher.isFetchFailure(e)) {
+                missingKeys.put(keyId, e);
+            }
+            lookup.setException(e);
+            throw e;
+        } catch (JwkException | RuntimeException e) {
+            lookup.setException(e);
+            throw e;
+        } finally {
+            lookups.remove(keyId, lookup);
+            lookup.cancel(false);
+        }
+    }
+
+    private Jwk await(String keyId, SettableFuture<Jwk> lookup) throws JwkException {
+        try {
+            return lookup.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new SigningKeyNotFoundException("Timed out waiting for the key with kid " + keyId, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SigningKeyNotFoundException("Interrupted while waiting for the key with kid " + keyId, e);
+        } catch (CancellationException e) {
+            throw new SigningKeyNotFoundException("Lookup of the key with kid " + keyId + " was aborted", e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof JwkException) {
+                throw (JwkException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new SigningKeyNotFoundException("Failed to obtain the key with kid " + keyId, cause);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.auth0.spring.security.api;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * {@link RevocationSource} that reads a text file with one revoked value per line, {@code jti <token id>} or
+ * {@code sub <subject>}. Blank lines and lines starting with {@code #} are ignored.
+ * New revocations are appended to the file and only the lines added since the previous read are read again.
+ * When the file was rewritten, e.g. without the tokens that already expired, it is read from the start and its lines
+ * replace every entry of the list. A rewrite is told from an append when the file is shorter than what was already
+ * read, when it was replaced by another file, when it was modified without growing, or when the last bytes already
+ * read changed.
+ */
+public class FileRevocationSource implements RevocationSource {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileRevocationSource.class);
+    private static final String TOKEN_ID_PREFIX = "jti ";
+    private static final String SUBJECT_PREFIX = "sub ";
+    private static final int TAIL_LENGTH = 256;
+
+    private final File file;
+    private long offset;
+    private byte[] tail = new byte[0];
+    private long lastModified;
+    private Object fileKey;
+    private boolean read;
+
+    /**
+     * Creates a new source
+     * @param file with the revoked values
+     */
+    public FileRevocationSource(File file) {
+        if (file == null) {
+            throw new IllegalArgumentException("A non-null file is required");
+        }
+        this.file = file;
+    }
+
+    @Override
+    public synchronized void update(RevocationList list) throws IOException {
+        try (RandomAccessFile input = new RandomAccessFile(file, "r")) {
+            final BasicFileAttributes attributes = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+            final long length = input.length();
+            final long modified = attributes.lastModifiedTime().toMillis();
+            final Object key = attributes.fileKey();
+            final boolean changed = modified != lastModified || !Objects.equals(key, fileKey);
+            if (length == offset && !changed) {
+                return;
+            }
+            final boolean reload = read && (length < offset || !Objects.equals(key, fileKey)
+                    || (length == offset && changed) || !endsWithTail(input));
+            final long start = reload ? 0 : offset;
+            final byte[] bytes = new byte[(int) (length - start)];
+            input.seek(start);
+            input.readFully(bytes);
+
+            final List<String> ids = new ArrayList<>();
+            final List<String> subjects = new ArrayList<>();
+            final int consumed = parse(bytes, ids, subjects);
+            if (reload) {
+                list.replaceAll(ids, subjects);
+            } else {
+                list.revokeTokenIds(ids);
+                list.revokeSubjects(subjects);
+            }
+            offset = start + consumed;
+            tail = new byte[(int) Math.min(TAIL_LENGTH, offset)];
+            input.seek(offset - tail.length);
+            input.readFully(tail);
+            lastModified = modified;
+            fileKey = key;
+            read = true;
+            logger.debug("Read {} revoked token ids and {} revoked subjects from {}", ids.size(), subjects.size(), file);
+        }
+    }
+
+    /**
+     * Tells whether the bytes that end at the offset are still the ones read last time, so the file was appended to
+     * rather than rewritten
+     */
+    private boolean endsWithTail(RandomAccessFile input) throws IOException {
+        final byte[] current = new byte[tail.length];
+        input.seek(offset - tail.length);
+        input.readFully(current);
+        return Arrays.equals(current, tail);
+    }
+
+    /**
+     * Parses the complete lines of the given bytes, a trailing line without a line break may still be being written.
+     * @return number of bytes parsed
+     */
+    private int parse(byte[] bytes, List<String> ids, List<String> subjects) {
+        int lineStart = 0;
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] != '\n') {
+                continue;
+            }
+            final String line = new String(bytes, lineStart, i - lineStart, StandardCharsets.UTF_8).trim();
+            lineStart = i + 1;
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            if (line.startsWith(TOKEN_ID_PREFIX)) {
+                ids.add(line.substring(TOKEN_ID_PREFIX.length()).trim());
+            } else if (line.startsWith(SUBJECT_PREFIX)) {
+                subjects.add(line.substring(SUBJECT_PREFIX.length()).trim());
+            } else {
+                logger.warn("Ignoring unknown revocation in {}: {}", file, line);
+            }
+        }
+        return lineStart;
+    }
+}
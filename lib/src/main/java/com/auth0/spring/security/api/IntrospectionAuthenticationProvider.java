@@ -0,0 +1,318 @@
+package com.auth0.spring.security.api;
+
+import com.auth0.spring.security.api.authentication.AuthenticationOpaqueToken;
+import com.auth0.spring.security.api.authentication.PreAuthenticatedOpaqueToken;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.SettableFuture;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Authenticates opaque access tokens, the ones that are not a JWT, with the introspection endpoint of their
+ * authorization server (RFC 7662). The outcome of each introspection is cached: active tokens until their {@code exp}
+ * or the max age, whichever comes first, and inactive ones in a smaller cache for a shorter time, so made up tokens
+ * can't evict the active ones. Concurrent requests presenting the same
+ * token that is not cached wait for a single introspection instead of each calling the endpoint.
+ * As any request can present a new token, tokens that can't be bearer tokens (RFC 6750) are rejected without calling
+ * the endpoint, and the number of introspections in progress is limited: once reached, new tokens are rejected right
+ * away instead of piling up requests on the endpoint.
+ */
+public class IntrospectionAuthenticationProvider implements AuthenticationProvider {
+
+    private static final HashFunction DIGEST = Hashing.sha256();
+    private static final long DEFAULT_MAXIMUM_SIZE = 10000;
+    private static final long DEFAULT_MAX_AGE_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    private static final long DEFAULT_INACTIVE_MAXIMUM_SIZE = 1000;
+    private static final long DEFAULT_INACTIVE_MAX_AGE_MILLIS = TimeUnit.SECONDS.toMillis(30);
+    private static final long DEFAULT_TIMEOUT_MILLIS = 5000;
+    private static final int DEFAULT_MAX_CONCURRENT_INTROSPECTIONS = 16;
+    private static final int MAX_TOKEN_LENGTH = 4096;
+
+    private final IntrospectionClient client;
+    private final Cache<HashCode, Introspection> cache;
+    private final long maxAgeMillis;
+    private Cache<HashCode, Introspection> inactiveCache;
+    private long inactiveMaxAgeMillis;
+    private final ConcurrentMap<HashCode, SettableFuture<Introspection>> introspections = new ConcurrentHashMap<>();
+    private long timeoutMillis = DEFAULT_TIMEOUT_MILLIS;
+    private Semaphore permits = new Semaphore(DEFAULT_MAX_CONCURRENT_INTROSPECTIONS);
+
+    /**
+     * Creates a new provider that caches up to 10000 introspections for up to 5 minutes
+     * @param client of the introspection endpoint
+     */
+    public IntrospectionAuthenticationProvider(IntrospectionClient client) {
+        this(client, DEFAULT_MAXIMUM_SIZE, DEFAULT_MAX_AGE_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Creates a new provider
+     * @param client of the introspection endpoint
+     * @param maximumSize maximum number of introspections to keep
+     * @param maxAge maximum time an introspection is kept, even if the {@code exp} of the token is later.
+     *               It is also how long a revoked token can still be accepted
+     * @param unit of the max age
+     */
+    public IntrospectionAuthenticationProvider(IntrospectionClient client, long maximumSize, long maxAge, TimeUnit unit) {
+        if (client == null) {
+            throw new IllegalArgumentException("A non-null client is required");
+        }
+        if (maxAge < 0) {
+            throw new IllegalArgumentException("The max age cannot be negative");
+        }
+        this.client = client;
+        this.maxAgeMillis = unit.toMillis(maxAge);
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(maxAge, unit)
+                .build();
+        withInactiveCache(DEFAULT_INACTIVE_MAXIMUM_SIZE, Math.min(DEFAULT_INACTIVE_MAX_AGE_MILLIS, maxAgeMillis), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Keeps the inactive tokens apart from the active ones, in a cache of their own. Defaults to up to 1000 tokens for up
+     * to 30 seconds, or the max age if shorter, so a flood of made up tokens is only introspected once each for a while
+     * without evicting the active tokens or keeping memory for long.
+     * @param maximumSize maximum number of inactive tokens to keep
+     * @param maxAge maximum time an inactive token is kept
+     * @param unit of the max age
+     * @return this same provider instance
+     */
+    @SuppressWarnings("WeakerAccess")
+    public IntrospectionAuthenticationProvider withInactiveCache(long maximumSize, long maxAge, TimeUnit unit) {
+        if (maximumSize < 0) {
+            throw new IllegalArgumentException("The inactive cache size cannot be negative");
+        }
+        if (maxAge < 0) {
+            throw new IllegalArgumentException("The inactive max age cannot be negative");
+        }
+        this.inactiveMaxAgeMillis = unit.toMillis(maxAge);
+        this.inactiveCache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(maxAge, unit)
+                .build();
+        return this;
+    }
+
+    /**
+     * Maximum time a request waits for the introspection of the same token already in progress. Defaults to 5 seconds.
+     * @param timeout maximum time to wait
+     * @param unit of the timeout
+     * @return this same provider instance
+     */
+    @SuppressWarnings("WeakerAccess")
+    public IntrospectionAuthenticationProvider withTimeout(long timeout, TimeUnit unit) {
+        if (timeout <= 0) {
+            throw new IllegalArgumentException("The timeout must be positive");
+        }
+        this.timeoutMillis = unit.toMillis(timeout);
+        return this;
+    }
+
+    /**
+     * Maximum number of calls to the introspection endpoint in progress at the same time. Defaults to 16.
+     * Tokens that would need one more call are rejected with an {@link AuthenticationServiceException}.
+     * @param maxConcurrentIntrospections maximum number of calls in progress
+     * @return this same provider instance
+     */
+    @SuppressWarnings("WeakerAccess")
+    public IntrospectionAuthenticationProvider withMaxConcurrentIntrospections(int maxConcurrentIntrospections) {
+        if (maxConcurrentIntrospections <= 0) {
+            throw new IllegalArgumentException("The maximum number of concurrent introspections must be positive");
+        }
+        this.permits = new Semaphore(maxConcurrentIntrospections);
+        return this;
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return PreAuthenticatedOpaqueToken.class.isAssignableFrom(authentication);
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        if (!supports(authentication.getClass())) {
+            return null;
+        }
+        final String token = ((PreAuthenticatedOpaqueToken) authentication).getToken();
+        if (!isBearerToken(token)) {
+            throw new BadCredentialsException("Not a valid token");
+        }
+        final Introspection introspection = introspection(token, DIGEST.hashString(token, StandardCharsets.UTF_8));
+        if (introspection.authentication == null) {
+            throw new BadCredentialsException("Not an active token");
+        }
+        return introspection.authentication;
+    }
+
+    /**
+     * @return number of cached introspections, of both active and inactive tokens
+     */
+    public long size() {
+        return cache.size() + inactiveCache.size();
+    }
+
+    /**
+     * Discards every cached introspection
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+        inactiveCache.invalidateAll();
+    }
+
+    private Introspection introspection(String token, HashCode key) {
+        final Cache<HashCode, Introspection> inactiveCache = this.inactiveCache;
+        final Introspection cached = cached(cache, key);
+        if (cached != null) {
+            return cached;
+        }
+        final Introspection inactive = cached(inactiveCache, key);
+        if (inactive != null) {
+            return inactive;
+        }
+        final SettableFuture<Introspection> introspection = SettableFuture.create();
+        final SettableFuture<Introspection> inProgress = introspections.putIfAbsent(key, introspection);
+        if (inProgress != null) {
+            return await(inProgress);
+        }
+        try {
+            final Introspection result = introspectWithPermit(token);
+            if (result.expiresAt > System.currentTimeMillis()) {
+                (result.authentication != null ? cache : inactiveCache).put(key, result);
+            }
+            introspection.set(result);
+            return result;
+        } catch (RuntimeException e) {
+            introspection.setException(e);
+            throw e;
+        } finally {
+            introspections.remove(key, introspection);
+            introspection.cancel(false);
+        }
+    }
+
+    private static Introspection cached(Cache<HashCode, Introspection> cache, HashCode key) {
+        final Introspection cached = cache.getIfPresent(key);
+        if (cached == null) {
+            return null;
+        }
+        if (cached.isValid(System.currentTimeMillis())) {
+            return cached;
+        }
+        cache.invalidate(key);
+        return null;
+    }
+
+    private Introspection introspectWithPermit(String token) {
+        final Semaphore permits = this.permits;
+        if (!permits.tryAcquire()) {
+            throw new AuthenticationServiceException("Too many introspections in progress");
+        }
+        try {
+            return introspect(token);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private Introspection introspect(String token) {
+        final Map<String, Object> claims;
+        try {
+            claims = client.introspect(token);
+        } catch (IOException e) {
+            throw new AuthenticationServiceException("Could not introspect token", e);
+        }
+        final long now = System.currentTimeMillis();
+        if (!Boolean.TRUE.equals(claims.get("active"))) {
+            return new Introspection(null, now + inactiveMaxAgeMillis);
+        }
+        final AuthenticationOpaqueToken authentication = new AuthenticationOpaqueToken(token, claims);
+        final Date exp = authentication.getExpiresAt();
+        long expiresAt = now + maxAgeMillis;
+        if (exp != null) {
+            if (exp.getTime() <= now) {
+                return new Introspection(null, now + inactiveMaxAgeMillis);
+            }
+            expiresAt = Math.min(expiresAt, exp.getTime());
+        }
+        return new Introspection(authentication, expiresAt);
+    }
+
+    private Introspection await(SettableFuture<Introspection> introspection) {
+        try {
+            return introspection.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new AuthenticationServiceException("Timed out waiting for the introspection of the token", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AuthenticationServiceException("Interrupted while waiting for the introspection of the token", e);
+        } catch (CancellationException e) {
+            throw new AuthenticationServiceException("Introspection of the token was aborted", e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new AuthenticationServiceException("Could not introspect token", cause);
+        }
+    }
+
+    /**
+     * Tells whether the token has the syntax of a bearer token, {@code 1*( ALPHA / DIGIT / "-" / "." / "_" / "~" / "+" / "/" ) *"="},
+     * and a reasonable length
+     */
+    static boolean isBearerToken(String token) {
+        if (token == null || token.isEmpty() || token.length() > MAX_TOKEN_LENGTH) {
+            return false;
+        }
+        int end = token.length();
+        while (end > 1 && token.charAt(end - 1) == '=') {
+            end--;
+        }
+        for (int i = 0; i < end; i++) {
+            final char c = token.charAt(i);
+            final boolean valid = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '.' || c == '_' || c == '~' || c == '+' || c == '/';
+            if (!valid) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Outcome of an introspection, the authentication is null when the token is not active
+     */
+    private static final class Introspection {
+        private final AuthenticationOpaqueToken authentication;
+        private final long expiresAt;
+
+        Introspection(AuthenticationOpaqueToken authentication, long expiresAt) {
+            this.authentication = authentication;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isValid(long now) {
+            return expiresAt > now && (authentication == null || authentication.isAuthenticated());
+        }
+    }
+}
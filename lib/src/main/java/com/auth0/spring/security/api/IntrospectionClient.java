@@ -0,0 +1,126 @@
+package com.auth0.spring.security.api;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.io.ByteStreams;
+import org.apache.commons.codec.binary.Base64;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Asks an OAuth 2.0 token introspection endpoint (RFC 7662) about a token, authenticating with a client id and secret.
+ * Connections are kept alive and reused by the JVM between requests to the same endpoint: every response is read
+ * until its end, including error responses, and no connection is closed explicitly. The number of idle connections
+ * kept per endpoint is set by the {@code http.maxConnections} system property, 5 by default.
+ */
+public class IntrospectionClient {
+
+    private static final int DEFAULT_TIMEOUT_MILLIS = 5000;
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private final URL url;
+    private final String authorization;
+    private final int connectTimeout;
+    private final int readTimeout;
+
+    /**
+     * Creates a new client
+     * @param url of the introspection endpoint
+     * @param clientId of this API in the authorization server
+     * @param clientSecret of this API in the authorization server
+     * @param connectTimeout in milliseconds to connect to the endpoint
+     * @param readTimeout in milliseconds to read the response
+     */
+    public IntrospectionClient(URL url, String clientId, String clientSecret, int connectTimeout, int readTimeout) {
+        if (url == null) {
+            throw new IllegalArgumentException("A non-null url is required");
+        }
+        if (clientId == null || clientSecret == null) {
+            throw new IllegalArgumentException("A non-null client id and secret are required");
+        }
+        this.url = url;
+        this.authorization = "Basic " + Base64.encodeBase64String((encode(clientId) + ":" + encode(clientSecret)).getBytes(StandardCharsets.UTF_8));
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+    }
+
+    /**
+     * Creates a new client with a 5 seconds connect and read timeout
+     * @param url of the introspection endpoint
+     * @param clientId of this API in the authorization server
+     * @param clientSecret of this API in the authorization server
+     */
+    public IntrospectionClient(URL url, String clientId, String clientSecret) {
+        this(url, clientId, clientSecret, DEFAULT_TIMEOUT_MILLIS, DEFAULT_TIMEOUT_MILLIS);
+    }
+
+    URL getUrl() {
+        return url;
+    }
+
+    /**
+     * Introspects the given access token
+     * @param token to introspect
+     * @return members of the introspection response, {@code active} tells whether the token is valid
+     * @throws IOException if the endpoint can't be reached, fails or its response can't be parsed
+     */
+    public Map<String, Object> introspect(String token) throws IOException {
+        final byte[] body = ("token=" + encode(token) + "&token_type_hint=access_token").getBytes(StandardCharsets.UTF_8);
+        final HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setConnectTimeout(connectTimeout);
+        connection.setReadTimeout(readTimeout);
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setFixedLengthStreamingMode(body.length);
+        connection.setRequestProperty("Authorization", authorization);
+        connection.setRequestProperty("Content-Type", "application/x-www-form-urlencoded");
+        connection.setRequestProperty("Accept", "application/json");
+        try (OutputStream outputStream = connection.getOutputStream()) {
+            outputStream.write(body);
+        }
+
+        final int status = connection.getResponseCode();
+        if (status != HttpURLConnection.HTTP_OK) {
+            drain(connection.getErrorStream());
+            throw new IOException("Cannot introspect token with url " + url + ", status " + status);
+        }
+        final byte[] response;
+        try (InputStream inputStream = connection.getInputStream()) {
+            response = ByteStreams.toByteArray(inputStream);
+        }
+        final Map<String, Object> claims = mapper.readValue(response, new TypeReference<Map<String, Object>>() {
+        });
+        if (claims == null) {
+            throw new IOException("Empty introspection response from url " + url);
+        }
+        return claims;
+    }
+
+    /**
+     * Reads the rest of a response so its connection can be reused
+     */
+    private static void drain(InputStream inputStream) throws IOException {
+        if (inputStream == null) {
+            return;
+        }
+        try (InputStream stream = inputStream) {
+            ByteStreams.toByteArray(stream);
+        }
+    }
+
+    private static String encode(String value) {
+        try {
+            return URLEncoder.encode(value, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.auth0.spring.security.api;
+
+/**
+ * Creates the provider that authenticates the tokens of a given issuer, for {@link MultiIssuerJwtAuthenticationProvider}.
+ */
+public interface IssuerResolver {
+
+    /**
+     * Creates the provider for the given issuer. Called the first time a token of the issuer is seen
+     * and again after the provider was evicted for being idle.
+     * @param issuer value of the {@code iss} claim of the token
+     * @return the provider for the issuer, or null if tokens of the issuer are not accepted
+     */
+    JwtAuthenticationProvider resolve(String issuer);
+}
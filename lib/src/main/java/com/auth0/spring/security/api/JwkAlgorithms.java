@@ -0,0 +1,163 @@
+package com.auth0.spring.security.api;
+
+import com.auth0.jwk.InvalidPublicKeyException;
+import com.auth0.jwk.Jwk;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.AlgorithmMismatchException;
+import com.auth0.spring.security.api.authentication.RSAPSSAlgorithm;
+import com.auth0.spring.security.api.authentication.ThreadLocalRSAAlgorithm;
+import org.apache.commons.codec.binary.Base64;
+
+import java.math.BigInteger;
+import java.security.AlgorithmParameters;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.ECParameterSpec;
+import java.security.spec.ECPoint;
+import java.security.spec.ECPublicKeySpec;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Picks the algorithm used to verify a token from the key that signed it. The algorithm declared by the jwk,
+ * or implied by its type and curve, always wins over the one in the token header, and both must agree,
+ * so a token can't ask to be verified with an algorithm its key was not meant for.
+ */
+final class JwkAlgorithms {
+
+    private static final String EC_KEY_TYPE = "EC";
+    private static final Set<String> RSA_ALGORITHMS = new HashSet<>(Arrays.asList("RS256", "RS384", "RS512", "PS256", "PS384", "PS512"));
+    private static final Map<String, String> CURVE_ALGORITHMS = new HashMap<>();
+    private static final Map<String, String> CURVE_NAMES = new HashMap<>();
+
+    static {
+        CURVE_ALGORITHMS.put("P-256", "ES256");
+        CURVE_ALGORITHMS.put("P-384", "ES384");
+        CURVE_ALGORITHMS.put("P-521", "ES512");
+        CURVE_NAMES.put("P-256", "secp256r1");
+        CURVE_NAMES.put("P-384", "secp384r1");
+        CURVE_NAMES.put("P-521", "secp521r1");
+    }
+
+    private JwkAlgorithms() {
+    }
+
+    /**
+     * @return every asymmetric algorithm this JVM can verify
+     */
+    static Set<String> supported() {
+        final Set<String> algorithms = new HashSet<>(CURVE_ALGORITHMS.values());
+        for (String algorithm : RSA_ALGORITHMS) {
+            if (!algorithm.startsWith("PS") || RSAPSSAlgorithm.isSupported()) {
+                algorithms.add(algorithm);
+            }
+        }
+        return Collections.unmodifiableSet(algorithms);
+    }
+
+    /**
+     * Returns the name of the algorithm a token must be verified with. RSA keys that don't declare an algorithm
+     * accept any RSA algorithm found in the header.
+     * @param jwk that signed the token
+     * @param headerAlgorithm value of the {@code alg} header of the token
+     * @param allowed algorithms accepted by the provider
+     * @return the name of the algorithm
+     * @throws AlgorithmMismatchException if the header doesn't match the key or the algorithm is not allowed
+     */
+    static String nameFor(Jwk jwk, String headerAlgorithm, Set<String> allowed) throws AlgorithmMismatchException {
+        final boolean ec = EC_KEY_TYPE.equals(jwk.getType());
+        final String curveAlgorithm = ec ? CURVE_ALGORITHMS.get(stringAttribute(jwk, "crv")) : null;
+        String algorithm = jwk.getAlgorithm();
+        if (algorithm == null) {
+            algorithm = ec ? curveAlgorithm : headerAlgorithm;
+        }
+        final boolean matchesKey = ec ? algorithm != null && algorithm.equals(curveAlgorithm) : RSA_ALGORITHMS.contains(algorithm);
+        if (!matchesKey || !algorithm.equals(headerAlgorithm) || !allowed.contains(algorithm)) {
+            throw new AlgorithmMismatchException("The provided Algorithm doesn't match the one defined in the JWT's Header.");
+        }
+        return algorithm;
+    }
+
+    /**
+     * Builds the public key of the given jwk, which can be an RSA key or an EC key on a P-256, P-384 or P-521 curve
+     * @param jwk to build the key from
+     * @return the public key
+     * @throws InvalidPublicKeyException if the key is not valid or of an unsupported type
+     */
+    static PublicKey publicKeyOf(Jwk jwk) throws InvalidPublicKeyException {
+        if (!EC_KEY_TYPE.equals(jwk.getType())) {
+            final PublicKey publicKey = jwk.getPublicKey();
+            if (publicKey == null) {
+                throw new InvalidPublicKeyException("Unsupported key type " + jwk.getType(), null);
+            }
+            return publicKey;
+        }
+        final String curve = CURVE_NAMES.get(stringAttribute(jwk, "crv"));
+        final String x = stringAttribute(jwk, "x");
+        final String y = stringAttribute(jwk, "y");
+        if (curve == null || x == null || y == null) {
+            throw new InvalidPublicKeyException("Invalid public key", null);
+        }
+        try {
+            final AlgorithmParameters parameters = AlgorithmParameters.getInstance(EC_KEY_TYPE);
+            parameters.init(new ECGenParameterSpec(curve));
+            final ECPoint point = new ECPoint(new BigInteger(1, Base64.decodeBase64(x)), new BigInteger(1, Base64.decodeBase64(y)));
+            final ECPublicKeySpec spec = new ECPublicKeySpec(point, parameters.getParameterSpec(ECParameterSpec.class));
+            return KeyFactory.getInstance(EC_KEY_TYPE).generatePublic(spec);
+        } catch (GeneralSecurityException e) {
+            throw new InvalidPublicKeyException("Invalid public key", e);
+        }
+    }
+
+    /**
+     * Creates the algorithm with the given name for the given key
+     * @param name as returned by {@link #nameFor(Jwk, String, Set)}
+     * @param key as returned by {@link #publicKeyOf(Jwk)}
+     * @return the algorithm
+     * @throws InvalidPublicKeyException if the key can't be used with the algorithm
+     */
+    static Algorithm create(String name, PublicKey key) throws InvalidPublicKeyException {
+        if (key instanceof RSAPublicKey) {
+            final RSAPublicKey rsaKey = (RSAPublicKey) key;
+            switch (name) {
+                case "RS256":
+                    return ThreadLocalRSAAlgorithm.RS256(rsaKey);
+                case "RS384":
+                    return ThreadLocalRSAAlgorithm.RS384(rsaKey);
+                case "RS512":
+                    return ThreadLocalRSAAlgorithm.RS512(rsaKey);
+                case "PS256":
+                    return RSAPSSAlgorithm.PS256(rsaKey);
+                case "PS384":
+                    return RSAPSSAlgorithm.PS384(rsaKey);
+                case "PS512":
+                    return RSAPSSAlgorithm.PS512(rsaKey);
+            }
+        } else if (key instanceof ECPublicKey) {
+            final ECPublicKey ecKey = (ECPublicKey) key;
+            switch (name) {
+                case "ES256":
+                    return Algorithm.ECDSA256(ecKey);
+                case "ES384":
+                    return Algorithm.ECDSA384(ecKey);
+                case "ES512":
+                    return Algorithm.ECDSA512(ecKey);
+            }
+        }
+        throw new InvalidPublicKeyException("The key can't be used with " + name, null);
+    }
+
+    private static String stringAttribute(Jwk jwk, String name) {
+        final Map<String, Object> attributes = jwk.getAdditionalAttributes();
+        final Object value = attributes != null ? attributes.get(name) : null;
+        return value instanceof String ? (String) value : null;
+    }
+}
@@ -0,0 +1,174 @@
+package com.auth0.spring.security.api;
+
+import com.auth0.jwk.Jwk;
+import com.auth0.jwk.JwkException;
+import com.auth0.jwk.RateLimitReachedException;
+import com.auth0.jwk.SigningKeyNotFoundException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.io.ByteStreams;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Downloads every key of a JSON Web Key Set, e.g. "$issuer/.well-known/jwks.json".
+ */
+public class JwksFetcher {
+
+    private static final int DEFAULT_TIMEOUT_MILLIS = 5000;
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private final URL url;
+    private final int connectTimeout;
+    private final int readTimeout;
+
+    /**
+     * Creates a new fetcher
+     * @param url of the json web key set
+     * @param connectTimeout in milliseconds to connect to the url
+     * @param readTimeout in milliseconds to read the json web key set
+     */
+    public JwksFetcher(URL url, int connectTimeout, int readTimeout) {
+        if (url == null) {
+            throw new IllegalArgumentException("A non-null url is required");
+        }
+        this.url = url;
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+    }
+
+    /**
+     * Creates a new fetcher with a 5 seconds connect and read timeout
+     * @param url of the json web key set
+     */
+    public JwksFetcher(URL url) {
+        this(url, DEFAULT_TIMEOUT_MILLIS, DEFAULT_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Creates a fetcher for the keys published by an issuer in "$issuer/.well-known/jwks.json"
+     * @param issuer url or domain of the issuer
+     * @return a new fetcher
+     */
+    public static JwksFetcher forIssuer(String issuer) {
+        if (issuer == null || issuer.isEmpty()) {
+            throw new IllegalArgumentException("A domain is required");
+        }
+        final String domain = issuer.startsWith("http") ? issuer : "https://" + issuer;
+        try {
+            return new JwksFetcher(new URL(new URL(domain), "/.well-known/jwks.json"));
+        } catch (MalformedURLException e) {
+            throw new IllegalArgumentException("Invalid jwks uri", e);
+        }
+    }
+
+    URL getUrl() {
+        return url;
+    }
+
+    /**
+     * Downloads the json web key set
+     * @return every key in the set
+     * @throws SigningKeyNotFoundException if the keys can't be downloaded or parsed
+     */
+    public List<Jwk> fetch() throws SigningKeyNotFoundException {
+        return parse(download());
+    }
+
+    /**
+     * Downloads the json web key set without parsing it
+     */
+    byte[] download() throws SigningKeyNotFoundException {
+        try {
+            final URLConnection connection = url.openConnection();
+            connection.setConnectTimeout(connectTimeout);
+            connection.setReadTimeout(readTimeout);
+            connection.setRequestProperty("Accept", "application/json");
+            if (connection instanceof HttpURLConnection) {
+                final int status = ((HttpURLConnection) connection).getResponseCode();
+                if (status != HttpURLConnection.HTTP_OK) {
+                    throw new SigningKeyNotFoundException("Cannot obtain jwks from url " + url + ", status " + status,
+                            new IOException("Unexpected response status " + status));
+                }
+            }
+            try (InputStream inputStream = connection.getInputStream()) {
+                return ByteStreams.toByteArray(inputStream);
+            }
+        } catch (IOException e) {
+            throw new SigningKeyNotFoundException("Cannot obtain jwks from url " + url, e);
+        }
+    }
+
+    /**
+     * Tells whether a key lookup failed because the keys could not be downloaded, rather than because the key id is not
+     * in the downloaded set. A failed download keeps its {@link IOException} as cause, while a missing key id only has
+     * the lookup exceptions of the providers wrapping each other as causes. A lookup that a {@link RateLimitReachedException}
+     * prevented from downloading the keys also failed to download them, even when a caching provider wrapped it.
+     * @param e failure of a key lookup
+     * @return whether the keys could not be downloaded
+     */
+    static boolean isFetchFailure(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof RateLimitReachedException
+                    || !(cause instanceof JwkException) && !(cause instanceof ExecutionException)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static List<Jwk> parse(byte[] json) throws SigningKeyNotFoundException {
+        final Map<String, Object> jwks;
+        try {
+            jwks = mapper.readValue(json, new TypeReference<Map<String, Object>>() {
+            });
+        } catch (IOException e) {
+            throw new SigningKeyNotFoundException("Failed to parse jwks", e);
+        }
+        final Object keys = jwks == null ? null : jwks.get("keys");
+        if (!(keys instanceof List) || ((List<?>) keys).isEmpty()) {
+            throw new SigningKeyNotFoundException("No keys found in jwks", null);
+        }
+        final List<Jwk> result = new ArrayList<>();
+        for (Object key : (List<?>) keys) {
+            if (!(key instanceof Map)) {
+                throw new SigningKeyNotFoundException("Failed to parse jwk from json", null);
+            }
+            @SuppressWarnings("unchecked")
+            final Map<String, Object> values = new HashMap<>((Map<String, Object>) key);
+            result.add(jwkFromValues(values));
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Jwk jwkFromValues(Map<String, Object> values) throws SigningKeyNotFoundException {
+        final String kid = stringValue(values.remove("kid"));
+        final String kty = stringValue(values.remove("kty"));
+        final String alg = stringValue(values.remove("alg"));
+        final String use = stringValue(values.remove("use"));
+        final String keyOps = stringValue(values.remove("key_ops"));
+        final String x5u = stringValue(values.remove("x5u"));
+        final Object x5c = values.remove("x5c");
+        final String x5t = stringValue(values.remove("x5t"));
+        if (kty == null) {
+            throw new SigningKeyNotFoundException("Attributes " + values + " are not from a valid jwk", null);
+        }
+        final List<String> chain = x5c instanceof List ? (List<String>) x5c : null;
+        return new Jwk(kid, kty, alg, use, keyOps, x5u, chain, x5t, values);
+    }
+
+    private static String stringValue(Object value) {
+        return value instanceof String ? (String) value : null;
+    }
+}
@@ -0,0 +1,87 @@
+package com.auth0.spring.security.api;
+
+import com.auth0.jwk.InvalidPublicKeyException;
+import com.auth0.jwk.Jwk;
+import com.auth0.jwk.SigningKeyNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Copy of a json web key set kept in a local file, so the keys are available right after a restart
+ * even when the issuer can't be reached. The file is replaced atomically, so a crash while writing it
+ * never leaves a partial snapshot behind.
+ */
+public class JwksSnapshot {
+
+    private static final Logger logger = LoggerFactory.getLogger(JwksSnapshot.class);
+
+    private final Path path;
+    private byte[] saved;
+
+    /**
+     * Creates a new snapshot
+     * @param file where the json web key set is kept, its directory must exist
+     */
+    public JwksSnapshot(File file) {
+        if (file == null) {
+            throw new IllegalArgumentException("A non-null file is required");
+        }
+        this.path = file.toPath().toAbsolutePath();
+    }
+
+    /**
+     * Reads the keys in the snapshot. Every RSA and EC key must have a valid public key, otherwise the whole snapshot is ignored.
+     * @return the keys in the snapshot, or null if there is no snapshot or it is not valid
+     */
+    public synchronized List<Jwk> load() {
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+        try {
+            final byte[] json = Files.readAllBytes(path);
+            final List<Jwk> jwks = JwksFetcher.parse(json);
+            for (Jwk jwk : jwks) {
+                if ("RSA".equals(jwk.getType()) || "EC".equals(jwk.getType())) {
+                    JwkAlgorithms.publicKeyOf(jwk);
+                }
+            }
+            saved = json;
+            return jwks;
+        } catch (IOException | SigningKeyNotFoundException | InvalidPublicKeyException e) {
+            logger.warn("Ignoring invalid jwks snapshot " + path, e);
+            return null;
+        }
+    }
+
+    /**
+     * Replaces the snapshot with the given json web key set, unless it has the same contents
+     * @param json the json web key set
+     * @throws IOException if the snapshot can't be written
+     */
+    public synchronized void save(byte[] json) throws IOException {
+        if (Arrays.equals(json, saved)) {
+            return;
+        }
+        final Path temp = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temp, json);
+            try {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        saved = json;
+    }
+}
@@ -1,42 +1,263 @@
 package com.auth0.spring.security.api;
 
 import com.auth0.jwk.*;
-import com.auth0.jwt.JWT;
-import com.auth0.jwt.JWTVerifier;
 import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.AlgorithmMismatchException;
 import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.Clock;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.auth0.spring.security.api.authentication.AuthenticationMetrics;
+import com.auth0.spring.security.api.authentication.AuthenticationMetrics.Failure;
+import com.auth0.spring.security.api.authentication.AuthenticationMetrics.Stage;
+import com.auth0.spring.security.api.authentication.AuthoritiesExtractor;
+import com.auth0.spring.security.api.authentication.ClaimAuthoritiesExtractor;
+import com.auth0.spring.security.api.authentication.DecodedJwtAuthentication;
+import com.auth0.spring.security.api.authentication.DecodedJwtVerifier;
 import com.auth0.spring.security.api.authentication.JwtAuthentication;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import com.auth0.spring.security.api.authentication.PreAuthenticatedAuthenticationJsonWebToken;
+import com.auth0.spring.security.api.authentication.ThreadLocalHMACAlgorithm;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.AuthenticationServiceException;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
 
-import java.security.interfaces.RSAPublicKey;
+import java.security.PublicKey;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 public class JwtAuthenticationProvider implements AuthenticationProvider {
 
-    private static Logger logger = LoggerFactory.getLogger(JwtAuthenticationProvider.class);
+    private static final long MAX_CACHED_VERIFIERS = 100;
+    private static final int MAX_KEY_ID_LENGTH = 256;
+    private static final long DEFAULT_KEY_LOOKUP_TIMEOUT_MILLIS = 5000;
 
-    private final byte[] secret;
     private final String issuer;
-    private final String audience;
+    private Collection<String> audiences;
     private final JwkProvider jwkProvider;
+    private final byte[] secret;
+    private final Cache<String, KeyAlgorithm> algorithms;
+    private final DecodedJwtVerifier.AlgorithmResolver keyResolver = new DecodedJwtVerifier.AlgorithmResolver() {
+        @Override
+        public Algorithm resolve(DecodedJWT jwt) throws JWTVerificationException {
+            return algorithmFor(jwt);
+        }
+    };
+    private DecodedJwtVerifier secretVerifier;
+    private DecodedJwtVerifier keyVerifier;
+    private VerifiedTokenCache tokenCache;
+    private AuthoritiesExtractor authoritiesExtractor = ClaimAuthoritiesExtractor.scope();
+    private AuthenticationMetrics metrics;
+    private AuthenticationAuditor auditor;
+    private RevocationChecker revocationChecker;
+    private long keyLookupTimeoutMillis = DEFAULT_KEY_LOOKUP_TIMEOUT_MILLIS;
+    private Set<String> allowedAlgorithms = JwkAlgorithms.supported();
+    private long leewaySeconds;
+    private Clock clock;
 
     public JwtAuthenticationProvider(byte[] secret, String issuer, String audience) {
-        this.secret = secret;
         this.issuer = issuer;
-        this.audience = audience;
+        this.audiences = audienceOf(audience);
         this.jwkProvider = null;
+        this.secret = secret;
+        this.secretVerifier = secret != null ? secretVerifier(secret) : null;
+        this.keyVerifier = secret == null ? keyVerifier() : null;
+        this.algorithms = null;
     }
 
     public JwtAuthenticationProvider(JwkProvider jwkProvider, String issuer, String audience) {
         this.jwkProvider = jwkProvider;
+        this.issuer = issuer;
+        this.audiences = audienceOf(audience);
         this.secret = null;
+        this.secretVerifier = null;
+        this.algorithms = CacheBuilder.newBuilder()
+                .maximumSize(MAX_CACHED_VERIFIERS)
+                .build();
+        this.keyVerifier = keyVerifier();
+    }
+
+    /**
+     * Creates a provider that obtains the keys without blocking and waits for them up to 5 seconds,
+     * see {@link #withKeyLookupTimeout(long, TimeUnit)}. Request threads then never hold a connection
+     * to the issuer and give up on a slow issuer after the timeout.
+     * @param asyncJwkProvider that obtains the public keys of the issuer
+     * @param issuer of the token for this API and must match the {@code iss} value in the token
+     * @param audience identifier of the API and must match the {@code aud} value in the token
+     */
+    public JwtAuthenticationProvider(AsyncJwkProvider asyncJwkProvider, String issuer, String audience) {
+        this.jwkProvider = asyncJwkProvider != null ? new AwaitingJwkProvider(asyncJwkProvider) : null;
         this.issuer = issuer;
-        this.audience = audience;
+        this.audiences = audienceOf(audience);
+        this.secret = null;
+        this.secretVerifier = null;
+        this.algorithms = CacheBuilder.newBuilder()
+                .maximumSize(MAX_CACHED_VERIFIERS)
+                .build();
+        this.keyVerifier = keyVerifier();
+    }
+
+    /**
+     * Keep verified tokens in the given cache and return them without verifying the signature again
+     * when the same token is presented before it expires. The cache can't be shared with another provider,
+     * which could have verified its tokens with a different issuer, audience or algorithm.
+     * @param tokenCache cache of verified tokens or null to verify every token
+     * @return this same provider instance
+     */
+    @SuppressWarnings("WeakerAccess")
+    public JwtAuthenticationProvider withVerifiedTokenCache(VerifiedTokenCache tokenCache) {
+        if (tokenCache != null && !tokenCache.claim(this)) {
+            throw new IllegalArgumentException("The token cache is already used by another provider");
+        }
+        this.tokenCache = tokenCache;
+        return this;
+    }
+
+    /**
+     * Use the given extractor to obtain the authorities of the verified tokens, instead of the values of the {@code scope} claim.
+     * @param authoritiesExtractor that maps the token claims into authorities
+     * @return this same provider instance
+     */
+    @SuppressWarnings("WeakerAccess")
+    public JwtAuthenticationProvider withAuthoritiesExtractor(AuthoritiesExtractor authoritiesExtractor) {
+        if (authoritiesExtractor == null) {
+            throw new IllegalArgumentException("The authorities extractor cannot be null");
+        }
+        this.authoritiesExtractor = authoritiesExtractor;
+        return this;
+    }
+
+    /**
+     * Report the time spent in each stage of the authentication and the reason of every rejected token.
+     * When not set nothing is measured.
+     * @param metrics that receive the measures, or null to stop measuring
+     * @return this same provider instance
+     */
+    @SuppressWarnings("WeakerAccess")
+    public JwtAuthenticationProvider withMetrics(AuthenticationMetrics metrics) {
+        this.metrics = metrics;
+        resetVerifiers();
+        return this;
+    }
+
+    /**
+     * Accept tokens whose {@code aud} claim contains any of the given values, instead of the single audience
+     * given when the provider was created. The values are kept in a hash set, so the number of accepted
+     * audiences doesn't change the cost of verifying a token.
+     * @param audiences identifiers of the API, at least one of them must be in the {@code aud} value of the token
+     * @return this same provider instance
+     */
+    @SuppressWarnings("WeakerAccess")
+    public JwtAuthenticationProvider withAudiences(Collection<String> audiences) {
+        if (audiences == null || audiences.isEmpty()) {
+            throw new IllegalArgumentException("At least one audience is required");
+        }
+        this.audiences = audiences;
+        resetVerifiers();
+        return this;
+    }
+
+    /**
+     * Report the outcome of every authentication to the given auditor. Wrap it in a {@link SampledAuthenticationAuditor}
+     * to only report a fraction of them. When not set no outcome is reported.
+     * @param auditor that receives the outcomes, or null to stop reporting them
+     * @return this same provider instance
+     */
+    @SuppressWarnings("WeakerAccess")
+    public JwtAuthenticationProvider withAuditor(AuthenticationAuditor auditor) {
+        this.auditor = auditor;
+        return this;
+    }
+
+    /**
+     * Reject the verified tokens that the given checker reports as revoked, including the ones found in the
+     * {@link VerifiedTokenCache}. When not set no token is considered revoked.
+     * @param revocationChecker that tells the revoked tokens, e.g. a {@link RevocationList}, or null to not check them
+     * @return this same provider instance
+     */
+    @SuppressWarnings("WeakerAccess")
+    public JwtAuthenticationProvider withRevocationChecker(RevocationChecker revocationChecker) {
+        this.revocationChecker = revocationChecker;
+        return this;
+    }
+
+    /**
+     * Maximum time to wait for a key obtained from an {@link AsyncJwkProvider}. Defaults to 5 seconds.
+     * Timeouts shorter than a millisecond are rounded up to one millisecond.
+     * @param timeout maximum time to wait
+     * @param unit of the timeout
+     * @return this same provider instance
+     */
+    @SuppressWarnings("WeakerAccess")
+    public JwtAuthenticationProvider withKeyLookupTimeout(long timeout, TimeUnit unit) {
+        if (timeout <= 0) {
+            throw new IllegalArgumentException("The key lookup timeout must be positive");
+        }
+        this.keyLookupTimeoutMillis = Math.max(1, unit.toMillis(timeout));
+        return this;
+    }
+
+    /**
+     * Accept tokens whose {@code exp}, {@code nbf} or {@code iat} claims are off by up to the given time, so servers whose
+     * clock drifted a little from the issuer's don't reject tokens that were just issued or are about to expire.
+     * @param leeway tolerated clock skew, rounded down to seconds
+     * @param unit of the leeway
+     * @return this same provider instance
+     */
+    @SuppressWarnings("WeakerAccess")
+    public JwtAuthenticationProvider withLeeway(long leeway, TimeUnit unit) {
+        if (leeway < 0) {
+            throw new IllegalArgumentException("The leeway cannot be negative");
+        }
+        this.leewaySeconds = unit.toSeconds(leeway);
+        resetVerifiers();
+        return this;
+    }
+
+    /**
+     * Check the {@code exp}, {@code nbf} and {@code iat} claims against the given clock instead of the system time.
+     * Create the {@link VerifiedTokenCache} with the same clock so cached tokens expire at the same time.
+     * @param clock that tells the current time, or null to use the system time
+     * @return this same provider instance
+     */
+    @SuppressWarnings("WeakerAccess")
+    public JwtAuthenticationProvider withClock(Clock clock) {
+        this.clock = clock;
+        resetVerifiers();
+        return this;
+    }
+
+    /**
+     * Only accept tokens signed with one of the given algorithms when verifying them with the keys of a {@link JwkProvider}.
+     * By default RS256, RS384, RS512, ES256, ES384 and ES512 are accepted, and PS256, PS384 and PS512 too when the JVM supports them.
+     * A token is only verified with the algorithm declared by its key, or implied by the key type and curve,
+     * so a key can never be used with an algorithm it was not meant for.
+     * @param algorithms names of the accepted algorithms, e.g. {@code "ES256"}
+     * @return this same provider instance
+     */
+    @SuppressWarnings("WeakerAccess")
+    public JwtAuthenticationProvider withAllowedAlgorithms(String... algorithms) {
+        if (algorithms == null || algorithms.length == 0) {
+            throw new IllegalArgumentException("At least one algorithm is required");
+        }
+        final Set<String> supported = JwkAlgorithms.supported();
+        for (String algorithm : algorithms) {
+            if (!supported.contains(algorithm)) {
+                throw new IllegalArgumentException("The algorithm " + algorithm + " is not supported");
+            }
+        }
+        this.allowedAlgorithms = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(algorithms)));
+        resetVerifiers();
+        return this;
     }
 
     @Override
@@ -50,50 +271,246 @@ public class JwtAuthenticationProvider implements AuthenticationProvider {
             return null;
         }
 
-        JwtAuthentication jwt = (JwtAuthentication) authentication;
+        if (auditor == null) {
+            return authenticate((JwtAuthentication) authentication);
+        }
         try {
-            final Authentication jwtAuth = jwt.verify(jwtVerifier(jwt));
-            logger.info("Authenticated with jwt with scopes {}", jwtAuth.getAuthorities());
+            final Authentication jwtAuth = authenticate((JwtAuthentication) authentication);
+            auditor.authenticated(jwtAuth);
+            return jwtAuth;
+        } catch (AuthenticationException e) {
+            auditor.rejected(authentication, e);
+            throw e;
+        }
+    }
+
+    private Authentication authenticate(JwtAuthentication authentication) throws AuthenticationException {
+        final DecodedJwtAuthentication jwt = decoded(authentication);
+        if (tokenCache != null) {
+            final Authentication cached = tokenCache.get(jwt.getToken());
+            if (cached != null) {
+                checkNotRevoked(cached);
+                if (metrics != null) {
+                    metrics.recordSuccess();
+                }
+                return cached;
+            }
+        }
+        try {
+            final Authentication jwtAuth = jwt.verify(secretVerifier != null ? secretVerifier : keyVerifier, authoritiesExtractor);
+            checkNotRevoked(jwtAuth);
+            if (tokenCache != null) {
+                tokenCache.put(jwt.getToken(), jwtAuth);
+            }
+            if (metrics != null) {
+                metrics.recordSuccess();
+            }
             return jwtAuth;
         } catch (JWTVerificationException e) {
             throw new BadCredentialsException("Not a valid token", e);
         }
     }
 
-    private JWTVerifier jwtVerifier(JwtAuthentication authentication) throws AuthenticationException {
-        if (secret != null) {
-            return providerForHS256(secret, issuer, audience);
+    /**
+     * The authentications of this library hold the decoded token already, any other implementation is decoded here
+     */
+    private DecodedJwtAuthentication decoded(JwtAuthentication authentication) throws AuthenticationException {
+        if (authentication instanceof DecodedJwtAuthentication) {
+            return (DecodedJwtAuthentication) authentication;
         }
-        final String kid = authentication.getKeyId();
+        final DecodedJwtAuthentication decoded = PreAuthenticatedAuthenticationJsonWebToken.usingToken(authentication.getToken());
+        if (decoded == null) {
+            recordFailure(Failure.MALFORMED_TOKEN);
+            throw new BadCredentialsException("Not a valid token");
+        }
+        return decoded;
+    }
+
+    private void checkNotRevoked(Authentication authentication) throws AuthenticationException {
+        if (revocationChecker != null && authentication.getDetails() instanceof DecodedJWT
+                && revocationChecker.isRevoked((DecodedJWT) authentication.getDetails())) {
+            recordFailure(Failure.REVOKED);
+            throw new BadCredentialsException("Revoked token");
+        }
+    }
+
+    /**
+     * Obtains the algorithm of a token whose claims were already verified from the key its {@code kid} refers to.
+     * Algorithms that are not allowed are rejected before looking up the key.
+     */
+    private Algorithm algorithmFor(DecodedJWT jwt) throws AuthenticationException, JWTVerificationException {
+        if (!allowedAlgorithms.contains(jwt.getAlgorithm())) {
+            recordFailure(Failure.ALGORITHM_MISMATCH);
+            throw new AlgorithmMismatchException("The provided Algorithm doesn't match the one defined in the JWT's Header.");
+        }
+        final String kid = jwt.getKeyId();
         if (kid == null) {
+            recordFailure(Failure.MISSING_KEY_ID);
             throw new BadCredentialsException("No kid found in jwt");
         }
+        if (!isValidKeyId(kid)) {
+            recordFailure(Failure.INVALID_KEY_ID);
+            throw new BadCredentialsException("Invalid kid found in jwt");
+        }
         if (jwkProvider == null) {
             throw new AuthenticationServiceException("Missing jwk provider");
         }
+        if (metrics == null) {
+            return algorithmForKeyId(kid, jwt.getAlgorithm());
+        }
+        final long start = System.nanoTime();
+        try {
+            return algorithmForKeyId(kid, jwt.getAlgorithm());
+        } finally {
+            metrics.recordTime(Stage.KEY_LOOKUP, System.nanoTime() - start);
+        }
+    }
+
+    private Algorithm algorithmForKeyId(String kid, String algorithm) throws AuthenticationException, JWTVerificationException {
         try {
             final Jwk jwk = jwkProvider.get(kid);
-            return providerForRS256((RSAPublicKey) jwk.getPublicKey(), issuer, audience);
+            return algorithmForKey(kid, algorithm, jwk);
+        } catch (AlgorithmMismatchException e) {
+            recordFailure(Failure.ALGORITHM_MISMATCH);
+            throw e;
+        } catch (KeyIdRejectedException e) {
+            if (JwksFetcher.isFetchFailure(e)) {
+                recordFailure(Failure.JWKS_FETCH_FAILED);
+                throw new AuthenticationServiceException("Could not retrieve jwks from issuer", e);
+            }
+            recordFailure(Failure.UNKNOWN_KEY_ID);
+            throw new BadCredentialsException("Unknown kid found in jwt", e);
         } catch (SigningKeyNotFoundException e) {
+            recordFailure(Failure.JWKS_FETCH_FAILED);
             throw new AuthenticationServiceException("Could not retrieve jwks from issuer", e);
         } catch (InvalidPublicKeyException e) {
+            recordFailure(Failure.INVALID_PUBLIC_KEY);
             throw new AuthenticationServiceException("Could not retrieve public key from issuer", e);
         } catch (JwkException e) {
+            recordFailure(Failure.JWKS_FETCH_FAILED);
             throw new AuthenticationServiceException("Cannot authenticate with jwt", e);
         }
     }
 
-    private static JWTVerifier providerForRS256(RSAPublicKey key, String issuer, String audience) {
-        return JWT.require(Algorithm.RSA256(key))
-                .withIssuer(issuer)
-                .withAudience(audience)
-                .build();
+    private void recordFailure(Failure failure) {
+        if (metrics != null) {
+            metrics.recordFailure(failure);
+        }
+    }
+
+    /**
+     * Key ids that are too long or contain control characters can't belong to the issuer,
+     * so they are rejected before asking the {@link JwkProvider}.
+     */
+    private static boolean isValidKeyId(String kid) {
+        if (kid.isEmpty() || kid.length() > MAX_KEY_ID_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < kid.length(); i++) {
+            final char c = kid.charAt(i);
+            if (c < ' ' || c == 0x7f) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the cached algorithm for the given key id, building a new one only when the jwk obtained from the provider
+     * or the algorithm of the token differ from the ones the cached algorithm was built with. The algorithm was already
+     * checked against the jwk and the allowed algorithms when it was cached, so a cached algorithm is returned without
+     * allocating anything.
+     */
+    private Algorithm algorithmForKey(String kid, String headerAlgorithm, Jwk jwk) throws InvalidPublicKeyException, AlgorithmMismatchException {
+        final KeyAlgorithm cached = algorithms.getIfPresent(kid);
+        if (cached != null && cached.jwk == jwk && cached.name.equals(headerAlgorithm)) {
+            return cached.algorithm;
+        }
+        final String name = JwkAlgorithms.nameFor(jwk, headerAlgorithm, allowedAlgorithms);
+        final PublicKey publicKey = JwkAlgorithms.publicKeyOf(jwk);
+        final Algorithm algorithm;
+        if (cached != null && cached.name.equals(name) && cached.publicKey.equals(publicKey)) {
+            algorithm = cached.algorithm;
+        } else {
+            algorithm = JwkAlgorithms.create(name, publicKey);
+        }
+        algorithms.put(kid, new KeyAlgorithm(jwk, publicKey, name, algorithm));
+        return algorithm;
+    }
+
+    private void resetVerifiers() {
+        if (secret != null) {
+            this.secretVerifier = secretVerifier(secret);
+        } else {
+            this.keyVerifier = keyVerifier();
+        }
+        if (algorithms != null) {
+            algorithms.invalidateAll();
+        }
+    }
+
+    private static Set<String> audienceOf(String audience) {
+        return audience != null ? Collections.singleton(audience) : null;
+    }
+
+    private DecodedJwtVerifier secretVerifier(byte[] secret) {
+        return withOptions(DecodedJwtVerifier.require(ThreadLocalHMACAlgorithm.HS256(secret))).build();
+    }
+
+    private DecodedJwtVerifier keyVerifier() {
+        return withOptions(DecodedJwtVerifier.requireResolved(keyResolver)).build();
     }
 
-    private static JWTVerifier providerForHS256(byte[] secret, String issuer, String audience) {
-        return JWT.require(Algorithm.HMAC256(secret))
+    private DecodedJwtVerifier.Builder withOptions(DecodedJwtVerifier.Builder builder) {
+        return builder
                 .withIssuer(issuer)
-                .withAudience(audience)
-                .build();
+                .withAnyOfAudience(audiences)
+                .acceptLeeway(leewaySeconds)
+                .withClock(clock)
+                .withMetrics(metrics);
+    }
+
+    /**
+     * Waits for the keys of an {@link AsyncJwkProvider} up to the configured timeout.
+     */
+    private class AwaitingJwkProvider implements JwkProvider {
+        private final AsyncJwkProvider provider;
+
+        AwaitingJwkProvider(AsyncJwkProvider provider) {
+            this.provider = provider;
+        }
+
+        @Override
+        public Jwk get(String keyId) throws JwkException {
+            try {
+                return provider.getAsync(keyId).get(keyLookupTimeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                throw new SigningKeyNotFoundException("Timed out waiting for the key with kid " + keyId, e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SigningKeyNotFoundException("Interrupted while waiting for the key with kid " + keyId, e);
+            } catch (CancellationException e) {
+                throw new SigningKeyNotFoundException("Lookup of the key with kid " + keyId + " was rejected", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof JwkException) {
+                    throw (JwkException) e.getCause();
+                }
+                throw new SigningKeyNotFoundException("Failed to obtain the key with kid " + keyId, e.getCause());
+            }
+        }
+    }
+
+    private static class KeyAlgorithm {
+        private final Jwk jwk;
+        private final PublicKey publicKey;
+        private final String name;
+        private final Algorithm algorithm;
+
+        KeyAlgorithm(Jwk jwk, PublicKey publicKey, String name, Algorithm algorithm) {
+            this.jwk = jwk;
+            this.publicKey = publicKey;
+            this.name = name;
+            this.algorithm = algorithm;
+        }
     }
 }
@@ -2,19 +2,34 @@ package com.auth0.spring.security.api;
 
 import com.auth0.jwk.JwkProvider;
 import com.auth0.jwk.JwkProviderBuilder;
+import com.auth0.jwt.interfaces.Clock;
+import com.auth0.spring.security.api.authentication.AuthenticationMetrics;
+import com.auth0.spring.security.api.authentication.AuthoritiesExtractor;
 import org.apache.commons.codec.binary.Base64;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 
+import java.io.File;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
 /**
  * Utility class for configuring Security for your Spring API
  */
 public class JwtWebSecurityConfigurer {
 
+    private static final int MAX_PENDING_KEY_LOOKUPS = 100;
+
     final String audience;
     final String issuer;
     final AuthenticationProvider provider;
+    AuthenticationMetrics metrics;
+    AuthenticationProvider introspectionProvider;
+    PublicPaths publicPaths;
 
     private JwtWebSecurityConfigurer(String audience, String issuer, AuthenticationProvider authenticationProvider) {
         this.audience = audience;
@@ -32,7 +47,7 @@ public class JwtWebSecurityConfigurer {
      */
     @SuppressWarnings({"WeakerAccess", "SameParameterValue"})
     public static JwtWebSecurityConfigurer forRS256(String audience, String issuer) {
-        final JwkProvider jwkProvider = new JwkProviderBuilder(issuer).build();
+        final JwkProvider jwkProvider = new CoalescingJwkProvider(new JwkProviderBuilder(issuer).build());
         return new JwtWebSecurityConfigurer(audience, issuer, new JwtAuthenticationProvider(jwkProvider, issuer, audience));
     }
 
@@ -50,6 +65,89 @@ public class JwtWebSecurityConfigurer {
         return new JwtWebSecurityConfigurer(audience, issuer, provider);
     }
 
+    /**
+     * Configures application authorization for JWT signed with RS256
+     * Will try to validate the token using the public key obtained from the given {@link JwkProvider}
+     * and matched by the value of {@code kid} of the JWT header
+     * @param audience identifier of the API and must match the {@code aud} value in the token
+     * @param issuer of the token for this API and must match the {@code iss} value in the token
+     * @param jwkProvider that provides the public keys of the issuer
+     * @return JwtWebSecurityConfigurer for further configuration
+     */
+    @SuppressWarnings({"WeakerAccess", "SameParameterValue"})
+    public static JwtWebSecurityConfigurer forRS256(String audience, String issuer, JwkProvider jwkProvider) {
+        return new JwtWebSecurityConfigurer(audience, issuer, new JwtAuthenticationProvider(jwkProvider, issuer, audience));
+    }
+
+    /**
+     * Configures application authorization for JWT signed with RS256
+     * The keys in "$issuer/.well-known/jwks.json" are downloaded right away and refreshed in background,
+     * so requests never wait for the keys to be downloaded unless they use a {@code kid} that is still unknown.
+     * @param audience identifier of the API and must match the {@code aud} value in the token
+     * @param issuer of the token for this API and must match the {@code iss} value in the token
+     * @param refreshInterval time between two downloads of the keys
+     * @param unit of the refresh interval
+     * @return JwtWebSecurityConfigurer for further configuration
+     */
+    @SuppressWarnings({"WeakerAccess", "SameParameterValue"})
+    public static JwtWebSecurityConfigurer forRS256WithKeyPrefetch(String audience, String issuer, long refreshInterval, TimeUnit unit) {
+        final JwkProvider jwkProvider = new CoalescingJwkProvider(new RefreshingJwkProvider(JwksFetcher.forIssuer(issuer), refreshInterval, unit).start());
+        return forRS256(audience, issuer, jwkProvider);
+    }
+
+    /**
+     * Configures application authorization for JWT signed with RS256
+     * Like {@link #forRS256WithKeyPrefetch(String, String, long, TimeUnit)}, but the keys are also kept in the given file.
+     * When the application starts with a valid snapshot the keys are loaded from it and downloaded in background,
+     * so requests are served right away even if the issuer can't be reached.
+     * @param audience identifier of the API and must match the {@code aud} value in the token
+     * @param issuer of the token for this API and must match the {@code iss} value in the token
+     * @param refreshInterval time between two downloads of the keys
+     * @param unit of the refresh interval
+     * @param snapshotFile where the keys are kept between restarts, its directory must exist
+     * @return JwtWebSecurityConfigurer for further configuration
+     */
+    @SuppressWarnings({"WeakerAccess", "SameParameterValue"})
+    public static JwtWebSecurityConfigurer forRS256WithKeyPrefetch(String audience, String issuer, long refreshInterval, TimeUnit unit, File snapshotFile) {
+        final RefreshingJwkProvider refreshingProvider = new RefreshingJwkProvider(JwksFetcher.forIssuer(issuer), refreshInterval, unit)
+                .withSnapshot(new JwksSnapshot(snapshotFile))
+                .start();
+        return forRS256(audience, issuer, new CoalescingJwkProvider(refreshingProvider));
+    }
+
+    /**
+     * Configures application authorization for JWT signed with RS256
+     * The keys in "$issuer/.well-known/jwks.json" are downloaded on a dedicated pool of threads,
+     * so request threads only wait for them up to the given timeout and never hold a connection to the issuer.
+     * @param audience identifier of the API and must match the {@code aud} value in the token
+     * @param issuer of the token for this API and must match the {@code iss} value in the token
+     * @param threads number of threads downloading keys
+     * @param timeout maximum time a request waits for a key
+     * @param unit of the timeout
+     * @return JwtWebSecurityConfigurer for further configuration
+     */
+    @SuppressWarnings({"WeakerAccess", "SameParameterValue"})
+    public static JwtWebSecurityConfigurer forRS256WithAsyncKeyLookup(String audience, String issuer, int threads, long timeout, TimeUnit unit) {
+        final JwkProvider jwkProvider = new CoalescingJwkProvider(new JwkProviderBuilder(issuer).build());
+        final AsyncJwkProvider asyncJwkProvider = OffloadingJwkProvider.withBoundedExecutor(jwkProvider, threads, MAX_PENDING_KEY_LOOKUPS);
+        final JwtAuthenticationProvider provider = new JwtAuthenticationProvider(asyncJwkProvider, issuer, audience)
+                .withKeyLookupTimeout(timeout, unit);
+        return new JwtWebSecurityConfigurer(audience, issuer, provider);
+    }
+
+    /**
+     * Configures application authorization for JWT signed with RS256 by any of the given issuers, e.g. one per tenant.
+     * The {@code iss} value of each token selects the public keys downloaded from "$issuer/.well-known/jwks.json",
+     * and tokens of other issuers are rejected.
+     * @param audience identifier of the API and must match the {@code aud} value in the token
+     * @param issuers accepted values of the {@code iss} claim
+     * @return JwtWebSecurityConfigurer for further configuration
+     */
+    @SuppressWarnings({"WeakerAccess", "SameParameterValue"})
+    public static JwtWebSecurityConfigurer forRS256(String audience, Collection<String> issuers) {
+        return new JwtWebSecurityConfigurer(audience, null, MultiIssuerJwtAuthenticationProvider.forRS256(issuers, audience));
+    }
+
     /**
      * Configures application authorization for JWT signed with HS256
      * @param audience identifier of the API and must match the {@code aud} value in the token
@@ -87,6 +185,178 @@ public class JwtWebSecurityConfigurer {
         return new JwtWebSecurityConfigurer(audience, issuer, provider);
     }
 
+    /**
+     * Keep verified tokens in the given cache so a token presented several times is only verified once.
+     * Only available when the configurer uses the default {@link JwtAuthenticationProvider}
+     * @param tokenCache cache of verified tokens
+     * @return this same configurer instance
+     */
+    @SuppressWarnings({"WeakerAccess", "unused"})
+    public JwtWebSecurityConfigurer withVerifiedTokenCache(VerifiedTokenCache tokenCache) {
+        jwtAuthenticationProvider().withVerifiedTokenCache(tokenCache);
+        return this;
+    }
+
+    /**
+     * Use the given extractor to obtain the authorities of the verified tokens, e.g. from a {@code permissions} claim.
+     * Only available when the configurer uses the default {@link JwtAuthenticationProvider}
+     * @param authoritiesExtractor that maps the token claims into authorities
+     * @return this same configurer instance
+     */
+    @SuppressWarnings({"WeakerAccess", "unused"})
+    public JwtWebSecurityConfigurer withAuthoritiesExtractor(AuthoritiesExtractor authoritiesExtractor) {
+        jwtAuthenticationProvider().withAuthoritiesExtractor(authoritiesExtractor);
+        return this;
+    }
+
+    /**
+     * Report the time spent decoding, looking up the key, verifying the signature and verifying the claims of every token,
+     * and the reason of every rejected token. Nothing is measured unless this is called.
+     * Only available when the configurer uses the default {@link JwtAuthenticationProvider}
+     * @param metrics that receive the measures
+     * @return this same configurer instance
+     */
+    @SuppressWarnings({"WeakerAccess", "unused"})
+    public JwtWebSecurityConfigurer withMetrics(AuthenticationMetrics metrics) {
+        jwtAuthenticationProvider().withMetrics(metrics);
+        this.metrics = metrics;
+        return this;
+    }
+
+    /**
+     * Accept tokens issued for any of the given audiences instead of only the one this configurer was created with,
+     * for APIs known by more than one identifier. The signature is still verified once per token.
+     * Only available when the configurer uses the default {@link JwtAuthenticationProvider}
+     * @param audiences identifiers of the API, at least one of them must be in the {@code aud} value of the token
+     * @return this same configurer instance
+     */
+    @SuppressWarnings({"WeakerAccess", "unused"})
+    public JwtWebSecurityConfigurer withAudiences(String... audiences) {
+        jwtAuthenticationProvider().withAudiences(audiences != null ? Arrays.asList(audiences) : null);
+        return this;
+    }
+
+    /**
+     * Only accept tokens signed with one of the given algorithms, e.g. {@code "ES256"}. By default every RSA and EC algorithm
+     * the JVM supports is accepted, always matched against the algorithm declared by the signing key.
+     * Only available when the configurer uses the default {@link JwtAuthenticationProvider}
+     * @param algorithms names of the accepted algorithms
+     * @return this same configurer instance
+     */
+    @SuppressWarnings({"WeakerAccess", "unused"})
+    public JwtWebSecurityConfigurer withAllowedAlgorithms(String... algorithms) {
+        jwtAuthenticationProvider().withAllowedAlgorithms(algorithms);
+        return this;
+    }
+
+    /**
+     * Tolerate this much clock skew between the issuer and this server when checking the {@code exp}, {@code nbf}
+     * and {@code iat} claims. Only available when the configurer uses the default {@link JwtAuthenticationProvider}
+     * @param leeway tolerated clock skew, rounded down to seconds
+     * @param unit of the leeway
+     * @return this same configurer instance
+     */
+    @SuppressWarnings({"WeakerAccess", "unused"})
+    public JwtWebSecurityConfigurer withLeeway(long leeway, TimeUnit unit) {
+        jwtAuthenticationProvider().withLeeway(leeway, unit);
+        return this;
+    }
+
+    /**
+     * Check the time claims of the tokens against the given clock instead of the system time.
+     * Only available when the configurer uses the default {@link JwtAuthenticationProvider}
+     * @param clock that tells the current time
+     * @return this same configurer instance
+     */
+    @SuppressWarnings({"WeakerAccess", "unused"})
+    public JwtWebSecurityConfigurer withClock(Clock clock) {
+        jwtAuthenticationProvider().withClock(clock);
+        return this;
+    }
+
+    /**
+     * Reject the verified tokens that the given checker reports as revoked, e.g. a {@link RevocationList}.
+     * Only available when the configurer uses the default {@link JwtAuthenticationProvider}
+     * @param revocationChecker that tells the revoked tokens
+     * @return this same configurer instance
+     */
+    @SuppressWarnings({"WeakerAccess", "unused"})
+    public JwtWebSecurityConfigurer withRevocationChecker(RevocationChecker revocationChecker) {
+        jwtAuthenticationProvider().withRevocationChecker(revocationChecker);
+        return this;
+    }
+
+    /**
+     * Report the outcome of every authentication to the given auditor, e.g. a {@link LoggingAuthenticationAuditor}
+     * wrapped in a {@link SampledAuthenticationAuditor}. No outcome is reported unless this is called.
+     * Only available when the configurer uses the default {@link JwtAuthenticationProvider}
+     * @param auditor that receives the outcomes
+     * @return this same configurer instance
+     */
+    @SuppressWarnings({"WeakerAccess", "unused"})
+    public JwtWebSecurityConfigurer withAuditor(AuthenticationAuditor auditor) {
+        jwtAuthenticationProvider().withAuditor(auditor);
+        return this;
+    }
+
+    /**
+     * Also accept opaque access tokens, the ones that are not a JWT, by asking the given introspection endpoint
+     * of the authorization server about them (RFC 7662). Without it requests with an opaque token are left unauthenticated.
+     * @param introspectionUrl url of the introspection endpoint
+     * @param clientId of this API in the authorization server
+     * @param clientSecret of this API in the authorization server
+     * @return this same configurer instance
+     */
+    @SuppressWarnings({"WeakerAccess", "unused"})
+    public JwtWebSecurityConfigurer withTokenIntrospection(String introspectionUrl, String clientId, String clientSecret) {
+        final URL url;
+        try {
+            url = new URL(introspectionUrl);
+        } catch (MalformedURLException e) {
+            throw new IllegalArgumentException("Invalid introspection url", e);
+        }
+        return withTokenIntrospection(new IntrospectionAuthenticationProvider(new IntrospectionClient(url, clientId, clientSecret)));
+    }
+
+    /**
+     * Also accept opaque access tokens, the ones that are not a JWT, by authenticating them with the given provider.
+     * @param introspectionProvider that authenticates a {@link com.auth0.spring.security.api.authentication.PreAuthenticatedOpaqueToken}
+     * @return this same configurer instance
+     */
+    @SuppressWarnings({"WeakerAccess", "unused"})
+    public JwtWebSecurityConfigurer withTokenIntrospection(AuthenticationProvider introspectionProvider) {
+        if (introspectionProvider == null) {
+            throw new IllegalArgumentException("A non-null introspection provider is required");
+        }
+        this.introspectionProvider = introspectionProvider;
+        return this;
+    }
+
+    /**
+     * Don't look for a token in the requests to the given paths, e.g. health checks and static assets, so they are
+     * served without spending any time on authentication. Requests to these paths are always unauthenticated,
+     * the paths still need to be permitted to anonymous users, e.g. with {@code authorizeRequests().antMatchers(paths).permitAll()}
+     * @param paths exact paths like {@code /health}, or prefixes ending with {@code /**} like {@code /static/**}
+     * @return this same configurer instance
+     */
+    @SuppressWarnings({"WeakerAccess", "unused"})
+    public JwtWebSecurityConfigurer withPublicPaths(String... paths) {
+        this.publicPaths = PublicPaths.of(paths);
+        return this;
+    }
+
+    /**
+     * Creates a manager that authenticates tokens with the same provider as this configurer, but on its own bounded
+     * pool of threads, for callers that must not block such as event loop threads.
+     * @param threads number of threads verifying tokens
+     * @param maxPending number of tokens that can wait for a thread before new ones are rejected
+     * @return a new asynchronous authentication manager
+     */
+    @SuppressWarnings({"WeakerAccess", "unused"})
+    public AsyncJwtAuthenticationManager asyncAuthenticationManager(int threads, int maxPending) {
+        return AsyncJwtAuthenticationManager.withBoundedExecutor(provider, threads, maxPending);
+    }
+
     /**
      * Further configure the {@link HttpSecurity} object with some sensible defaults
      * by registering objects to obtain a bearer token from a request.
@@ -96,10 +366,13 @@ public class JwtWebSecurityConfigurer {
      */
     @SuppressWarnings("unused")
     public HttpSecurity configure(HttpSecurity http) throws Exception {
+        if (introspectionProvider != null) {
+            http.authenticationProvider(introspectionProvider);
+        }
         return http
                 .authenticationProvider(provider)
                 .securityContext()
-                .securityContextRepository(new BearerSecurityContextRepository())
+                .securityContextRepository(new BearerSecurityContextRepository(metrics, introspectionProvider != null, publicPaths))
                 .and()
                 .exceptionHandling()
                 .authenticationEntryPoint(new JwtAuthenticationEntryPoint())
@@ -108,4 +381,11 @@ public class JwtWebSecurityConfigurer {
                 .csrf().disable()
                 .sessionManagement().sessionCreationPolicy(SessionCreationPolicy.STATELESS).and();
     }
+
+    private JwtAuthenticationProvider jwtAuthenticationProvider() {
+        if (!(provider instanceof JwtAuthenticationProvider)) {
+            throw new IllegalStateException("This option requires the default JwtAuthenticationProvider");
+        }
+        return (JwtAuthenticationProvider) provider;
+    }
 }
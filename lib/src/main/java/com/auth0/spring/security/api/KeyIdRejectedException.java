@@ -0,0 +1,16 @@
+package com.auth0.spring.security.api;
+
+import com.auth0.jwk.SigningKeyNotFoundException;
+
+/**
+ * Thrown when a key id is rejected without looking it up, because it was recently missing
+ * or because too many lookups of unknown keys were made.
+ */
+public class KeyIdRejectedException extends SigningKeyNotFoundException {
+
+    private static final long serialVersionUID = 1L;
+
+    public KeyIdRejectedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,88 @@
+package com.auth0.spring.security.api;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+
+/**
+ * {@link SecurityContext} that keeps the bearer token found in a request and decodes it on the first call to
+ * {@link #getAuthentication()}, instead of when the context is loaded. Setting an authentication before that
+ * discards the token without decoding it. Once decoded, the authentication is read without taking any lock.
+ */
+final class LazyBearerSecurityContext implements SecurityContext {
+
+    private static final long serialVersionUID = 1L;
+
+    private transient BearerSecurityContextRepository repository;
+    private transient volatile String token;
+    private volatile Authentication authentication;
+
+    LazyBearerSecurityContext(BearerSecurityContextRepository repository, String token) {
+        this.repository = repository;
+        this.token = token;
+    }
+
+    /**
+     * The authentication is written before the token is cleared, so a caller that sees no token also sees the
+     * authentication it was decoded into
+     */
+    @Override
+    public Authentication getAuthentication() {
+        if (token != null) {
+            synchronized (this) {
+                final String pending = token;
+                if (pending != null) {
+                    authentication = repository.authenticationFor(pending);
+                    repository = null;
+                    token = null;
+                }
+            }
+        }
+        return authentication;
+    }
+
+    @Override
+    public synchronized void setAuthentication(Authentication authentication) {
+        this.authentication = authentication;
+        this.token = null;
+        this.repository = null;
+    }
+
+    /**
+     * @return whether the token is still waiting to be decoded
+     */
+    boolean isPending() {
+        return token != null;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof SecurityContext)) {
+            return false;
+        }
+        final Authentication authentication = getAuthentication();
+        final Authentication other = ((SecurityContext) obj).getAuthentication();
+        return authentication == null ? other == null : authentication.equals(other);
+    }
+
+    @Override
+    public int hashCode() {
+        final Authentication authentication = getAuthentication();
+        return authentication == null ? -1 : authentication.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return isPending() ? "LazyBearerSecurityContext: Authentication not decoded yet" : "LazyBearerSecurityContext: Authentication=" + getAuthentication();
+    }
+
+    /**
+     * The repository can't be serialized, so the token is decoded before writing the context
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        getAuthentication();
+        out.defaultWriteObject();
+    }
+}
@@ -0,0 +1,71 @@
+package com.auth0.spring.security.api;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+
+/**
+ * {@link AuthenticationAuditor} that writes every outcome as a key-value log line at INFO level.
+ * Nothing is formatted when INFO is disabled for this class. The subject of a rejected token was not verified, so anyone
+ * could have set it to anything, and it is left out of the line.
+ */
+public class LoggingAuthenticationAuditor implements AuthenticationAuditor {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoggingAuthenticationAuditor.class);
+
+    @Override
+    public void authenticated(Authentication authentication) {
+        if (logger.isInfoEnabled()) {
+            logger.info("event=authentication outcome=success subject={} authorities={}", authentication.getName(), authentication.getAuthorities());
+        }
+    }
+
+    @Override
+    public void rejected(Authentication authentication, AuthenticationException exception) {
+        if (logger.isInfoEnabled()) {
+            logger.info("event=authentication outcome=rejected reason=\"{}\"", escape(exception.getMessage()));
+        }
+    }
+
+    /**
+     * Escapes the quotes, backslashes and line breaks of a quoted value, so it can't end the value or the line early
+     */
+    static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        StringBuilder escaped = null;
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            final String replacement;
+            switch (c) {
+                case '"':
+                    replacement = "\\\"";
+                    break;
+                case '\\':
+                    replacement = "\\\\";
+                    break;
+                case '\r':
+                    replacement = "\\r";
+                    break;
+                case '\n':
+                    replacement = "\\n";
+                    break;
+                default:
+                    replacement = null;
+            }
+            if (replacement == null) {
+                if (escaped != null) {
+                    escaped.append(c);
+                }
+                continue;
+            }
+            if (escaped == null) {
+                escaped = new StringBuilder(value.length() + 16).append(value, 0, i);
+            }
+            escaped.append(replacement);
+        }
+        return escaped == null ? value : escaped.toString();
+    }
+}
@@ -0,0 +1,142 @@
+package com.auth0.spring.security.api;
+
+import com.auth0.jwk.JwkProviderBuilder;
+import com.auth0.spring.security.api.authentication.DecodedJwtAuthentication;
+import com.auth0.spring.security.api.authentication.JwtAuthentication;
+import com.auth0.spring.security.api.authentication.PreAuthenticatedAuthenticationJsonWebToken;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link AuthenticationProvider} for tokens of many issuers, e.g. one per tenant. The {@code iss} claim of the
+ * already decoded token selects the {@link JwtAuthenticationProvider} of its issuer, which is created on first use
+ * and evicted after being idle or when too many issuers are in use, dropping its cached keys and verifiers.
+ */
+public class MultiIssuerJwtAuthenticationProvider implements AuthenticationProvider {
+
+    private static final long DEFAULT_MAX_ISSUERS = 1000;
+    private static final long DEFAULT_IDLE_TIMEOUT_MINUTES = 60;
+
+    private final IssuerResolver resolver;
+    private final Cache<String, JwtAuthenticationProvider> providers;
+
+    /**
+     * Creates a new provider keeping up to 1000 issuers, each evicted after being idle for an hour
+     * @param resolver that creates the provider of each issuer
+     */
+    public MultiIssuerJwtAuthenticationProvider(IssuerResolver resolver) {
+        this(resolver, DEFAULT_MAX_ISSUERS, DEFAULT_IDLE_TIMEOUT_MINUTES, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Creates a new provider
+     * @param resolver that creates the provider of each issuer
+     * @param maxIssuers maximum number of issuers kept at the same time, the least recently used ones are evicted first
+     * @param idleTimeout time after which the provider of an issuer that has no tokens is evicted
+     * @param unit of the idle timeout
+     */
+    public MultiIssuerJwtAuthenticationProvider(IssuerResolver resolver, long maxIssuers, long idleTimeout, TimeUnit unit) {
+        if (resolver == null) {
+            throw new IllegalArgumentException("A non-null resolver is required");
+        }
+        this.resolver = resolver;
+        this.providers = CacheBuilder.newBuilder()
+                .maximumSize(maxIssuers)
+                .expireAfterAccess(idleTimeout, unit)
+                .build();
+    }
+
+    /**
+     * Creates a provider for tokens signed with RS256 by any of the given issuers, using the keys
+     * downloaded from "$issuer/.well-known/jwks.json". Tokens of other issuers are rejected without any network I/O.
+     * @param issuers accepted values of the {@code iss} claim
+     * @param audience identifier of the API and must match the {@code aud} value in the tokens
+     * @return a new provider
+     */
+    public static MultiIssuerJwtAuthenticationProvider forRS256(Collection<String> issuers, final String audience) {
+        if (issuers == null) {
+            throw new IllegalArgumentException("A non-null collection of issuers is required");
+        }
+        final Set<String> accepted = Collections.unmodifiableSet(new HashSet<>(issuers));
+        return new MultiIssuerJwtAuthenticationProvider(new IssuerResolver() {
+            @Override
+            public JwtAuthenticationProvider resolve(String issuer) {
+                if (!accepted.contains(issuer)) {
+                    return null;
+                }
+                final CoalescingJwkProvider jwkProvider = new CoalescingJwkProvider(new JwkProviderBuilder(issuer).build());
+                return new JwtAuthenticationProvider(jwkProvider, issuer, audience);
+            }
+        });
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return JwtAuthentication.class.isAssignableFrom(authentication);
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        if (!supports(authentication.getClass())) {
+            return null;
+        }
+        final DecodedJwtAuthentication jwt = authentication instanceof DecodedJwtAuthentication
+                ? (DecodedJwtAuthentication) authentication
+                : PreAuthenticatedAuthenticationJsonWebToken.usingToken(((JwtAuthentication) authentication).getToken());
+        if (jwt == null) {
+            throw new BadCredentialsException("Not a valid token");
+        }
+        final String issuer = jwt.getIssuer();
+        if (issuer == null) {
+            throw new BadCredentialsException("No issuer found in jwt");
+        }
+        return providerFor(issuer).authenticate((Authentication) jwt);
+    }
+
+    /**
+     * Number of issuers that currently have a provider
+     * @return the number of issuers
+     */
+    public long size() {
+        return providers.size();
+    }
+
+    private JwtAuthenticationProvider providerFor(final String issuer) throws AuthenticationException {
+        final JwtAuthenticationProvider provider = providers.getIfPresent(issuer);
+        if (provider != null) {
+            return provider;
+        }
+        try {
+            return providers.get(issuer, new Callable<JwtAuthenticationProvider>() {
+                @Override
+                public JwtAuthenticationProvider call() throws Exception {
+                    final JwtAuthenticationProvider provider = resolver.resolve(issuer);
+                    if (provider == null) {
+                        throw new BadCredentialsException("Unknown issuer found in jwt");
+                    }
+                    return provider;
+                }
+            });
+        } catch (ExecutionException | UncheckedExecutionException | ExecutionError e) {
+            if (e.getCause() instanceof AuthenticationException) {
+                throw (AuthenticationException) e.getCause();
+            }
+            throw new AuthenticationServiceException("Cannot create the provider for the issuer", e.getCause());
+        }
+    }
+}
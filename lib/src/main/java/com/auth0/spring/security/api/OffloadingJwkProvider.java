@@ -0,0 +1,120 @@
+package com.auth0.spring.security.api;
+
+import com.auth0.jwk.Jwk;
+import com.auth0.jwk.JwkProvider;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListenableFutureTask;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link AsyncJwkProvider} that runs the lookups of a blocking {@link JwkProvider} on a dedicated executor.
+ * Keys obtained in the last minute are returned right away without using the executor, and concurrent
+ * lookups of the same key id share a single task. As a consequence a key removed from the key set of the issuer
+ * is still returned for up to a minute after the wrapped provider stops returning it, on top of any time the wrapped
+ * provider keeps it itself.
+ */
+public class OffloadingJwkProvider implements AsyncJwkProvider {
+
+    private static final long RESOLVED_KEYS_TTL_SECONDS = 60;
+    private static final long MAX_RESOLVED_KEYS = 100;
+
+    private final JwkProvider provider;
+    private final ExecutorService executor;
+    private final ConcurrentMap<String, ListenableFuture<Jwk>> lookups = new ConcurrentHashMap<>();
+    private final Cache<String, Jwk> resolved = CacheBuilder.newBuilder()
+            .maximumSize(MAX_RESOLVED_KEYS)
+            .expireAfterWrite(RESOLVED_KEYS_TTL_SECONDS, TimeUnit.SECONDS)
+            .build();
+
+    /**
+     * Creates a new provider
+     * @param provider that obtains the keys
+     * @param executor where the lookups run
+     */
+    public OffloadingJwkProvider(JwkProvider provider, ExecutorService executor) {
+        if (provider == null) {
+            throw new IllegalArgumentException("A non-null provider is required");
+        }
+        if (executor == null) {
+            throw new IllegalArgumentException("A non-null executor is required");
+        }
+        this.provider = provider;
+        this.executor = executor;
+    }
+
+    /**
+     * Creates a new provider running the lookups on its own pool of daemon threads
+     * @param provider that obtains the keys
+     * @param threads number of threads running lookups
+     * @param maxPending number of lookups that can wait for a thread before new ones are rejected
+     * @return a new provider
+     */
+    public static OffloadingJwkProvider withBoundedExecutor(JwkProvider provider, int threads, int maxPending) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("The number of threads must be positive");
+        }
+        if (maxPending <= 0) {
+            throw new IllegalArgumentException("The number of pending lookups must be positive");
+        }
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(maxPending),
+                new ThreadFactoryBuilder().setNameFormat("jwks-lookup-%d").setDaemon(true).build());
+        return new OffloadingJwkProvider(provider, executor);
+    }
+
+    @Override
+    public ListenableFuture<Jwk> getAsync(final String keyId) {
+        final Jwk jwk = resolved.getIfPresent(keyId);
+        if (jwk != null) {
+            return Futures.immediateFuture(jwk);
+        }
+        final ListenableFuture<Jwk> inProgress = lookups.get(keyId);
+        if (inProgress != null) {
+            return inProgress;
+        }
+        final ListenableFutureTask<Jwk> lookup = ListenableFutureTask.create(new Callable<Jwk>() {
+            @Override
+            public Jwk call() throws Exception {
+                final Jwk jwk = provider.get(keyId);
+                resolved.put(keyId, jwk);
+                return jwk;
+            }
+        });
+        final ListenableFuture<Jwk> existing = lookups.putIfAbsent(keyId, lookup);
+        if (existing != null) {
+            return existing;
+        }
+        lookup.addListener(new Runnable() {
+            @Override
+            public void run() {
+                lookups.remove(keyId, lookup);
+            }
+        }, MoreExecutors.directExecutor());
+        try {
+            executor.execute(lookup);
+        } catch (RejectedExecutionException e) {
+            lookup.cancel(false);
+        }
+        return lookup;
+    }
+
+    /**
+     * Stops the executor, letting the lookups already submitted complete
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
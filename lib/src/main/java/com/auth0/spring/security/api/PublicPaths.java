@@ -0,0 +1,124 @@
+package com.auth0.spring.security.api;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Paths of the requests that never need authentication, e.g. health checks and static assets, compiled into a trie
+ * of characters so matching a request costs one walk over its path whatever the number of paths, without allocating.
+ * A path is either exact, like {@code /health}, or a prefix ending with {@code /**}, like {@code /static/**}, which
+ * matches {@code /static} and everything under it. Paths are matched against the servlet path and path info of the
+ * request, like Spring's {@code AntPathRequestMatcher} does.
+ */
+public class PublicPaths {
+
+    private static final String ANY_SUFFIX = "/**";
+
+    private final Node root = new Node();
+
+    /**
+     * Creates the trie for the given paths
+     * @param paths exact paths or prefixes ending with {@code /**}
+     */
+    public PublicPaths(Collection<String> paths) {
+        if (paths == null || paths.isEmpty()) {
+            throw new IllegalArgumentException("At least one path is required");
+        }
+        for (String path : paths) {
+            add(path);
+        }
+    }
+
+    /**
+     * Creates the trie for the given paths
+     * @param paths exact paths or prefixes ending with {@code /**}
+     * @return a new instance
+     */
+    public static PublicPaths of(String... paths) {
+        return new PublicPaths(paths == null ? null : Arrays.asList(paths));
+    }
+
+    private void add(String path) {
+        if (path == null || !path.startsWith("/")) {
+            throw new IllegalArgumentException("The path " + path + " must start with /");
+        }
+        final boolean prefix = path.endsWith(ANY_SUFFIX);
+        final String value = prefix ? path.substring(0, path.length() - ANY_SUFFIX.length()) : path;
+        if (value.indexOf('*') >= 0 || value.indexOf('?') >= 0) {
+            throw new IllegalArgumentException("The path " + path + " must be exact or end with /**");
+        }
+        Node node = root;
+        for (int i = 0; i < value.length(); i++) {
+            node = node.childOrCreate(value.charAt(i));
+        }
+        if (prefix) {
+            node.prefix = true;
+        } else {
+            node.exact = true;
+        }
+    }
+
+    /**
+     * @param request to match
+     * @return whether the path of the request is one of the public paths
+     */
+    public boolean matches(HttpServletRequest request) {
+        return matches(request.getServletPath(), request.getPathInfo());
+    }
+
+    /**
+     * Walks the servlet path followed by the path info, as if they were a single string
+     */
+    boolean matches(String servletPath, String pathInfo) {
+        final String first = servletPath == null ? "" : servletPath;
+        final String second = pathInfo == null ? "" : pathInfo;
+        final int length = first.length() + second.length();
+        Node node = root;
+        for (int i = 0; i < length; i++) {
+            final char c = i < first.length() ? first.charAt(i) : second.charAt(i - first.length());
+            if (node.prefix && c == '/') {
+                return true;
+            }
+            node = node.child(c);
+            if (node == null) {
+                return false;
+            }
+        }
+        return node.exact || node.prefix;
+    }
+
+    /**
+     * Children are kept sorted by character in parallel arrays and found with a binary search
+     */
+    private static final class Node {
+        private char[] keys = new char[0];
+        private Node[] children = new Node[0];
+        private boolean exact;
+        private boolean prefix;
+
+        Node child(char c) {
+            final int index = Arrays.binarySearch(keys, c);
+            return index >= 0 ? children[index] : null;
+        }
+
+        Node childOrCreate(char c) {
+            int index = Arrays.binarySearch(keys, c);
+            if (index >= 0) {
+                return children[index];
+            }
+            index = -index - 1;
+            final char[] newKeys = new char[keys.length + 1];
+            final Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, index);
+            System.arraycopy(children, 0, newChildren, 0, index);
+            System.arraycopy(keys, index, newKeys, index + 1, keys.length - index);
+            System.arraycopy(children, index, newChildren, index + 1, children.length - index);
+            newKeys[index] = c;
+            newChildren[index] = new Node();
+            keys = newKeys;
+            children = newChildren;
+            return newChildren[index];
+        }
+    }
+}
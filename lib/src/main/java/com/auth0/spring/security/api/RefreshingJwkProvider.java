@@ -0,0 +1,258 @@
+package com.auth0.spring.security.api;
+
+import com.auth0.jwk.Jwk;
+import com.auth0.jwk.JwkException;
+import com.auth0.jwk.JwkProvider;
+import com.auth0.jwk.SigningKeyNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link JwkProvider} that keeps the whole json web key set in memory and refreshes it periodically
+ * on a background thread, so resolving a known key never waits on network I/O.
+ * Call {@link #start()} to download the keys eagerly and schedule the refresh.
+ */
+public class RefreshingJwkProvider implements JwkProvider {
+
+    private static final Logger logger = LoggerFactory.getLogger(RefreshingJwkProvider.class);
+
+    private final JwksFetcher fetcher;
+    private final long refreshInterval;
+    private final TimeUnit unit;
+    private static final long DEFAULT_MISSING_KEY_REFRESH_INTERVAL_MILLIS = 10000;
+
+    private final Object refreshLock = new Object();
+    private final AtomicLong nextMissingKeyRefresh = new AtomicLong();
+    private final AtomicLong downloads = new AtomicLong();
+    private volatile Map<String, Jwk> keys = Collections.emptyMap();
+    private volatile long missingKeyRefreshIntervalMillis = DEFAULT_MISSING_KEY_REFRESH_INTERVAL_MILLIS;
+    private volatile SigningKeyNotFoundException lastRefreshFailure;
+    private volatile JwksSnapshot snapshot;
+    private long appliedDownload;
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Creates a new provider
+     * @param fetcher that downloads the json web key set
+     * @param refreshInterval time between two background refreshes
+     * @param unit of the refresh interval
+     */
+    public RefreshingJwkProvider(JwksFetcher fetcher, long refreshInterval, TimeUnit unit) {
+        if (fetcher == null) {
+            throw new IllegalArgumentException("A non-null fetcher is required");
+        }
+        if (refreshInterval <= 0) {
+            throw new IllegalArgumentException("The refresh interval must be positive");
+        }
+        this.fetcher = fetcher;
+        this.refreshInterval = refreshInterval;
+        this.unit = unit;
+    }
+
+    /**
+     * Limits how often a lookup of an unknown key id downloads the keys again. Lookups of unknown key ids
+     * made before the interval elapses are rejected without any network I/O. Defaults to 10 seconds.
+     * @param interval minimum time between two downloads caused by unknown key ids, or 0 to not limit them
+     * @param unit of the interval
+     * @return this same provider instance
+     */
+    @SuppressWarnings("WeakerAccess")
+    public RefreshingJwkProvider withMissingKeyRefreshInterval(long interval, TimeUnit unit) {
+        if (interval < 0) {
+            throw new IllegalArgumentException("The missing key refresh interval cannot be negative");
+        }
+        this.missingKeyRefreshIntervalMillis = unit.toMillis(interval);
+        return this;
+    }
+
+    /**
+     * Keep a copy of the keys in the given snapshot. On {@link #start()} the keys are loaded from the snapshot
+     * when it is valid and downloaded in background, and every refresh that changes the keys updates the snapshot.
+     * @param snapshot where the keys are kept, or null to not keep them
+     * @return this same provider instance
+     */
+    @SuppressWarnings("WeakerAccess")
+    public RefreshingJwkProvider withSnapshot(JwksSnapshot snapshot) {
+        this.snapshot = snapshot;
+        return this;
+    }
+
+    /**
+     * Loads the keys from the snapshot, if any, or downloads them now, and schedules their periodic refresh.
+     * If the first download fails the provider still starts and the keys will be obtained on the next refresh or lookup.
+     * @return this same provider instance
+     */
+    public synchronized RefreshingJwkProvider start() {
+        if (scheduler != null) {
+            return this;
+        }
+        final boolean loaded = loadSnapshot();
+        if (!loaded) {
+            try {
+                refresh();
+            } catch (SigningKeyNotFoundException e) {
+                logger.warn("Could not prefetch jwks, will retry in background", e);
+            }
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "jwks-refresh");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        scheduler.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    refresh();
+                } catch (SigningKeyNotFoundException e) {
+                    logger.warn("Could not refresh jwks, keeping the previous keys", e);
+                } catch (RuntimeException e) {
+                    logger.error("Unexpected error refreshing jwks", e);
+                }
+            }
+        }, loaded ? 0 : refreshInterval, refreshInterval, unit);
+        return this;
+    }
+
+    /**
+     * Stops the background refresh
+     */
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    @Override
+    public Jwk get(String keyId) throws JwkException {
+        Jwk jwk = keys.get(keyId);
+        if (jwk != null) {
+            return jwk;
+        }
+        if (!claimMissingKeyRefresh()) {
+            jwk = keys.get(keyId);
+            if (jwk != null) {
+                return jwk;
+            }
+            throw new KeyIdRejectedException("No key found with kid " + keyId + ", keys were downloaded too recently to try again", lastRefreshFailure);
+        }
+        refresh();
+        jwk = keys.get(keyId);
+        if (jwk == null) {
+            throw new SigningKeyNotFoundException("No key found in " + fetcher.getUrl() + " with kid " + keyId, null);
+        }
+        return jwk;
+    }
+
+    /**
+     * Lets a single lookup of an unknown key id per interval download the keys, without blocking the others.
+     * Lookups made while that download is in progress are rejected right away.
+     */
+    private boolean claimMissingKeyRefresh() {
+        final long interval = missingKeyRefreshIntervalMillis;
+        if (interval == 0) {
+            return true;
+        }
+        final long now = System.currentTimeMillis();
+        final long next = nextMissingKeyRefresh.get();
+        return now >= next && nextMissingKeyRefresh.compareAndSet(next, now + interval);
+    }
+
+    /**
+     * Downloads the json web key set and replaces the keys in memory. The download doesn't block lookups, and
+     * when downloads overlap the keys of a download are only kept if no download started later replaced them already.
+     * @throws SigningKeyNotFoundException if the keys can't be downloaded, in which case the previous keys are kept
+     */
+    public void refresh() throws SigningKeyNotFoundException {
+        final long download = downloads.incrementAndGet();
+        byte[] json = null;
+        List<Jwk> jwks = null;
+        SigningKeyNotFoundException failure = null;
+        try {
+            json = fetcher.download();
+            jwks = JwksFetcher.parse(json);
+        } catch (SigningKeyNotFoundException e) {
+            failure = e;
+        }
+        synchronized (refreshLock) {
+            if (download < appliedDownload) {
+                if (failure != null) {
+                    throw failure;
+                }
+                return;
+            }
+            appliedDownload = download;
+            lastRefreshFailure = failure;
+            if (failure != null) {
+                throw failure;
+            }
+            update(jwks);
+            logger.debug("Loaded {} keys from {}", keys.size(), fetcher.getUrl());
+            final JwksSnapshot snapshot = this.snapshot;
+            if (snapshot != null) {
+                try {
+                    snapshot.save(json);
+                } catch (IOException e) {
+                    logger.warn("Could not save jwks snapshot", e);
+                }
+            }
+        }
+    }
+
+    private boolean loadSnapshot() {
+        final JwksSnapshot snapshot = this.snapshot;
+        synchronized (refreshLock) {
+            final List<Jwk> jwks = snapshot == null ? null : snapshot.load();
+            if (jwks == null) {
+                return false;
+            }
+            update(jwks);
+            logger.debug("Loaded {} keys from snapshot", keys.size());
+            return true;
+        }
+    }
+
+    private void update(List<Jwk> jwks) {
+        synchronized (refreshLock) {
+            final Map<String, Jwk> previous = keys;
+            final Map<String, Jwk> updated = new HashMap<>(jwks.size());
+            for (Jwk jwk : jwks) {
+                if (jwk.getId() == null) {
+                    continue;
+                }
+                final Jwk current = previous.get(jwk.getId());
+                updated.put(jwk.getId(), sameKey(current, jwk) ? current : jwk);
+            }
+            keys = Collections.unmodifiableMap(updated);
+        }
+    }
+
+    /**
+     * Unchanged keys keep their previous instance, so verifiers cached for them remain valid.
+     */
+    private static boolean sameKey(Jwk current, Jwk jwk) {
+        return current != null
+                && equal(current.getType(), jwk.getType())
+                && equal(current.getAlgorithm(), jwk.getAlgorithm())
+                && equal(current.getAdditionalAttributes(), jwk.getAdditionalAttributes());
+    }
+
+    private static boolean equal(Object a, Object b) {
+        return a == null ? b == null : a.equals(b);
+    }
+}
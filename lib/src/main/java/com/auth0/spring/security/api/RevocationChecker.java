@@ -0,0 +1,18 @@
+package com.auth0.spring.security.api;
+
+import com.auth0.jwt.interfaces.DecodedJWT;
+
+/**
+ * Tells whether a token was revoked before its expiration, e.g. because it was leaked.
+ * It is called on the request threads after the token is verified, and for every token returned by a
+ * {@link VerifiedTokenCache}, so implementations must be thread safe and must not do any I/O,
+ * see {@link RevocationList}.
+ */
+public interface RevocationChecker {
+
+    /**
+     * @param jwt a token with a valid signature and claims
+     * @return whether the token must be rejected
+     */
+    boolean isRevoked(DecodedJWT jwt);
+}
@@ -0,0 +1,274 @@
+package com.auth0.spring.security.api;
+
+import com.auth0.jwt.interfaces.DecodedJWT;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link RevocationChecker} that rejects the tokens whose {@code jti} or {@code sub} claim was revoked.
+ * The revoked values are kept in memory in an exact set behind a bloom filter, so telling that a token
+ * was not revoked, by far the most common answer, only takes a few probes of the filter and no allocation.
+ * Values are revoked directly with {@link #revokeTokenIds(Collection)} and {@link #revokeSubjects(Collection)},
+ * or by a {@link RevocationSource} refreshed periodically in background once {@link #start()} is called.
+ */
+public class RevocationList implements RevocationChecker {
+
+    private static final Logger logger = LoggerFactory.getLogger(RevocationList.class);
+    private static final double DEFAULT_FALSE_POSITIVE_PROBABILITY = 0.01;
+
+    private final Entries tokenIds;
+    private final Entries subjects;
+    private RevocationSource source;
+    private long refreshInterval;
+    private TimeUnit unit;
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Creates a new list with a 1% false positive probability in its filter
+     * @param expectedRevocations number of revoked token ids, and of revoked subjects, the filter is sized for.
+     *                            The filter grows when more values are revoked
+     */
+    public RevocationList(int expectedRevocations) {
+        this(expectedRevocations, DEFAULT_FALSE_POSITIVE_PROBABILITY);
+    }
+
+    /**
+     * Creates a new list
+     * @param expectedRevocations number of revoked token ids, and of revoked subjects, the filter is sized for.
+     *                            The filter grows when more values are revoked
+     * @param falsePositiveProbability fraction of the tokens that weren't revoked that need a lookup in the exact set
+     */
+    public RevocationList(int expectedRevocations, double falsePositiveProbability) {
+        if (expectedRevocations <= 0) {
+            throw new IllegalArgumentException("The expected number of revocations must be positive");
+        }
+        if (falsePositiveProbability <= 0 || falsePositiveProbability >= 1) {
+            throw new IllegalArgumentException("The false positive probability must be between 0 and 1");
+        }
+        this.tokenIds = new Entries(expectedRevocations, falsePositiveProbability);
+        this.subjects = new Entries(expectedRevocations, falsePositiveProbability);
+    }
+
+    /**
+     * Refresh the revoked tokens from the given source every interval once {@link #start()} is called
+     * @param source of the revoked tokens
+     * @param refreshInterval time between two refreshes
+     * @param unit of the refresh interval
+     * @return this same list instance
+     */
+    @SuppressWarnings("WeakerAccess")
+    public synchronized RevocationList withSource(RevocationSource source, long refreshInterval, TimeUnit unit) {
+        if (source == null) {
+            throw new IllegalArgumentException("A non-null source is required");
+        }
+        if (refreshInterval <= 0) {
+            throw new IllegalArgumentException("The refresh interval must be positive");
+        }
+        this.source = source;
+        this.refreshInterval = refreshInterval;
+        this.unit = unit;
+        return this;
+    }
+
+    /**
+     * Reads the revoked tokens from the source now and schedules their periodic refresh.
+     * If the first read fails the list still starts and the revoked tokens will be read on the next refresh.
+     * @return this same list instance
+     */
+    public synchronized RevocationList start() {
+        if (source == null) {
+            throw new IllegalStateException("A source is required to start the refresh");
+        }
+        if (scheduler != null) {
+            return this;
+        }
+        try {
+            refresh();
+        } catch (IOException e) {
+            logger.warn("Could not read the revoked tokens, will retry in background", e);
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "revocation-refresh");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        scheduler.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    refresh();
+                } catch (IOException e) {
+                    logger.warn("Could not refresh the revoked tokens, keeping the previous ones", e);
+                } catch (RuntimeException e) {
+                    logger.error("Unexpected error refreshing the revoked tokens", e);
+                }
+            }
+        }, refreshInterval, refreshInterval, unit);
+        return this;
+    }
+
+    /**
+     * Stops the background refresh
+     */
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Reads the changes of the source now
+     * @throws IOException if the source can't be read, in which case the list keeps its entries
+     */
+    public void refresh() throws IOException {
+        final RevocationSource source;
+        synchronized (this) {
+            source = this.source;
+        }
+        if (source == null) {
+            throw new IllegalStateException("A source is required to refresh the revoked tokens");
+        }
+        source.update(this);
+    }
+
+    @Override
+    public boolean isRevoked(DecodedJWT jwt) {
+        return tokenIds.contains(jwt.getId()) || subjects.contains(jwt.getSubject());
+    }
+
+    /**
+     * Rejects the tokens with any of the given {@code jti} values
+     * @param ids revoked token ids
+     */
+    public void revokeTokenIds(Collection<String> ids) {
+        tokenIds.addAll(ids);
+    }
+
+    /**
+     * Rejects the tokens with any of the given {@code sub} values
+     * @param subjects revoked subjects
+     */
+    public void revokeSubjects(Collection<String> subjects) {
+        this.subjects.addAll(subjects);
+    }
+
+    /**
+     * Accepts again the tokens with any of the given {@code jti} values, e.g. once they expired
+     * @param ids token ids that are no longer revoked
+     */
+    public void reinstateTokenIds(Collection<String> ids) {
+        tokenIds.removeAll(ids);
+    }
+
+    /**
+     * Accepts again the tokens with any of the given {@code sub} values
+     * @param subjects subjects that are no longer revoked
+     */
+    public void reinstateSubjects(Collection<String> subjects) {
+        this.subjects.removeAll(subjects);
+    }
+
+    /**
+     * Replaces every revoked token id and subject with the given ones
+     * @param ids revoked token ids
+     * @param subjects revoked subjects
+     */
+    public void replaceAll(Collection<String> ids, Collection<String> subjects) {
+        tokenIds.replaceAll(ids);
+        this.subjects.replaceAll(subjects);
+    }
+
+    /**
+     * @return number of revoked token ids
+     */
+    public int getRevokedTokenIdCount() {
+        return tokenIds.values.size();
+    }
+
+    /**
+     * @return number of revoked subjects
+     */
+    public int getRevokedSubjectCount() {
+        return subjects.values.size();
+    }
+
+    /**
+     * Values of one claim. The filter is only written while holding the lock of this instance and a value is added
+     * to the set before the filter, so a reader that finds a value in the filter also finds it in the set.
+     * Reinstated values remain in the filter until it is rebuilt, which happens when they are as many as the values
+     * it was sized for, or when the set outgrows it.
+     */
+    private static final class Entries {
+
+        private final Set<String> values = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+        private final double fpp;
+        private volatile StringBloomFilter filter;
+        private long capacity;
+        private long removed;
+
+        Entries(long capacity, double fpp) {
+            this.fpp = fpp;
+            this.capacity = capacity;
+            this.filter = new StringBloomFilter(capacity, fpp);
+        }
+
+        boolean contains(String value) {
+            return value != null && filter.mightContain(value) && values.contains(value);
+        }
+
+        synchronized void addAll(Collection<String> added) {
+            for (String value : added) {
+                if (value != null && values.add(value)) {
+                    filter.put(value);
+                }
+            }
+            if (values.size() > capacity) {
+                capacity = Math.max(capacity * 2, values.size());
+                rebuild();
+            }
+        }
+
+        synchronized void removeAll(Collection<String> removed) {
+            for (String value : removed) {
+                if (value != null && values.remove(value)) {
+                    this.removed++;
+                }
+            }
+            if (this.removed >= capacity) {
+                rebuild();
+            }
+        }
+
+        synchronized void replaceAll(Collection<String> replacement) {
+            final Set<String> kept = new HashSet<>(replacement);
+            addAll(kept);
+            final Set<String> dropped = new HashSet<>(values);
+            dropped.removeAll(kept);
+            removeAll(dropped);
+        }
+
+        private void rebuild() {
+            final StringBloomFilter rebuilt = new StringBloomFilter(capacity, fpp);
+            for (String value : values) {
+                rebuilt.put(value);
+            }
+            filter = rebuilt;
+            removed = 0;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.auth0.spring.security.api;
+
+import java.io.IOException;
+
+/**
+ * Where the revoked tokens of a {@link RevocationList} come from, e.g. a {@link FileRevocationSource}.
+ * It is called periodically on a background thread once the list is started.
+ */
+public interface RevocationSource {
+
+    /**
+     * Adds to the list the tokens revoked since the previous call, or replaces all of its entries
+     * when the changes can't be told apart
+     * @param list that receives the revoked tokens
+     * @throws IOException if the revoked tokens can't be read, in which case the list keeps its entries
+     */
+    void update(RevocationList list) throws IOException;
+}
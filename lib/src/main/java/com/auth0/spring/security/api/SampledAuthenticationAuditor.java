@@ -0,0 +1,62 @@
+package com.auth0.spring.security.api;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * {@link AuthenticationAuditor} that only reports a random sample of the outcomes to another auditor,
+ * so the cost of auditing does not grow with the traffic.
+ */
+public class SampledAuthenticationAuditor implements AuthenticationAuditor {
+
+    private final AuthenticationAuditor auditor;
+    private final double successRate;
+    private final double failureRate;
+
+    /**
+     * Creates a new auditor reporting the same fraction of successes and failures
+     * @param auditor that receives the sampled outcomes
+     * @param rate fraction of the outcomes to report, between 0 and 1
+     */
+    public SampledAuthenticationAuditor(AuthenticationAuditor auditor, double rate) {
+        this(auditor, rate, rate);
+    }
+
+    /**
+     * Creates a new auditor
+     * @param auditor that receives the sampled outcomes
+     * @param successRate fraction of the successful authentications to report, between 0 and 1
+     * @param failureRate fraction of the rejected tokens to report, between 0 and 1
+     */
+    public SampledAuthenticationAuditor(AuthenticationAuditor auditor, double successRate, double failureRate) {
+        if (auditor == null) {
+            throw new IllegalArgumentException("A non-null auditor is required");
+        }
+        if (!(successRate >= 0 && successRate <= 1) || !(failureRate >= 0 && failureRate <= 1)) {
+            throw new IllegalArgumentException("The sample rate must be between 0 and 1");
+        }
+        this.auditor = auditor;
+        this.successRate = successRate;
+        this.failureRate = failureRate;
+    }
+
+    @Override
+    public void authenticated(Authentication authentication) {
+        if (sampled(successRate)) {
+            auditor.authenticated(authentication);
+        }
+    }
+
+    @Override
+    public void rejected(Authentication authentication, AuthenticationException exception) {
+        if (sampled(failureRate)) {
+            auditor.rejected(authentication, exception);
+        }
+    }
+
+    private static boolean sampled(double rate) {
+        return rate >= 1 || (rate > 0 && ThreadLocalRandom.current().nextDouble() < rate);
+    }
+}
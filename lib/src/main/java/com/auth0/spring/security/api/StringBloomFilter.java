@@ -0,0 +1,79 @@
+package com.auth0.spring.security.api;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter of strings that can be read while it is written. Unlike Guava's it hashes the characters of the
+ * strings directly, so a lookup doesn't allocate anything: the first hash is the one cached by {@link String#hashCode()}
+ * and the rest are derived from it and a second hash of the characters.
+ */
+final class StringBloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bitSize;
+    private final int hashFunctions;
+
+    /**
+     * @param expectedInsertions number of strings the filter is sized for
+     * @param fpp false positive probability once it holds that many strings
+     */
+    StringBloomFilter(long expectedInsertions, double fpp) {
+        final long bits = Math.max(Long.SIZE, (long) (-expectedInsertions * Math.log(fpp) / (Math.log(2) * Math.log(2))));
+        this.words = new AtomicLongArray((int) ((bits + Long.SIZE - 1) / Long.SIZE));
+        this.bitSize = (long) words.length() * Long.SIZE;
+        this.hashFunctions = Math.max(1, (int) Math.round((double) bitSize / expectedInsertions * Math.log(2)));
+    }
+
+    void put(String value) {
+        final long hash1 = mix(value.hashCode()) & 0xffffffffL;
+        final long hash2 = (secondHash(value) | 1) & 0xffffffffL;
+        for (int i = 0; i < hashFunctions; i++) {
+            final long index = (hash1 + i * hash2) % bitSize;
+            final int word = (int) (index >>> 6);
+            final long mask = 1L << index;
+            long current;
+            do {
+                current = words.get(word);
+            } while ((current & mask) == 0 && !words.compareAndSet(word, current, current | mask));
+        }
+    }
+
+    /**
+     * @return false if the value was never put, true if it was put or on a false positive
+     */
+    boolean mightContain(String value) {
+        final long hash1 = mix(value.hashCode()) & 0xffffffffL;
+        final long hash2 = (secondHash(value) | 1) & 0xffffffffL;
+        for (int i = 0; i < hashFunctions; i++) {
+            final long index = (hash1 + i * hash2) % bitSize;
+            if ((words.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * FNV-1a of the characters, independent from {@link String#hashCode()}
+     */
+    private static int secondHash(String value) {
+        int hash = 0x811c9dc5;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x01000193;
+        }
+        return mix(hash);
+    }
+
+    /**
+     * Final mix of murmur3, spreads the bits of weak hashes
+     */
+    private static int mix(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+}
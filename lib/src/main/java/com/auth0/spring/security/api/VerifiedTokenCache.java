@@ -0,0 +1,156 @@
+package com.auth0.spring.security.api;
+
+import com.auth0.jwt.interfaces.Clock;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.google.common.cache.Cache;
+import com.google.common.base.Ticker;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import org.springframework.security.core.Authentication;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Bounded cache of already verified tokens, so a token presented several times during its lifetime
+ * only has its signature verified once. Entries are keyed by the SHA-256 digest of the raw token
+ * and are never returned after the token's {@code exp} claim.
+ * A cached token was verified with the issuer, audience, algorithms and revocation settings of one provider, so each
+ * instance can only be given to a single {@link JwtAuthenticationProvider}.
+ */
+public class VerifiedTokenCache {
+
+    private static final HashFunction DIGEST = Hashing.sha256();
+
+    private final Cache<HashCode, CachedAuthentication> cache;
+    private final long maxAgeMillis;
+    private final Clock clock;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicReference<Object> owner = new AtomicReference<>();
+
+    /**
+     * Creates a new cache
+     * @param maximumSize maximum number of verified tokens to keep
+     * @param maxAge maximum time a verified token is kept, even if its {@code exp} is later
+     * @param unit of the max age
+     */
+    public VerifiedTokenCache(long maximumSize, long maxAge, TimeUnit unit) {
+        this(maximumSize, maxAge, unit, null);
+    }
+
+    /**
+     * Creates a new cache that tells the time with the given clock, which should be the same one given to
+     * {@link JwtAuthenticationProvider#withClock(Clock)} so tokens stop being returned when they stop being valid
+     * @param maximumSize maximum number of verified tokens to keep
+     * @param maxAge maximum time a verified token is kept, even if its {@code exp} is later
+     * @param unit of the max age
+     * @param clock that tells the current time, or null to use the system time
+     */
+    public VerifiedTokenCache(long maximumSize, long maxAge, TimeUnit unit, final Clock clock) {
+        this.maxAgeMillis = unit.toMillis(maxAge);
+        this.clock = clock;
+        final CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(maxAge, unit);
+        if (clock != null) {
+            builder.ticker(new Ticker() {
+                @Override
+                public long read() {
+                    return TimeUnit.MILLISECONDS.toNanos(clock.getToday().getTime());
+                }
+            });
+        }
+        this.cache = builder.build();
+    }
+
+    /**
+     * Reserves this cache for the given provider
+     * @return false if it is already used by another provider
+     */
+    boolean claim(Object provider) {
+        return owner.compareAndSet(null, provider) || owner.get() == provider;
+    }
+
+    Authentication get(String token) {
+        final HashCode key = digest(token);
+        final CachedAuthentication cached = cache.getIfPresent(key);
+        if (cached == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        if (cached.expiresAt <= currentTimeMillis() || !cached.authentication.isAuthenticated()) {
+            cache.invalidate(key);
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return cached.authentication;
+    }
+
+    void put(String token, Authentication authentication) {
+        final long now = currentTimeMillis();
+        long expiresAt = now + maxAgeMillis;
+        if (authentication.getDetails() instanceof DecodedJWT) {
+            final Date exp = ((DecodedJWT) authentication.getDetails()).getExpiresAt();
+            if (exp != null) {
+                expiresAt = Math.min(expiresAt, exp.getTime());
+            }
+        }
+        if (expiresAt <= now) {
+            return;
+        }
+        cache.put(digest(token), new CachedAuthentication(authentication, expiresAt));
+    }
+
+    /**
+     * @return number of lookups that returned an already verified token
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * @return number of lookups that required the token to be verified
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * @return approximate number of verified tokens currently cached
+     */
+    public long size() {
+        return cache.size();
+    }
+
+    /**
+     * Discards all cached tokens, e.g. after the signing keys were revoked.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private long currentTimeMillis() {
+        return clock != null ? clock.getToday().getTime() : System.currentTimeMillis();
+    }
+
+    private static HashCode digest(String token) {
+        return DIGEST.hashString(token, StandardCharsets.UTF_8);
+    }
+
+    private static class CachedAuthentication {
+        private final Authentication authentication;
+        private final long expiresAt;
+
+        CachedAuthentication(Authentication authentication, long expiresAt) {
+            this.authentication = authentication;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
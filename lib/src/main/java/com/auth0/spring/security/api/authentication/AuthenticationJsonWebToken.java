@@ -6,20 +6,30 @@ import com.auth0.jwt.exceptions.JWTVerificationException;
 import com.auth0.jwt.interfaces.DecodedJWT;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.List;
 
-public class AuthenticationJsonWebToken implements Authentication, JwtAuthentication {
+public class AuthenticationJsonWebToken implements Authentication, DecodedJwtAuthentication {
 
     private final DecodedJWT decoded;
     private boolean authenticated;
+    private final AuthoritiesExtractor authoritiesExtractor;
+    private volatile Collection<? extends GrantedAuthority> authorities;
 
     AuthenticationJsonWebToken(String token, JWTVerifier verifier) throws JWTVerificationException {
         this.decoded = verifier == null ? JWT.decode(token) : verifier.verify(token);
         this.authenticated = verifier != null;
+        this.authoritiesExtractor = ClaimAuthoritiesExtractor.scope();
+    }
+
+    AuthenticationJsonWebToken(DecodedJWT decoded, DecodedJwtVerifier verifier) throws JWTVerificationException {
+        this(decoded, verifier, ClaimAuthoritiesExtractor.scope());
+    }
+
+    AuthenticationJsonWebToken(DecodedJWT decoded, DecodedJwtVerifier verifier, AuthoritiesExtractor authoritiesExtractor) throws JWTVerificationException {
+        this.decoded = verifier == null ? decoded : verifier.verify(decoded);
+        this.authenticated = verifier != null;
+        this.authoritiesExtractor = authoritiesExtractor == null ? ClaimAuthoritiesExtractor.scope() : authoritiesExtractor;
     }
 
     @Override
@@ -32,21 +42,37 @@ public class AuthenticationJsonWebToken implements Authentication, JwtAuthentica
         return decoded.getKeyId();
     }
 
+    @Override
+    public String getIssuer() {
+        return decoded.getIssuer();
+    }
+
+    @Override
+    public String getAlgorithm() {
+        return decoded.getAlgorithm();
+    }
+
     @Override
     public Authentication verify(JWTVerifier verifier) throws JWTVerificationException {
         return new AuthenticationJsonWebToken(getToken(), verifier);
     }
 
+    @Override
+    public Authentication verify(DecodedJwtVerifier verifier) throws JWTVerificationException {
+        return new AuthenticationJsonWebToken(decoded, verifier, authoritiesExtractor);
+    }
+
+    @Override
+    public Authentication verify(DecodedJwtVerifier verifier, AuthoritiesExtractor authoritiesExtractor) throws JWTVerificationException {
+        return new AuthenticationJsonWebToken(decoded, verifier, authoritiesExtractor);
+    }
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        String scope = decoded.getClaim("scope").asString();
-        if (scope == null || scope.trim().isEmpty()) {
-            return new ArrayList<>();
-        }
-        final String[] scopes = scope.split(" ");
-        List<SimpleGrantedAuthority> authorities = new ArrayList<>(scopes.length);
-        for (String value : scopes) {
-            authorities.add(new SimpleGrantedAuthority(value));
+        Collection<? extends GrantedAuthority> authorities = this.authorities;
+        if (authorities == null) {
+            authorities = authoritiesExtractor.extract(decoded);
+            this.authorities = authorities;
         }
         return authorities;
     }
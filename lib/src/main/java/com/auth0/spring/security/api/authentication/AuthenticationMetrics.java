@@ -0,0 +1,69 @@
+package com.auth0.spring.security.api.authentication;
+
+/**
+ * Receives the duration of each stage of the authentication of a JWT and the reason of every failure,
+ * so they can be bound to a metrics registry such as Micrometer or Dropwizard Metrics.
+ * When no instance is configured nothing is measured. Implementations are called on the request threads
+ * and must be thread safe and cheap.
+ */
+public interface AuthenticationMetrics {
+
+    /**
+     * Stages of the authentication of a JWT
+     */
+    enum Stage {
+        /**
+         * Decoding of the header and payload found in the request
+         */
+        DECODE,
+        /**
+         * Lookup of the key used to verify the signature
+         */
+        KEY_LOOKUP,
+        /**
+         * Verification of the signature
+         */
+        SIGNATURE,
+        /**
+         * Verification of the time, issuer and audience claims
+         */
+        CLAIMS
+    }
+
+    /**
+     * Reasons for a JWT to be rejected
+     */
+    enum Failure {
+        MALFORMED_TOKEN,
+        MISSING_KEY_ID,
+        INVALID_KEY_ID,
+        UNKNOWN_KEY_ID,
+        JWKS_FETCH_FAILED,
+        INVALID_PUBLIC_KEY,
+        ALGORITHM_MISMATCH,
+        BAD_SIGNATURE,
+        EXPIRED,
+        NOT_YET_VALID,
+        WRONG_ISSUER,
+        WRONG_AUDIENCE,
+        REVOKED
+    }
+
+    /**
+     * Called when a stage completes, successfully or not
+     * @param stage that completed
+     * @param nanos time spent in the stage, in nanoseconds
+     */
+    void recordTime(Stage stage, long nanos);
+
+    /**
+     * Called when a JWT is rejected
+     * @param failure reason of the rejection
+     */
+    void recordFailure(Failure failure);
+
+    /**
+     * Called when a JWT is successfully authenticated
+     */
+    void recordSuccess();
+}
@@ -0,0 +1,107 @@
+package com.auth0.spring.security.api.authentication;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Opaque token reported as active by the introspection endpoint of its authorization server.
+ * The details are the members of the introspection response and the authorities are the values of its {@code scope}.
+ */
+public class AuthenticationOpaqueToken implements Authentication {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String token;
+    private final Map<String, Object> claims;
+    private final Collection<? extends GrantedAuthority> authorities;
+    private boolean authenticated;
+
+    /**
+     * Creates a new authenticated token
+     * @param token presented in the request
+     * @param claims members of the introspection response for the token
+     */
+    public AuthenticationOpaqueToken(String token, Map<String, Object> claims) {
+        this.token = token;
+        this.claims = Collections.unmodifiableMap(claims);
+        this.authorities = scopeAuthorities(claims.get("scope"));
+        this.authenticated = true;
+    }
+
+    private static Collection<? extends GrantedAuthority> scopeAuthorities(Object scope) {
+        if (!(scope instanceof String) || ((String) scope).trim().isEmpty()) {
+            return Collections.emptyList();
+        }
+        final GrantedAuthorityRegistry registry = GrantedAuthorityRegistry.getDefault();
+        final List<GrantedAuthority> authorities = new ArrayList<>();
+        for (String value : ((String) scope).trim().split("\\s+")) {
+            authorities.add(registry.authorityFor(value));
+        }
+        return Collections.unmodifiableList(authorities);
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    /**
+     * @return the {@code exp} member of the introspection response, or null if it has none
+     */
+    public Date getExpiresAt() {
+        final Object exp = claims.get("exp");
+        return exp instanceof Number ? new Date(((Number) exp).longValue() * 1000) : null;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    @Override
+    public Object getCredentials() {
+        return token;
+    }
+
+    @Override
+    public Object getDetails() {
+        return claims;
+    }
+
+    @Override
+    public Object getPrincipal() {
+        return getName();
+    }
+
+    @Override
+    public boolean isAuthenticated() {
+        return authenticated;
+    }
+
+    @Override
+    public void setAuthenticated(boolean isAuthenticated) throws IllegalArgumentException {
+        if (isAuthenticated) {
+            throw new IllegalArgumentException("Must create a new instance to specify that the authentication is valid");
+        }
+        this.authenticated = false;
+    }
+
+    /**
+     * @return the {@code sub} member of the introspection response, or its {@code username} if it has no subject
+     */
+    @Override
+    public String getName() {
+        final Object subject = claims.get("sub");
+        if (subject instanceof String) {
+            return (String) subject;
+        }
+        final Object username = claims.get("username");
+        return username instanceof String ? (String) username : null;
+    }
+}
@@ -0,0 +1,16 @@
+package com.auth0.spring.security.api.authentication;
+
+import com.auth0.jwt.interfaces.DecodedJWT;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+
+/**
+ * Maps the claims of a verified token into the authorities of the authenticated user.
+ * Implementations must be thread-safe and should return an unmodifiable collection,
+ * as it's computed once per token and shared by every caller of {@link AuthenticationJsonWebToken#getAuthorities()}.
+ */
+public interface AuthoritiesExtractor {
+
+    Collection<? extends GrantedAuthority> extract(DecodedJWT jwt);
+}
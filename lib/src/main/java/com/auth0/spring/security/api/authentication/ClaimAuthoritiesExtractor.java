@@ -0,0 +1,99 @@
+package com.auth0.spring.security.api.authentication;
+
+import com.auth0.jwt.interfaces.Claim;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Builds the authorities from a single claim, either a space separated string like {@code scope}
+ * or an array of strings like {@code permissions}. Authorities are obtained from a {@link GrantedAuthorityRegistry}.
+ */
+public class ClaimAuthoritiesExtractor implements AuthoritiesExtractor {
+
+    private static final ClaimAuthoritiesExtractor SCOPE = new ClaimAuthoritiesExtractor("scope");
+
+    private final String claimName;
+    private final GrantedAuthorityRegistry registry;
+
+    /**
+     * Creates an extractor for the given claim using the default registry
+     * @param claimName name of the claim holding the authorities
+     */
+    public ClaimAuthoritiesExtractor(String claimName) {
+        this(claimName, GrantedAuthorityRegistry.getDefault());
+    }
+
+    /**
+     * Creates an extractor for the given claim
+     * @param claimName name of the claim holding the authorities
+     * @param registry that provides the authority instances
+     */
+    public ClaimAuthoritiesExtractor(String claimName, GrantedAuthorityRegistry registry) {
+        if (claimName == null) {
+            throw new IllegalArgumentException("The claim name cannot be null");
+        }
+        if (registry == null) {
+            throw new IllegalArgumentException("The registry cannot be null");
+        }
+        this.claimName = claimName;
+        this.registry = registry;
+    }
+
+    /**
+     * @return the extractor used by default, which maps each value of the {@code scope} claim to an authority
+     */
+    public static ClaimAuthoritiesExtractor scope() {
+        return SCOPE;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> extract(DecodedJWT jwt) {
+        final Claim claim = jwt.getClaim(claimName);
+        final String value = claim.asString();
+        if (value != null) {
+            return fromDelimited(value);
+        }
+        final List<String> values = claim.asList(String.class);
+        if (values == null || values.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<GrantedAuthority> authorities = new ArrayList<>(values.size());
+        for (String item : values) {
+            if (item != null && !item.trim().isEmpty()) {
+                authorities.add(registry.authorityFor(item));
+            }
+        }
+        return Collections.unmodifiableList(authorities);
+    }
+
+    private List<GrantedAuthority> fromDelimited(String value) {
+        final int length = value.length();
+        List<GrantedAuthority> authorities = null;
+        int start = 0;
+        while (start < length) {
+            while (start < length && value.charAt(start) == ' ') {
+                start++;
+            }
+            int end = start;
+            while (end < length && value.charAt(end) != ' ') {
+                end++;
+            }
+            if (end > start) {
+                if (authorities == null) {
+                    authorities = new ArrayList<>();
+                }
+                authorities.add(registry.authorityFor(value.substring(start, end)));
+            }
+            start = end;
+        }
+        if (authorities == null) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(authorities);
+    }
+}
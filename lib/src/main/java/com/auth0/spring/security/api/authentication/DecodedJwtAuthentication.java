@@ -0,0 +1,20 @@
+package com.auth0.spring.security.api.authentication;
+
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import org.springframework.security.core.Authentication;
+
+/**
+ * {@link JwtAuthentication} whose token was already decoded, so it can be verified with a {@link DecodedJwtVerifier}
+ * without parsing the token again. Implemented by the authentications of this library, the providers fall back to
+ * decoding the token of any other {@link JwtAuthentication}.
+ */
+public interface DecodedJwtAuthentication extends JwtAuthentication {
+
+    String getIssuer();
+
+    String getAlgorithm();
+
+    Authentication verify(DecodedJwtVerifier verifier) throws JWTVerificationException;
+
+    Authentication verify(DecodedJwtVerifier verifier, AuthoritiesExtractor authoritiesExtractor) throws JWTVerificationException;
+}
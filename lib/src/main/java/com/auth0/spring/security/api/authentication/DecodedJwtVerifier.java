@@ -0,0 +1,282 @@
+package com.auth0.spring.security.api.authentication;
+
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.AlgorithmMismatchException;
+import com.auth0.jwt.exceptions.InvalidClaimException;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.exceptions.SignatureVerificationException;
+import com.auth0.jwt.interfaces.Clock;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.auth0.spring.security.api.authentication.AuthenticationMetrics.Failure;
+import com.auth0.spring.security.api.authentication.AuthenticationMetrics.Stage;
+import org.apache.commons.codec.binary.Base64;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verifies the signature and claims of a JWT that was already decoded, so header and payload
+ * are not parsed again like {@link com.auth0.jwt.JWTVerifier#verify(String)} does.
+ * Instances are immutable and safe to share between threads.
+ */
+public class DecodedJwtVerifier {
+
+    private final Algorithm algorithm;
+    private final AlgorithmResolver resolver;
+    private final String issuer;
+    private final Set<String> audiences;
+    private final long leewayMillis;
+    private final Clock clock;
+    private final AuthenticationMetrics metrics;
+
+    private DecodedJwtVerifier(Algorithm algorithm, AlgorithmResolver resolver, String issuer, Set<String> audiences, long leewayMillis, Clock clock, AuthenticationMetrics metrics) {
+        this.algorithm = algorithm;
+        this.resolver = resolver;
+        this.issuer = issuer;
+        this.audiences = audiences;
+        this.leewayMillis = leewayMillis;
+        this.clock = clock;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Starts the creation of a verifier for tokens signed with the given algorithm
+     * @param algorithm used to verify the token signature
+     * @return a builder to further configure the verifier
+     */
+    public static Builder require(Algorithm algorithm) {
+        if (algorithm == null) {
+            throw new IllegalArgumentException("The Algorithm cannot be null.");
+        }
+        return new Builder(algorithm, null);
+    }
+
+    /**
+     * Starts the creation of a verifier that obtains the algorithm of each token from the given resolver, only once
+     * the claims of the token were verified. Tokens that expired or are meant for someone else are then rejected
+     * without looking up their key.
+     * @param resolver that returns the algorithm each token must be verified with
+     * @return a builder to further configure the verifier
+     */
+    public static Builder requireResolved(AlgorithmResolver resolver) {
+        if (resolver == null) {
+            throw new IllegalArgumentException("The AlgorithmResolver cannot be null.");
+        }
+        return new Builder(null, resolver);
+    }
+
+    /**
+     * Verifies the algorithm, claims and signature of the given token. The claims are checked before the signature,
+     * so expired tokens or tokens meant for someone else are rejected without paying for the signature verification,
+     * and before the algorithm is resolved, so they don't need their key either.
+     * @param jwt already decoded token to verify
+     * @return the same decoded token
+     * @throws JWTVerificationException if any of the checks fails
+     */
+    public DecodedJWT verify(DecodedJWT jwt) throws JWTVerificationException {
+        if (algorithm != null) {
+            verifyAlgorithm(algorithm, jwt);
+        }
+        if (metrics == null) {
+            verifyClaims(jwt);
+            verifySignature(algorithmFor(jwt), jwt);
+            return jwt;
+        }
+        long start = System.nanoTime();
+        try {
+            verifyClaims(jwt);
+        } finally {
+            metrics.recordTime(Stage.CLAIMS, System.nanoTime() - start);
+        }
+        final Algorithm algorithm = algorithmFor(jwt);
+        start = System.nanoTime();
+        try {
+            verifySignature(algorithm, jwt);
+        } finally {
+            metrics.recordTime(Stage.SIGNATURE, System.nanoTime() - start);
+        }
+        return jwt;
+    }
+
+    private Algorithm algorithmFor(DecodedJWT jwt) throws JWTVerificationException {
+        if (algorithm != null) {
+            return algorithm;
+        }
+        final Algorithm resolved = resolver.resolve(jwt);
+        verifyAlgorithm(resolved, jwt);
+        return resolved;
+    }
+
+    private void verifyAlgorithm(Algorithm algorithm, DecodedJWT jwt) throws AlgorithmMismatchException {
+        if (!algorithm.getName().equals(jwt.getAlgorithm())) {
+            recordFailure(Failure.ALGORITHM_MISMATCH);
+            throw new AlgorithmMismatchException("The provided Algorithm doesn't match the one defined in the JWT's Header.");
+        }
+    }
+
+    private void verifySignature(Algorithm algorithm, DecodedJWT jwt) throws SignatureVerificationException {
+        final String token = jwt.getToken();
+        final byte[] content = token.substring(0, token.lastIndexOf('.')).getBytes(StandardCharsets.UTF_8);
+        final byte[] signature = Base64.decodeBase64(jwt.getSignature());
+        try {
+            algorithm.verify(content, signature);
+        } catch (SignatureVerificationException e) {
+            recordFailure(Failure.BAD_SIGNATURE);
+            throw e;
+        }
+    }
+
+    private void verifyClaims(DecodedJWT jwt) throws InvalidClaimException {
+        final long now = (currentTimeMillis() / 1000) * 1000;
+        final Date expiresAt = jwt.getExpiresAt();
+        if (expiresAt != null && now > expiresAt.getTime() + leewayMillis) {
+            throw claimFailure(Failure.EXPIRED, String.format("The Token has expired on %s.", expiresAt));
+        }
+        final Date notBefore = jwt.getNotBefore();
+        if (notBefore != null && now < notBefore.getTime() - leewayMillis) {
+            throw claimFailure(Failure.NOT_YET_VALID, String.format("The Token can't be used before %s.", notBefore));
+        }
+        final Date issuedAt = jwt.getIssuedAt();
+        if (issuedAt != null && now < issuedAt.getTime() - leewayMillis) {
+            throw claimFailure(Failure.NOT_YET_VALID, String.format("The Token can't be used before %s.", issuedAt));
+        }
+        if (issuer != null && !issuer.equals(jwt.getIssuer())) {
+            throw claimFailure(Failure.WRONG_ISSUER, "The Claim 'iss' value doesn't match the required one.");
+        }
+        if (audiences != null && !containsAnyAudience(jwt.getAudience())) {
+            throw claimFailure(Failure.WRONG_AUDIENCE, "The Claim 'aud' value doesn't contain the required audience.");
+        }
+    }
+
+    private long currentTimeMillis() {
+        return clock != null ? clock.getToday().getTime() : System.currentTimeMillis();
+    }
+
+    private boolean containsAnyAudience(List<String> tokenAudience) {
+        if (tokenAudience == null) {
+            return false;
+        }
+        for (String value : tokenAudience) {
+            if (audiences.contains(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private InvalidClaimException claimFailure(Failure failure, String message) {
+        recordFailure(failure);
+        return new InvalidClaimException(message);
+    }
+
+    private void recordFailure(Failure failure) {
+        if (metrics != null) {
+            metrics.recordFailure(failure);
+        }
+    }
+
+    /**
+     * Obtains the algorithm a token must be verified with, e.g. from the key its {@code kid} header refers to
+     */
+    public interface AlgorithmResolver {
+
+        /**
+         * @param jwt whose claims were already verified
+         * @return the algorithm to verify the signature of the token with
+         * @throws JWTVerificationException if the token can't be verified with any algorithm
+         */
+        Algorithm resolve(DecodedJWT jwt) throws JWTVerificationException;
+    }
+
+    public static class Builder {
+        private final Algorithm algorithm;
+        private final AlgorithmResolver resolver;
+        private String issuer;
+        private Set<String> audiences;
+        private long leeway;
+        private Clock clock;
+        private AuthenticationMetrics metrics;
+
+        Builder(Algorithm algorithm, AlgorithmResolver resolver) {
+            this.algorithm = algorithm;
+            this.resolver = resolver;
+        }
+
+        /**
+         * Require a specific {@code iss} claim value
+         * @param issuer required value
+         * @return this same builder instance
+         */
+        public Builder withIssuer(String issuer) {
+            this.issuer = issuer;
+            return this;
+        }
+
+        /**
+         * Require the {@code aud} claim to contain a specific value
+         * @param audience required value
+         * @return this same builder instance
+         */
+        public Builder withAudience(String audience) {
+            this.audiences = audience != null ? Collections.singleton(audience) : null;
+            return this;
+        }
+
+        /**
+         * Require the {@code aud} claim to contain at least one of the given values
+         * @param audiences accepted values, or null to accept any audience
+         * @return this same builder instance
+         */
+        public Builder withAnyOfAudience(Collection<String> audiences) {
+            if (audiences != null && audiences.isEmpty()) {
+                throw new IllegalArgumentException("At least one audience is required");
+            }
+            this.audiences = audiences != null ? new HashSet<>(audiences) : null;
+            return this;
+        }
+
+        /**
+         * Accept the {@code exp}, {@code nbf} and {@code iat} claims this many seconds off, to tolerate clock skew
+         * between the issuer and this server
+         * @param leeway in seconds
+         * @return this same builder instance
+         */
+        public Builder acceptLeeway(long leeway) {
+            if (leeway < 0) {
+                throw new IllegalArgumentException("Leeway value can't be negative.");
+            }
+            this.leeway = leeway;
+            return this;
+        }
+
+        /**
+         * Use the given clock instead of the system time to check the {@code exp}, {@code nbf} and {@code iat} claims
+         * @param clock that tells the current time, or null to use the system time
+         * @return this same builder instance
+         */
+        public Builder withClock(Clock clock) {
+            this.clock = clock;
+            return this;
+        }
+
+        /**
+         * Report the time spent verifying the signature and the claims, and the reason of any failure
+         * @param metrics that receive the measures, or null to not measure anything
+         * @return this same builder instance
+         */
+        public Builder withMetrics(AuthenticationMetrics metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
+        public DecodedJwtVerifier build() {
+            return new DecodedJwtVerifier(algorithm, resolver, issuer, audiences, TimeUnit.SECONDS.toMillis(leeway), clock, metrics);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.auth0.spring.security.api.authentication;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Keeps a single {@link GrantedAuthority} instance per authority value, so tokens carrying the same scopes
+ * share their authorities instead of allocating new ones on every request.
+ * The registry is bounded: once full, values not seen before get a new non-shared instance,
+ * so tokens with arbitrary scopes can't make it grow without limit.
+ */
+public class GrantedAuthorityRegistry {
+
+    /**
+     * Default maximum number of distinct authorities kept
+     */
+    public static final int DEFAULT_MAXIMUM_SIZE = 1024;
+
+    private static final GrantedAuthorityRegistry DEFAULT = new GrantedAuthorityRegistry(DEFAULT_MAXIMUM_SIZE);
+
+    private final int maximumSize;
+    private final ConcurrentMap<String, GrantedAuthority> authorities;
+
+    /**
+     * Creates a new registry
+     * @param maximumSize maximum number of distinct authorities kept
+     */
+    public GrantedAuthorityRegistry(int maximumSize) {
+        if (maximumSize < 0) {
+            throw new IllegalArgumentException("The maximum size cannot be negative");
+        }
+        this.maximumSize = maximumSize;
+        this.authorities = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * @return the registry shared by default by every token
+     */
+    public static GrantedAuthorityRegistry getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Returns the canonical authority for the given value
+     * @param value textual representation of the authority
+     * @return the shared authority instance, or a new one if the registry is full
+     */
+    public GrantedAuthority authorityFor(String value) {
+        GrantedAuthority authority = authorities.get(value);
+        if (authority != null) {
+            return authority;
+        }
+        authority = new SimpleGrantedAuthority(value);
+        if (authorities.size() >= maximumSize) {
+            return authority;
+        }
+        final GrantedAuthority existing = authorities.putIfAbsent(value, authority);
+        return existing != null ? existing : authority;
+    }
+
+    /**
+     * @return number of distinct authorities currently kept
+     */
+    public int size() {
+        return authorities.size();
+    }
+}
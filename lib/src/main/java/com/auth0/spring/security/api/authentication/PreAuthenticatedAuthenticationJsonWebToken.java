@@ -13,7 +13,7 @@ import org.springframework.security.core.GrantedAuthority;
 import java.util.Collection;
 import java.util.Collections;
 
-public class PreAuthenticatedAuthenticationJsonWebToken implements Authentication, JwtAuthentication {
+public class PreAuthenticatedAuthenticationJsonWebToken implements Authentication, DecodedJwtAuthentication {
 
     private static Logger logger = LoggerFactory.getLogger(JwtAuthenticationProvider.class);
 
@@ -82,8 +82,28 @@ public class PreAuthenticatedAuthenticationJsonWebToken implements Authenticatio
         return token.getKeyId();
     }
 
+    @Override
+    public String getIssuer() {
+        return token.getIssuer();
+    }
+
+    @Override
+    public String getAlgorithm() {
+        return token.getAlgorithm();
+    }
+
     @Override
     public Authentication verify(JWTVerifier verifier) throws JWTVerificationException {
         return new AuthenticationJsonWebToken(token.getToken(), verifier);
     }
+
+    @Override
+    public Authentication verify(DecodedJwtVerifier verifier) throws JWTVerificationException {
+        return new AuthenticationJsonWebToken(token, verifier);
+    }
+
+    @Override
+    public Authentication verify(DecodedJwtVerifier verifier, AuthoritiesExtractor authoritiesExtractor) throws JWTVerificationException {
+        return new AuthenticationJsonWebToken(token, verifier, authoritiesExtractor);
+    }
 }
@@ -0,0 +1,69 @@
+package com.auth0.spring.security.api.authentication;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Bearer token that is not a JWT, e.g. a reference token issued by an authorization server, which can only be
+ * authenticated by asking the server about it, see {@code IntrospectionAuthenticationProvider}.
+ */
+public class PreAuthenticatedOpaqueToken implements Authentication {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String token;
+
+    PreAuthenticatedOpaqueToken(String token) {
+        this.token = token;
+    }
+
+    /**
+     * @param token found in the request
+     * @return a new pre authenticated token, or null if no token was given
+     */
+    public static PreAuthenticatedOpaqueToken usingToken(String token) {
+        return token == null ? null : new PreAuthenticatedOpaqueToken(token);
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public Object getCredentials() {
+        return token;
+    }
+
+    @Override
+    public Object getDetails() {
+        return null;
+    }
+
+    @Override
+    public Object getPrincipal() {
+        return null;
+    }
+
+    @Override
+    public boolean isAuthenticated() {
+        return false;
+    }
+
+    @Override
+    public void setAuthenticated(boolean isAuthenticated) throws IllegalArgumentException {
+
+    }
+
+    @Override
+    public String getName() {
+        return null;
+    }
+}
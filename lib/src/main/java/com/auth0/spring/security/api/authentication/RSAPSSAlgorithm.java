@@ -0,0 +1,109 @@
+package com.auth0.spring.security.api.authentication;
+
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.SignatureGenerationException;
+import com.auth0.jwt.exceptions.SignatureVerificationException;
+
+import java.security.GeneralSecurityException;
+import java.security.NoSuchAlgorithmException;
+import java.security.Signature;
+import java.security.interfaces.RSAKey;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.MGF1ParameterSpec;
+import java.security.spec.PSSParameterSpec;
+
+/**
+ * RSASSA-PSS signatures (PS256, PS384 and PS512), which java-jwt doesn't provide.
+ * They require a JVM that supports the {@code RSASSA-PSS} signature, see {@link #isSupported()}.
+ * Signatures are verified with a {@link Signature} kept per thread.
+ */
+public class RSAPSSAlgorithm extends Algorithm {
+
+    private static final String SIGNATURE_ALGORITHM = "RSASSA-PSS";
+
+    private final PSSParameterSpec parameters;
+    private final RSAKey key;
+    private final ThreadLocalSignature verifier;
+
+    private RSAPSSAlgorithm(String name, String hash, MGF1ParameterSpec mgf, int saltLength, RSAKey key) {
+        super(name, "RSASSA-PSS using " + hash + " and MGF1 with " + hash);
+        if (key == null) {
+            throw new IllegalArgumentException("The Key cannot be null.");
+        }
+        this.parameters = new PSSParameterSpec(hash, "MGF1", mgf, saltLength, 1);
+        this.key = key;
+        this.verifier = key instanceof RSAPublicKey ? new ThreadLocalSignature(SIGNATURE_ALGORITHM, parameters, (RSAPublicKey) key) : null;
+    }
+
+    /**
+     * Creates a new PS256 algorithm
+     * @param key public key to verify signatures or private key to create them
+     * @return a new algorithm
+     */
+    public static RSAPSSAlgorithm PS256(RSAKey key) {
+        return new RSAPSSAlgorithm("PS256", "SHA-256", MGF1ParameterSpec.SHA256, 32, key);
+    }
+
+    /**
+     * Creates a new PS384 algorithm
+     * @param key public key to verify signatures or private key to create them
+     * @return a new algorithm
+     */
+    public static RSAPSSAlgorithm PS384(RSAKey key) {
+        return new RSAPSSAlgorithm("PS384", "SHA-384", MGF1ParameterSpec.SHA384, 48, key);
+    }
+
+    /**
+     * Creates a new PS512 algorithm
+     * @param key public key to verify signatures or private key to create them
+     * @return a new algorithm
+     */
+    public static RSAPSSAlgorithm PS512(RSAKey key) {
+        return new RSAPSSAlgorithm("PS512", "SHA-512", MGF1ParameterSpec.SHA512, 64, key);
+    }
+
+    /**
+     * @return whether this JVM can create and verify RSASSA-PSS signatures
+     */
+    public static boolean isSupported() {
+        try {
+            Signature.getInstance(SIGNATURE_ALGORITHM);
+            return true;
+        } catch (NoSuchAlgorithmException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void verify(byte[] contentBytes, byte[] signatureBytes) throws SignatureVerificationException {
+        if (verifier == null) {
+            throw new SignatureVerificationException(this, new IllegalStateException("The given Public Key is not an RSAPublicKey"));
+        }
+        final boolean valid;
+        try {
+            valid = verifier.verify(contentBytes, signatureBytes);
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            throw new SignatureVerificationException(this, e);
+        }
+        if (!valid) {
+            throw new SignatureVerificationException(this);
+        }
+    }
+
+    @Override
+    public byte[] sign(byte[] contentBytes) {
+        if (!(key instanceof RSAPrivateKey)) {
+            throw new SignatureGenerationException(this, new IllegalStateException("The given Private Key is not an RSAPrivateKey"));
+        }
+        try {
+            final Signature signature = Signature.getInstance(SIGNATURE_ALGORITHM);
+            signature.setParameter(parameters);
+            signature.initSign((RSAPrivateKey) key);
+            signature.update(contentBytes);
+            return signature.sign();
+        } catch (GeneralSecurityException e) {
+            throw new SignatureGenerationException(this, e);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.auth0.spring.security.api.authentication;
+
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.SignatureGenerationException;
+import com.auth0.jwt.exceptions.SignatureVerificationException;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+
+/**
+ * HS256, HS384 and HS512 signatures like the ones of {@link Algorithm#HMAC256(byte[])}, but computed with a
+ * {@link Mac} kept per thread and already initialized with the secret, instead of a new one for every token.
+ * Signatures are compared in constant time.
+ */
+public class ThreadLocalHMACAlgorithm extends Algorithm {
+
+    private final String macAlgorithm;
+    private final byte[] secret;
+    private final ThreadLocal<Mac> macs = new ThreadLocal<>();
+
+    private ThreadLocalHMACAlgorithm(String name, String macAlgorithm, byte[] secret) {
+        super(name, macAlgorithm);
+        if (secret == null) {
+            throw new IllegalArgumentException("The Secret cannot be null");
+        }
+        this.macAlgorithm = macAlgorithm;
+        this.secret = secret.clone();
+    }
+
+    /**
+     * Creates a new HS256 algorithm
+     * @param secret used to sign and verify tokens
+     * @return a new algorithm
+     */
+    public static ThreadLocalHMACAlgorithm HS256(byte[] secret) {
+        return new ThreadLocalHMACAlgorithm("HS256", "HmacSHA256", secret);
+    }
+
+    /**
+     * Creates a new HS384 algorithm
+     * @param secret used to sign and verify tokens
+     * @return a new algorithm
+     */
+    public static ThreadLocalHMACAlgorithm HS384(byte[] secret) {
+        return new ThreadLocalHMACAlgorithm("HS384", "HmacSHA384", secret);
+    }
+
+    /**
+     * Creates a new HS512 algorithm
+     * @param secret used to sign and verify tokens
+     * @return a new algorithm
+     */
+    public static ThreadLocalHMACAlgorithm HS512(byte[] secret) {
+        return new ThreadLocalHMACAlgorithm("HS512", "HmacSHA512", secret);
+    }
+
+    @Override
+    public void verify(byte[] contentBytes, byte[] signatureBytes) throws SignatureVerificationException {
+        final byte[] expected;
+        try {
+            expected = mac().doFinal(contentBytes);
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            throw new SignatureVerificationException(this, e);
+        }
+        if (!MessageDigest.isEqual(expected, signatureBytes)) {
+            throw new SignatureVerificationException(this);
+        }
+    }
+
+    @Override
+    public byte[] sign(byte[] contentBytes) {
+        try {
+            return mac().doFinal(contentBytes);
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            throw new SignatureGenerationException(this, e);
+        }
+    }
+
+    /**
+     * {@link Mac#doFinal(byte[])} resets the mac, so it can be used again right away
+     */
+    private Mac mac() throws GeneralSecurityException {
+        Mac mac = macs.get();
+        if (mac == null) {
+            mac = Mac.getInstance(macAlgorithm);
+            mac.init(new SecretKeySpec(secret, macAlgorithm));
+            macs.set(mac);
+        }
+        return mac;
+    }
+}
@@ -0,0 +1,91 @@
+package com.auth0.spring.security.api.authentication;
+
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.SignatureGenerationException;
+import com.auth0.jwt.exceptions.SignatureVerificationException;
+
+import java.security.GeneralSecurityException;
+import java.security.Signature;
+import java.security.interfaces.RSAKey;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+
+/**
+ * RS256, RS384 and RS512 signatures like the ones of {@link Algorithm#RSA256(RSAKey)}, but verified with a
+ * {@link Signature} kept per thread instead of a new one for every token, which avoids the provider lookup
+ * and the locks it takes when many threads verify tokens at the same time.
+ */
+public class ThreadLocalRSAAlgorithm extends Algorithm {
+
+    private final String signatureAlgorithm;
+    private final RSAKey key;
+    private final ThreadLocalSignature verifier;
+
+    private ThreadLocalRSAAlgorithm(String name, String signatureAlgorithm, RSAKey key) {
+        super(name, signatureAlgorithm);
+        if (key == null) {
+            throw new IllegalArgumentException("The Key cannot be null.");
+        }
+        this.signatureAlgorithm = signatureAlgorithm;
+        this.key = key;
+        this.verifier = key instanceof RSAPublicKey ? new ThreadLocalSignature(signatureAlgorithm, null, (RSAPublicKey) key) : null;
+    }
+
+    /**
+     * Creates a new RS256 algorithm
+     * @param key public key to verify signatures or private key to create them
+     * @return a new algorithm
+     */
+    public static ThreadLocalRSAAlgorithm RS256(RSAKey key) {
+        return new ThreadLocalRSAAlgorithm("RS256", "SHA256withRSA", key);
+    }
+
+    /**
+     * Creates a new RS384 algorithm
+     * @param key public key to verify signatures or private key to create them
+     * @return a new algorithm
+     */
+    public static ThreadLocalRSAAlgorithm RS384(RSAKey key) {
+        return new ThreadLocalRSAAlgorithm("RS384", "SHA384withRSA", key);
+    }
+
+    /**
+     * Creates a new RS512 algorithm
+     * @param key public key to verify signatures or private key to create them
+     * @return a new algorithm
+     */
+    public static ThreadLocalRSAAlgorithm RS512(RSAKey key) {
+        return new ThreadLocalRSAAlgorithm("RS512", "SHA512withRSA", key);
+    }
+
+    @Override
+    public void verify(byte[] contentBytes, byte[] signatureBytes) throws SignatureVerificationException {
+        if (verifier == null) {
+            throw new SignatureVerificationException(this, new IllegalStateException("The given Public Key is not an RSAPublicKey"));
+        }
+        final boolean valid;
+        try {
+            valid = verifier.verify(contentBytes, signatureBytes);
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            throw new SignatureVerificationException(this, e);
+        }
+        if (!valid) {
+            throw new SignatureVerificationException(this);
+        }
+    }
+
+    @Override
+    public byte[] sign(byte[] contentBytes) {
+        if (!(key instanceof RSAPrivateKey)) {
+            throw new SignatureGenerationException(this, new IllegalStateException("The given Private Key is not an RSAPrivateKey"));
+        }
+        try {
+            final Signature signature = Signature.getInstance(signatureAlgorithm);
+            signature.initSign((RSAPrivateKey) key);
+            signature.update(contentBytes);
+            return signature.sign();
+        } catch (GeneralSecurityException e) {
+            throw new SignatureGenerationException(this, e);
+        }
+    }
+}
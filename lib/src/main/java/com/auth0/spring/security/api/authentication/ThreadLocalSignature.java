@@ -0,0 +1,45 @@
+package com.auth0.spring.security.api.authentication;
+
+import java.security.GeneralSecurityException;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.spec.AlgorithmParameterSpec;
+
+/**
+ * Keeps one {@link Signature} per thread already initialized to verify with a given public key, so the provider lookup
+ * and key setup done by {@link Signature#getInstance(String)} and {@link Signature#initVerify(PublicKey)} happen once
+ * per thread instead of once per token. A successful verification leaves the signature ready for the next one.
+ */
+final class ThreadLocalSignature {
+
+    private final String algorithm;
+    private final AlgorithmParameterSpec parameters;
+    private final PublicKey key;
+    private final ThreadLocal<Signature> signatures = new ThreadLocal<>();
+
+    ThreadLocalSignature(String algorithm, AlgorithmParameterSpec parameters, PublicKey key) {
+        this.algorithm = algorithm;
+        this.parameters = parameters;
+        this.key = key;
+    }
+
+    boolean verify(byte[] content, byte[] signatureBytes) throws GeneralSecurityException {
+        Signature signature = signatures.get();
+        if (signature == null) {
+            signature = Signature.getInstance(algorithm);
+            if (parameters != null) {
+                signature.setParameter(parameters);
+            }
+            signature.initVerify(key);
+            signatures.set(signature);
+        }
+        try {
+            signature.update(content);
+            return signature.verify(signatureBytes);
+        } catch (GeneralSecurityException | RuntimeException e) {
+            // the state of the signature is unknown after a failure, start over with a new one
+            signatures.remove();
+            throw e;
+        }
+    }
+}
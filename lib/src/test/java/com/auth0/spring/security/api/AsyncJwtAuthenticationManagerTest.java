@@ -0,0 +1,168 @@
+package com.auth0.spring.security.api;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.spring.security.api.authentication.PreAuthenticatedAuthenticationJsonWebToken;
+import com.google.common.util.concurrent.ListenableFuture;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.ProviderNotFoundException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class AsyncJwtAuthenticationManagerTest {
+
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+    private AsyncJwtAuthenticationManager manager;
+
+    @After
+    public void tearDown() throws Exception {
+        if (manager != null) {
+            manager.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldThrowOnNullProvider() throws Exception {
+        exception.expect(IllegalArgumentException.class);
+        exception.expectMessage("A non-null provider is required");
+        new AsyncJwtAuthenticationManager(null, Executors.newSingleThreadExecutor());
+    }
+
+    @Test
+    public void shouldThrowOnNullExecutor() throws Exception {
+        exception.expect(IllegalArgumentException.class);
+        exception.expectMessage("A non-null executor is required");
+        new AsyncJwtAuthenticationManager(mock(AuthenticationProvider.class), null);
+    }
+
+    @Test
+    public void shouldThrowOnInvalidThreads() throws Exception {
+        exception.expect(IllegalArgumentException.class);
+        exception.expectMessage("The number of threads must be positive");
+        AsyncJwtAuthenticationManager.withBoundedExecutor(mock(AuthenticationProvider.class), 0, 1);
+    }
+
+    @Test
+    public void shouldThrowOnInvalidMaxPending() throws Exception {
+        exception.expect(IllegalArgumentException.class);
+        exception.expectMessage("The number of pending authentications must be positive");
+        AsyncJwtAuthenticationManager.withBoundedExecutor(mock(AuthenticationProvider.class), 1, 0);
+    }
+
+    @Test
+    public void shouldAuthenticateToken() throws Exception {
+        JwtAuthenticationProvider provider = new JwtAuthenticationProvider("secret".getBytes(), "issuer", "audience");
+        manager = AsyncJwtAuthenticationManager.withBoundedExecutor(provider, 1, 10);
+        String token = JWT.create()
+                .withAudience("audience")
+                .withIssuer("issuer")
+                .sign(Algorithm.HMAC256("secret"));
+
+        Authentication result = manager.authenticate(token).get(5, TimeUnit.SECONDS);
+
+        assertThat(result, is(notNullValue()));
+        assertThat(result.isAuthenticated(), is(true));
+    }
+
+    @Test
+    public void shouldFailWithProviderException() throws Exception {
+        JwtAuthenticationProvider provider = new JwtAuthenticationProvider("secret".getBytes(), "issuer", "audience");
+        manager = AsyncJwtAuthenticationManager.withBoundedExecutor(provider, 1, 10);
+        String token = JWT.create()
+                .withAudience("audience")
+                .withIssuer("issuer")
+                .sign(Algorithm.HMAC256("other"));
+
+        Throwable failure = failureOf(manager.authenticate(token));
+        assertThat(failure, is(instanceOf(BadCredentialsException.class)));
+        assertThat(failure.getMessage(), is("Not a valid token"));
+    }
+
+    @Test
+    public void shouldFailOnMalformedToken() throws Exception {
+        AuthenticationProvider provider = mock(AuthenticationProvider.class);
+        manager = AsyncJwtAuthenticationManager.withBoundedExecutor(provider, 1, 10);
+
+        Throwable failure = failureOf(manager.authenticate("not-a-jwt"));
+        assertThat(failure, is(instanceOf(BadCredentialsException.class)));
+        verify(provider, never()).authenticate(any(Authentication.class));
+    }
+
+    @Test
+    public void shouldFailOnUnsupportedAuthentication() throws Exception {
+        manager = AsyncJwtAuthenticationManager.withBoundedExecutor(new JwtAuthenticationProvider("secret".getBytes(), "issuer", "audience"), 1, 10);
+
+        Throwable failure = failureOf(manager.authenticate(new UsernamePasswordAuthenticationToken("user", "pass")));
+        assertThat(failure, is(instanceOf(ProviderNotFoundException.class)));
+    }
+
+    @Test
+    public void shouldRejectWhenTooManyAuthenticationsArePending() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        AuthenticationProvider provider = mock(AuthenticationProvider.class);
+        when(provider.supports(any(Class.class))).thenReturn(true);
+        when(provider.authenticate(any(Authentication.class))).thenAnswer(new Answer<Authentication>() {
+            @Override
+            public Authentication answer(InvocationOnMock invocation) throws Throwable {
+                release.await(5, TimeUnit.SECONDS);
+                return (Authentication) invocation.getArguments()[0];
+            }
+        });
+        manager = AsyncJwtAuthenticationManager.withBoundedExecutor(provider, 1, 1);
+        Authentication authentication = PreAuthenticatedAuthenticationJsonWebToken.usingToken(JWT.create().sign(Algorithm.HMAC256("secret")));
+
+        ListenableFuture<Authentication> running = manager.authenticate(authentication);
+        ListenableFuture<Authentication> pending = manager.authenticate(authentication);
+        Thread.sleep(100);
+        ListenableFuture<Authentication> rejected = manager.authenticate(authentication);
+
+        Throwable failure = failureOf(rejected);
+        assertThat(failure, is(instanceOf(AuthenticationServiceException.class)));
+        assertThat(failure.getMessage(), is("Too many pending authentications"));
+        release.countDown();
+        assertThat(running.get(5, TimeUnit.SECONDS), is(authentication));
+        assertThat(pending.get(5, TimeUnit.SECONDS), is(authentication));
+    }
+
+    @Test
+    public void shouldCreateManagerFromConfigurer() throws Exception {
+        manager = JwtWebSecurityConfigurer.forHS256("audience", "issuer", "secret".getBytes())
+                .asyncAuthenticationManager(1, 10);
+        String token = JWT.create()
+                .withAudience("audience")
+                .withIssuer("issuer")
+                .sign(Algorithm.HMAC256("secret"));
+
+        assertThat(manager.authenticate(token).get(5, TimeUnit.SECONDS).isAuthenticated(), is(true));
+    }
+
+    private static Throwable failureOf(ListenableFuture<Authentication> future) throws Exception {
+        try {
+            future.get(5, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            return e.getCause();
+        }
+        fail("Expected the authentication to fail");
+        return null;
+    }
+}
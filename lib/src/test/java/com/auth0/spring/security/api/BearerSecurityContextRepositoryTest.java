@@ -3,16 +3,62 @@ package com.auth0.spring.security.api;
 import com.auth0.jwt.JWT;
 import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.spring.security.api.authentication.AuthenticationJsonWebToken;
+import com.auth0.spring.security.api.authentication.AuthenticationMetrics;
 import com.auth0.spring.security.api.authentication.PreAuthenticatedAuthenticationJsonWebToken;
+import com.auth0.spring.security.api.authentication.PreAuthenticatedOpaqueToken;
 import org.junit.Test;
+import org.springframework.security.access.AccessDecisionVoter;
+import org.springframework.security.access.ConfigAttribute;
+import org.springframework.security.access.SecurityConfig;
+import org.springframework.security.access.vote.AffirmativeBased;
+import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.DefaultSecurityFilterChain;
+import org.springframework.security.web.FilterChainProxy;
+import org.springframework.security.web.access.expression.DefaultWebSecurityExpressionHandler;
+import org.springframework.security.web.access.expression.ExpressionBasedFilterInvocationSecurityMetadataSource;
+import org.springframework.security.web.access.expression.WebExpressionVoter;
+import org.springframework.security.web.access.intercept.FilterSecurityInterceptor;
+import org.springframework.security.web.authentication.AnonymousAuthenticationFilter;
 import org.springframework.security.web.context.HttpRequestResponseHolder;
+import org.springframework.security.web.context.SecurityContextPersistenceFilter;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.AnyRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 public class BearerSecurityContextRepositoryTest {
@@ -92,4 +138,363 @@ public class BearerSecurityContextRepositoryTest {
         assertThat(context.getAuthentication().isAuthenticated(), is(false));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void shouldLoadContextWithAuthenticationUsingCaseInsensitiveScheme() throws Exception {
+        String token = JWT.create()
+                .sign(Algorithm.HMAC256("secret"));
+        BearerSecurityContextRepository repository = new BearerSecurityContextRepository();
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        HttpRequestResponseHolder holder = new HttpRequestResponseHolder(request, null);
+        when(request.getHeader("Authorization")).thenReturn("bEARER " + token);
+
+        SecurityContext context = repository.loadContext(holder);
+        assertThat(context.getAuthentication(), is(instanceOf(PreAuthenticatedAuthenticationJsonWebToken.class)));
+        assertThat(((PreAuthenticatedAuthenticationJsonWebToken) context.getAuthentication()).getToken(), is(token));
+    }
+
+    @Test
+    public void shouldExtractTokenFromHeaderValue() throws Exception {
+        assertThat(BearerSecurityContextRepository.tokenFromHeader("Bearer abc.def.ghi"), is("abc.def.ghi"));
+        assertThat(BearerSecurityContextRepository.tokenFromHeader("bearer abc.def.ghi"), is("abc.def.ghi"));
+        assertThat(BearerSecurityContextRepository.tokenFromHeader("Bearer   abc.def.ghi  "), is("abc.def.ghi"));
+        assertThat(BearerSecurityContextRepository.tokenFromHeader("Bearer abc.def.ghi other"), is("abc.def.ghi"));
+    }
+
+    @Test
+    public void shouldNotExtractTokenFromInvalidHeaderValue() throws Exception {
+        assertThat(BearerSecurityContextRepository.tokenFromHeader(null), is(nullValue()));
+        assertThat(BearerSecurityContextRepository.tokenFromHeader(""), is(nullValue()));
+        assertThat(BearerSecurityContextRepository.tokenFromHeader("Bearer"), is(nullValue()));
+        assertThat(BearerSecurityContextRepository.tokenFromHeader("Bearer "), is(nullValue()));
+        assertThat(BearerSecurityContextRepository.tokenFromHeader("Bearerabc.def.ghi"), is(nullValue()));
+        assertThat(BearerSecurityContextRepository.tokenFromHeader("Basic abc"), is(nullValue()));
+    }
+
+    @Test
+    public void shouldContainContextIfBearerTokenIsPresent() throws Exception {
+        BearerSecurityContextRepository repository = new BearerSecurityContextRepository();
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getHeader("Authorization")).thenReturn("Bearer abc.def.ghi");
+
+        assertThat(repository.containsContext(request), is(true));
+        verify(request).setAttribute(BearerSecurityContextRepository.class.getName() + ".TOKEN", "abc.def.ghi");
+    }
+
+    @Test
+    public void shouldNotContainContextIfBearerTokenIsMissing() throws Exception {
+        BearerSecurityContextRepository repository = new BearerSecurityContextRepository();
+        HttpServletRequest request = mock(HttpServletRequest.class);
+
+        assertThat(repository.containsContext(request), is(false));
+        verify(request).setAttribute(BearerSecurityContextRepository.class.getName() + ".TOKEN", "");
+    }
+
+    @Test
+    public void shouldReuseTokenAlreadyParsedForTheRequest() throws Exception {
+        BearerSecurityContextRepository repository = new BearerSecurityContextRepository();
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getAttribute(BearerSecurityContextRepository.class.getName() + ".TOKEN")).thenReturn("");
+
+        assertThat(repository.containsContext(request), is(false));
+        verify(request, never()).getHeader("Authorization");
+    }
+
+    @Test
+    public void shouldRecordDecodeTime() throws Exception {
+        String token = JWT.create()
+                .sign(Algorithm.HMAC256("secret"));
+        AuthenticationMetrics metrics = mock(AuthenticationMetrics.class);
+        BearerSecurityContextRepository repository = new BearerSecurityContextRepository(metrics);
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        HttpRequestResponseHolder holder = new HttpRequestResponseHolder(request, null);
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + token);
+
+        SecurityContext context = repository.loadContext(holder);
+        assertThat(context.getAuthentication(), is(notNullValue()));
+        verify(metrics).recordTime(eq(AuthenticationMetrics.Stage.DECODE), anyLong());
+        verifyNoMoreInteractions(metrics);
+    }
+
+    @Test
+    public void shouldRecordMalformedToken() throws Exception {
+        AuthenticationMetrics metrics = mock(AuthenticationMetrics.class);
+        BearerSecurityContextRepository repository = new BearerSecurityContextRepository(metrics);
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        HttpRequestResponseHolder holder = new HttpRequestResponseHolder(request, null);
+        when(request.getHeader("Authorization")).thenReturn("Bearer not-a-jwt");
+
+        SecurityContext context = repository.loadContext(holder);
+        assertThat(context.getAuthentication(), is(nullValue()));
+        verify(metrics).recordFailure(AuthenticationMetrics.Failure.MALFORMED_TOKEN);
+    }
+
+    @Test
+    public void shouldNotRecordAnythingWithoutToken() throws Exception {
+        AuthenticationMetrics metrics = mock(AuthenticationMetrics.class);
+        BearerSecurityContextRepository repository = new BearerSecurityContextRepository(metrics);
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        HttpRequestResponseHolder holder = new HttpRequestResponseHolder(request, null);
+
+        repository.loadContext(holder);
+        verifyZeroInteractions(metrics);
+    }
+
+    @Test
+    public void shouldLoadContextWithOpaqueTokenIfEnabled() throws Exception {
+        AuthenticationMetrics metrics = mock(AuthenticationMetrics.class);
+        BearerSecurityContextRepository repository = new BearerSecurityContextRepository(metrics, true);
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        HttpRequestResponseHolder holder = new HttpRequestResponseHolder(request, null);
+        when(request.getHeader("Authorization")).thenReturn("Bearer not-a-jwt");
+
+        SecurityContext context = repository.loadContext(holder);
+        assertThat(context.getAuthentication(), is(instanceOf(PreAuthenticatedOpaqueToken.class)));
+        assertThat(context.getAuthentication().getCredentials(), is((Object) "not-a-jwt"));
+        assertThat(context.getAuthentication().isAuthenticated(), is(false));
+        verify(metrics, never()).recordFailure(any(AuthenticationMetrics.Failure.class));
+    }
+
+    @Test
+    public void shouldPreferJwtOverOpaqueToken() throws Exception {
+        BearerSecurityContextRepository repository = new BearerSecurityContextRepository(null, true);
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        HttpRequestResponseHolder holder = new HttpRequestResponseHolder(request, null);
+        String token = JWT.create().sign(Algorithm.HMAC256("secret"));
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + token);
+
+        SecurityContext context = repository.loadContext(holder);
+        assertThat(context.getAuthentication(), is(instanceOf(PreAuthenticatedAuthenticationJsonWebToken.class)));
+    }
+
+    @Test
+    public void shouldNotLookForTokenInRequestToPublicPath() throws Exception {
+        AuthenticationMetrics metrics = mock(AuthenticationMetrics.class);
+        BearerSecurityContextRepository repository = new BearerSecurityContextRepository(metrics, false, PublicPaths.of("/health"));
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        HttpRequestResponseHolder holder = new HttpRequestResponseHolder(request, null);
+        when(request.getServletPath()).thenReturn("/health");
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + JWT.create().sign(Algorithm.HMAC256("secret")));
+
+        SecurityContext context = repository.loadContext(holder);
+        assertThat(context.getAuthentication(), is(nullValue()));
+        assertThat(repository.containsContext(request), is(false));
+        verify(request, never()).getHeader("Authorization");
+        verifyZeroInteractions(metrics);
+    }
+
+    @Test
+    public void shouldLookForTokenInRequestToOtherPath() throws Exception {
+        BearerSecurityContextRepository repository = new BearerSecurityContextRepository(null, false, PublicPaths.of("/health"));
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        HttpRequestResponseHolder holder = new HttpRequestResponseHolder(request, null);
+        when(request.getServletPath()).thenReturn("/api/messages");
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + JWT.create().sign(Algorithm.HMAC256("secret")));
+
+        SecurityContext context = repository.loadContext(holder);
+        assertThat(context.getAuthentication(), is(instanceOf(PreAuthenticatedAuthenticationJsonWebToken.class)));
+    }
+
+    @Test
+    public void shouldNotDecodeTokenUntilAuthenticationIsRequested() throws Exception {
+        AuthenticationMetrics metrics = mock(AuthenticationMetrics.class);
+        BearerSecurityContextRepository repository = new BearerSecurityContextRepository(metrics);
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        HttpRequestResponseHolder holder = new HttpRequestResponseHolder(request, null);
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + JWT.create().sign(Algorithm.HMAC256("secret")));
+
+        SecurityContext context = repository.loadContext(holder);
+        verifyZeroInteractions(metrics);
+
+        Authentication authentication = context.getAuthentication();
+        assertThat(authentication, is(instanceOf(PreAuthenticatedAuthenticationJsonWebToken.class)));
+        assertThat(context.getAuthentication(), is(sameInstance(authentication)));
+        verify(metrics, times(1)).recordTime(eq(AuthenticationMetrics.Stage.DECODE), anyLong());
+    }
+
+    @Test
+    public void shouldDecodeTokenOnceForConcurrentCallers() throws Exception {
+        AuthenticationMetrics metrics = mock(AuthenticationMetrics.class);
+        BearerSecurityContextRepository repository = new BearerSecurityContextRepository(metrics);
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        HttpRequestResponseHolder holder = new HttpRequestResponseHolder(request, null);
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + JWT.create().sign(Algorithm.HMAC256("secret")));
+        final SecurityContext context = repository.loadContext(holder);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Authentication>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(executor.submit(new Callable<Authentication>() {
+                    @Override
+                    public Authentication call() throws Exception {
+                        return context.getAuthentication();
+                    }
+                }));
+            }
+            Authentication authentication = results.get(0).get(5, TimeUnit.SECONDS);
+            assertThat(authentication, is(instanceOf(PreAuthenticatedAuthenticationJsonWebToken.class)));
+            for (Future<Authentication> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS), is(sameInstance(authentication)));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        verify(metrics, times(1)).recordTime(eq(AuthenticationMetrics.Stage.DECODE), anyLong());
+    }
+
+    @Test
+    public void shouldNotDecodeTokenReplacedBeforeAuthenticationIsRequested() throws Exception {
+        AuthenticationMetrics metrics = mock(AuthenticationMetrics.class);
+        BearerSecurityContextRepository repository = new BearerSecurityContextRepository(metrics);
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        HttpRequestResponseHolder holder = new HttpRequestResponseHolder(request, null);
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + JWT.create().sign(Algorithm.HMAC256("secret")));
+        Authentication authenticated = mock(Authentication.class);
+
+        SecurityContext context = repository.loadContext(holder);
+        context.setAuthentication(authenticated);
+
+        assertThat(context.getAuthentication(), is(authenticated));
+        verifyZeroInteractions(metrics);
+    }
+
+    @Test
+    public void shouldDecodeTokenBeforeSerializingContext() throws Exception {
+        BearerSecurityContextRepository repository = new BearerSecurityContextRepository(null, true);
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        HttpRequestResponseHolder holder = new HttpRequestResponseHolder(request, null);
+        when(request.getHeader("Authorization")).thenReturn("Bearer opaque-token");
+        SecurityContext context = repository.loadContext(holder);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+            output.writeObject(context);
+        }
+        try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            SecurityContext deserialized = (SecurityContext) input.readObject();
+            assertThat(deserialized.getAuthentication(), is(instanceOf(PreAuthenticatedOpaqueToken.class)));
+            assertThat(deserialized.getAuthentication().getCredentials(), is((Object) "opaque-token"));
+        }
+    }
+
+    @Test
+    public void shouldCompareContextsByAuthentication() throws Exception {
+        BearerSecurityContextRepository repository = new BearerSecurityContextRepository();
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        HttpRequestResponseHolder holder = new HttpRequestResponseHolder(request, null);
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + JWT.create().sign(Algorithm.HMAC256("secret")));
+        SecurityContext context = repository.loadContext(holder);
+        SecurityContext other = SecurityContextHolder.createEmptyContext();
+        other.setAuthentication(context.getAuthentication());
+
+        assertThat(context.equals(other), is(true));
+        assertThat(context.hashCode(), is(other.hashCode()));
+    }
+
+    @Test
+    public void shouldNotDecodeTokenOfRequestToPublicPathInFilterChain() throws Exception {
+        AuthenticationMetrics metrics = mock(AuthenticationMetrics.class);
+        AuthenticationManager manager = authenticationManager();
+        FilterChain chain = mock(FilterChain.class);
+        FilterChainProxy proxy = filterChain(new BearerSecurityContextRepository(metrics, false, PublicPaths.of("/health")), manager, true);
+
+        proxy.doFilter(request("/health", validToken()), mock(HttpServletResponse.class), chain);
+
+        verify(chain).doFilter(any(ServletRequest.class), any(ServletResponse.class));
+        verify(metrics, never()).recordTime(eq(AuthenticationMetrics.Stage.DECODE), anyLong());
+        verify(manager, never()).authenticate(any(Authentication.class));
+    }
+
+    @Test
+    public void shouldNotVerifyTokenOfRequestWithoutConfigAttributesInFilterChain() throws Exception {
+        AuthenticationMetrics metrics = mock(AuthenticationMetrics.class);
+        AuthenticationManager manager = authenticationManager();
+        FilterChain chain = mock(FilterChain.class);
+        FilterChainProxy proxy = filterChain(new BearerSecurityContextRepository(metrics, false, null), manager, true);
+
+        proxy.doFilter(request("/unmatched", validToken()), mock(HttpServletResponse.class), chain);
+
+        verify(chain).doFilter(any(ServletRequest.class), any(ServletResponse.class));
+        verify(metrics).recordTime(eq(AuthenticationMetrics.Stage.DECODE), anyLong());
+        verify(manager, never()).authenticate(any(Authentication.class));
+    }
+
+    @Test
+    public void shouldVerifyTokenOfRequestToPermittedPathInFilterChain() throws Exception {
+        AuthenticationManager manager = authenticationManager();
+        FilterChain chain = mock(FilterChain.class);
+        FilterChainProxy proxy = filterChain(new BearerSecurityContextRepository(), manager, true);
+
+        proxy.doFilter(request("/permitted", validToken()), mock(HttpServletResponse.class), chain);
+
+        verify(chain).doFilter(any(ServletRequest.class), any(ServletResponse.class));
+        verify(manager).authenticate(any(Authentication.class));
+    }
+
+    @Test
+    public void shouldPermitRequestWithoutTokenInFilterChain() throws Exception {
+        FilterChain chain = mock(FilterChain.class);
+        FilterChainProxy proxy = filterChain(new BearerSecurityContextRepository(), authenticationManager(), true);
+
+        proxy.doFilter(request("/permitted", null), mock(HttpServletResponse.class), chain);
+
+        verify(chain).doFilter(any(ServletRequest.class), any(ServletResponse.class));
+    }
+
+    @Test
+    public void shouldRejectRequestWithoutTokenInFilterChainWithoutAnonymousFilter() throws Exception {
+        FilterChain chain = mock(FilterChain.class);
+        FilterChainProxy proxy = filterChain(new BearerSecurityContextRepository(), authenticationManager(), false);
+
+        try {
+            proxy.doFilter(request("/permitted", null), mock(HttpServletResponse.class), chain);
+            fail("Expected the request to be rejected");
+        } catch (AuthenticationCredentialsNotFoundException ignored) {
+        }
+        verify(chain, never()).doFilter(any(ServletRequest.class), any(ServletResponse.class));
+    }
+
+    private static String validToken() throws Exception {
+        return JWT.create()
+                .withIssuer("issuer")
+                .withAudience("audience")
+                .sign(Algorithm.HMAC256("secret"));
+    }
+
+    private static HttpServletRequest request(String path, String token) {
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getServletPath()).thenReturn(path);
+        when(request.getRequestURI()).thenReturn(path);
+        if (token != null) {
+            when(request.getHeader("Authorization")).thenReturn("Bearer " + token);
+        }
+        return request;
+    }
+
+    private static AuthenticationManager authenticationManager() {
+        AuthenticationProvider provider = new JwtAuthenticationProvider("secret".getBytes(StandardCharsets.UTF_8), "issuer", "audience");
+        return spy(new ProviderManager(Collections.singletonList(provider)));
+    }
+
+    /**
+     * Builds the chain Spring Security would for {@code authorizeRequests().antMatchers("/permitted").permitAll()},
+     * without any rule for other paths
+     */
+    private static FilterChainProxy filterChain(BearerSecurityContextRepository repository, AuthenticationManager manager, boolean anonymous) throws Exception {
+        LinkedHashMap<RequestMatcher, Collection<ConfigAttribute>> rules = new LinkedHashMap<>();
+        rules.put(new AntPathRequestMatcher("/permitted"), SecurityConfig.createList("permitAll"));
+        FilterSecurityInterceptor interceptor = new FilterSecurityInterceptor();
+        interceptor.setSecurityMetadataSource(new ExpressionBasedFilterInvocationSecurityMetadataSource(rules, new DefaultWebSecurityExpressionHandler()));
+        interceptor.setAccessDecisionManager(new AffirmativeBased(Collections.<AccessDecisionVoter<?>>singletonList(new WebExpressionVoter())));
+        interceptor.setAuthenticationManager(manager);
+        interceptor.afterPropertiesSet();
+
+        List<Filter> filters = new ArrayList<>();
+        filters.add(new SecurityContextPersistenceFilter(repository));
+        if (anonymous) {
+            filters.add(new AnonymousAuthenticationFilter("key"));
+        }
+        filters.add(interceptor);
+        return new FilterChainProxy(new DefaultSecurityFilterChain(AnyRequestMatcher.INSTANCE, filters));
+    }
+}
@@ -0,0 +1,328 @@
+package com.auth0.spring.security.api;
+
+import com.auth0.jwk.Jwk;
+import com.auth0.jwk.JwkException;
+import com.auth0.jwk.JwkProvider;
+import com.auth0.jwk.JwkProviderBuilder;
+import com.auth0.jwk.RateLimitReachedException;
+import com.auth0.jwk.SigningKeyNotFoundException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.*;
+
+public class CoalescingJwkProviderTest {
+
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+
+    @Test
+    public void shouldThrowOnNullProvider() throws Exception {
+        exception.expect(IllegalArgumentException.class);
+        exception.expectMessage("A non-null provider is required");
+        new CoalescingJwkProvider(null);
+    }
+
+    @Test
+    public void shouldThrowOnInvalidTimeout() throws Exception {
+        exception.expect(IllegalArgumentException.class);
+        exception.expectMessage("The timeout must be positive");
+        new CoalescingJwkProvider(mock(JwkProvider.class), 0, 1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void shouldThrowOnNegativeMissingKeyTtl() throws Exception {
+        exception.expect(IllegalArgumentException.class);
+        exception.expectMessage("The missing key ttl cannot be negative");
+        new CoalescingJwkProvider(mock(JwkProvider.class), 1, -1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void shouldReturnKeyFromProvider() throws Exception {
+        JwkProvider delegate = mock(JwkProvider.class);
+        Jwk jwk = mock(Jwk.class);
+        when(delegate.get("key-id")).thenReturn(jwk);
+        CoalescingJwkProvider provider = new CoalescingJwkProvider(delegate);
+
+        assertThat(provider.get("key-id"), is(jwk));
+        assertThat(provider.get("key-id"), is(jwk));
+        verify(delegate, times(2)).get("key-id");
+    }
+
+    @Test
+    public void shouldCoalesceConcurrentLookupsOfSameKeyId() throws Exception {
+        JwkProvider delegate = mock(JwkProvider.class);
+        Jwk jwk = mock(Jwk.class);
+        CountDownLatch release = new CountDownLatch(1);
+        when(delegate.get("key-id")).thenAnswer(blockUntil(release, jwk));
+        final CoalescingJwkProvider provider = new CoalescingJwkProvider(delegate);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Jwk>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(lookup(provider, "key-id")));
+            }
+            Thread.sleep(200);
+            release.countDown();
+
+            for (Future<Jwk> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS), is(jwk));
+            }
+            verify(delegate, times(1)).get("key-id");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void shouldShareFailureWithWaitingCallers() throws Exception {
+        JwkProvider delegate = mock(JwkProvider.class);
+        CountDownLatch release = new CountDownLatch(1);
+        JwkException failure = new JwkException("Failure");
+        when(delegate.get("key-id")).thenAnswer(blockUntilFailing(release, failure));
+        final CoalescingJwkProvider provider = new CoalescingJwkProvider(delegate);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Jwk> first = executor.submit(lookup(provider, "key-id"));
+            Future<Jwk> second = executor.submit(lookup(provider, "key-id"));
+            Thread.sleep(200);
+            release.countDown();
+
+            assertThat(causeOf(first), is((Throwable) failure));
+            assertThat(causeOf(second), is((Throwable) failure));
+            verify(delegate, times(1)).get("key-id");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void shouldTimeoutWaitingForLookupInProgress() throws Exception {
+        JwkProvider delegate = mock(JwkProvider.class);
+        CountDownLatch release = new CountDownLatch(1);
+        when(delegate.get("key-id")).thenAnswer(blockUntil(release, mock(Jwk.class)));
+        final CoalescingJwkProvider provider = new CoalescingJwkProvider(delegate, 50, 1, TimeUnit.MILLISECONDS);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.submit(lookup(provider, "key-id"));
+            Thread.sleep(100);
+            try {
+                provider.get("key-id");
+                fail("Expected the lookup to time out");
+            } catch (SigningKeyNotFoundException e) {
+                assertThat(e.getMessage(), is("Timed out waiting for the key with kid key-id"));
+            }
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void shouldNotAskProviderAgainForMissingKeyId() throws Exception {
+        JwkProvider delegate = mock(JwkProvider.class);
+        when(delegate.get("key-id")).thenThrow(new SigningKeyNotFoundException("Not found", null));
+        CoalescingJwkProvider provider = new CoalescingJwkProvider(delegate);
+
+        try {
+            provider.get("key-id");
+            fail("Expected the key to be missing");
+        } catch (SigningKeyNotFoundException ignored) {
+        }
+        try {
+            provider.get("key-id");
+            fail("Expected the key to be missing");
+        } catch (SigningKeyNotFoundException e) {
+            assertThat(e, is(instanceOf(KeyIdRejectedException.class)));
+            assertThat(e.getMessage(), is("No key found with kid key-id, it was missing in a recent lookup"));
+        }
+        verify(delegate, times(1)).get("key-id");
+    }
+
+    @Test
+    public void shouldAskProviderAgainAfterMissingKeyTtl() throws Exception {
+        JwkProvider delegate = mock(JwkProvider.class);
+        Jwk jwk = mock(Jwk.class);
+        when(delegate.get("key-id"))
+                .thenThrow(new SigningKeyNotFoundException("Not found", null))
+                .thenReturn(jwk);
+        CoalescingJwkProvider provider = new CoalescingJwkProvider(delegate, 1000, 50, TimeUnit.MILLISECONDS);
+
+        try {
+            provider.get("key-id");
+            fail("Expected the key to be missing");
+        } catch (SigningKeyNotFoundException ignored) {
+        }
+        Thread.sleep(100);
+
+        assertThat(provider.get("key-id"), is(jwk));
+        verify(delegate, times(2)).get("key-id");
+    }
+
+    @Test
+    public void shouldNotRememberOtherFailures() throws Exception {
+        JwkProvider delegate = mock(JwkProvider.class);
+        Jwk jwk = mock(Jwk.class);
+        when(delegate.get("key-id"))
+                .thenThrow(new JwkException("Failure"))
+                .thenReturn(jwk);
+        CoalescingJwkProvider provider = new CoalescingJwkProvider(delegate);
+
+        try {
+            provider.get("key-id");
+            fail("Expected the lookup to fail");
+        } catch (JwkException ignored) {
+        }
+
+        assertThat(provider.get("key-id"), is(jwk));
+    }
+
+    @Test
+    public void shouldNotRememberKeyIdsWhoseKeysCouldNotBeDownloaded() throws Exception {
+        JwkProvider delegate = mock(JwkProvider.class);
+        Jwk jwk = mock(Jwk.class);
+        when(delegate.get("key-id"))
+                .thenThrow(new SigningKeyNotFoundException("Cannot obtain jwks", new IOException("Connection refused")))
+                .thenReturn(jwk);
+        CoalescingJwkProvider provider = new CoalescingJwkProvider(delegate);
+
+        try {
+            provider.get("key-id");
+            fail("Expected the lookup to fail");
+        } catch (SigningKeyNotFoundException e) {
+            assertThat(e, is(not(instanceOf(KeyIdRejectedException.class))));
+        }
+
+        assertThat(provider.get("key-id"), is(jwk));
+        verify(delegate, times(2)).get("key-id");
+    }
+
+    @Test
+    public void shouldNotRememberKeyIdsWhoseKeysCouldNotBeDownloadedByCachingProvider() throws Exception {
+        JwkProvider delegate = mock(JwkProvider.class);
+        Jwk jwk = mock(Jwk.class);
+        SigningKeyNotFoundException downloadFailure = new SigningKeyNotFoundException("Cannot obtain jwks", new IOException("Connection refused"));
+        when(delegate.get("key-id"))
+                .thenThrow(new SigningKeyNotFoundException("Failed to get key with kid key-id", new ExecutionException(downloadFailure)))
+                .thenReturn(jwk);
+        CoalescingJwkProvider provider = new CoalescingJwkProvider(delegate);
+
+        try {
+            provider.get("key-id");
+            fail("Expected the lookup to fail");
+        } catch (SigningKeyNotFoundException ignored) {
+        }
+
+        assertThat(provider.get("key-id"), is(jwk));
+    }
+
+    @Test
+    public void shouldNotRememberKeyIdsWhoseDownloadWasRateLimited() throws Exception {
+        StubHttpServer server = new StubHttpServer();
+        try {
+            server.respond(200, JwksTestUtils.jwks(JwksTestUtils.rsaJwk("key-id", JwksTestUtils.RSAKeyPair())));
+            JwkProvider delegate = new JwkProviderBuilder(server.getUrl())
+                    .rateLimited(1, 200, TimeUnit.MILLISECONDS)
+                    .build();
+            CoalescingJwkProvider provider = new CoalescingJwkProvider(delegate);
+            assertThat(provider.get("key-id"), is(notNullValue()));
+
+            try {
+                provider.get("other-key-id");
+                fail("Expected the lookup to be rate limited");
+            } catch (SigningKeyNotFoundException e) {
+                assertThat(e.getCause(), is(instanceOf(ExecutionException.class)));
+                assertThat(e.getCause().getCause(), is(instanceOf(RateLimitReachedException.class)));
+            }
+            assertThat(server.getRequestCount(), is(1));
+            Thread.sleep(300);
+
+            try {
+                provider.get("other-key-id");
+                fail("Expected the key to be missing");
+            } catch (SigningKeyNotFoundException e) {
+                assertThat(e, is(not(instanceOf(KeyIdRejectedException.class))));
+            }
+            assertThat(server.getRequestCount(), is(2));
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void shouldNotRememberKeyIdsRejectedByProvider() throws Exception {
+        JwkProvider delegate = mock(JwkProvider.class);
+        Jwk jwk = mock(Jwk.class);
+        when(delegate.get("key-id"))
+                .thenThrow(new KeyIdRejectedException("Rejected", null))
+                .thenReturn(jwk);
+        CoalescingJwkProvider provider = new CoalescingJwkProvider(delegate);
+
+        try {
+            provider.get("key-id");
+            fail("Expected the key to be rejected");
+        } catch (KeyIdRejectedException ignored) {
+        }
+
+        assertThat(provider.get("key-id"), is(jwk));
+    }
+
+    private static Callable<Jwk> lookup(final JwkProvider provider, final String keyId) {
+        return new Callable<Jwk>() {
+            @Override
+            public Jwk call() throws Exception {
+                return provider.get(keyId);
+            }
+        };
+    }
+
+    private static Answer<Jwk> blockUntil(final CountDownLatch release, final Jwk jwk) {
+        return new Answer<Jwk>() {
+            @Override
+            public Jwk answer(InvocationOnMock invocation) throws Throwable {
+                release.await(5, TimeUnit.SECONDS);
+                return jwk;
+            }
+        };
+    }
+
+    private static Answer<Jwk> blockUntilFailing(final CountDownLatch release, final JwkException failure) {
+        return new Answer<Jwk>() {
+            @Override
+            public Jwk answer(InvocationOnMock invocation) throws Throwable {
+                release.await(5, TimeUnit.SECONDS);
+                throw failure;
+            }
+        };
+    }
+
+    private static Throwable causeOf(Future<Jwk> result) throws Exception {
+        try {
+            result.get(5, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            return e.getCause();
+        }
+        fail("Expected the lookup to fail");
+        return null;
+    }
+}
@@ -0,0 +1,184 @@
+package com.auth0.spring.security.api;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+public class FileRevocationSourceTest {
+
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File file;
+    private RevocationList list;
+
+    @Before
+    public void setUp() throws Exception {
+        file = new File(folder.getRoot(), "revoked.txt");
+        list = new RevocationList(10);
+    }
+
+    @Test
+    public void shouldThrowOnNullFile() throws Exception {
+        exception.expect(IllegalArgumentException.class);
+        exception.expectMessage("A non-null file is required");
+        new FileRevocationSource(null);
+    }
+
+    @Test
+    public void shouldThrowWhenFileIsMissing() throws Exception {
+        exception.expect(FileNotFoundException.class);
+        new FileRevocationSource(file).update(list);
+    }
+
+    @Test
+    public void shouldReadRevokedTokenIdsAndSubjects() throws Exception {
+        write("# revoked tokens\n\njti id-1\nsub subject-1\nunknown value\n");
+
+        new FileRevocationSource(file).update(list);
+
+        assertThat(list.isRevoked(token("id-1", null)), is(true));
+        assertThat(list.isRevoked(token(null, "subject-1")), is(true));
+        assertThat(list.getRevokedTokenIdCount(), is(1));
+        assertThat(list.getRevokedSubjectCount(), is(1));
+    }
+
+    @Test
+    public void shouldOnlyReadAppendedLines() throws Exception {
+        FileRevocationSource source = new FileRevocationSource(file);
+        write("jti id-1\n");
+        source.update(list);
+        list.reinstateTokenIds(Collections.singleton("id-1"));
+
+        append("jti id-2\n");
+        source.update(list);
+
+        assertThat(list.isRevoked(token("id-1", null)), is(false));
+        assertThat(list.isRevoked(token("id-2", null)), is(true));
+    }
+
+    @Test
+    public void shouldWaitForIncompleteLine() throws Exception {
+        FileRevocationSource source = new FileRevocationSource(file);
+        write("jti id-1\njti id-");
+        source.update(list);
+
+        assertThat(list.getRevokedTokenIdCount(), is(1));
+
+        append("2\n");
+        source.update(list);
+
+        assertThat(list.isRevoked(token("id-2", null)), is(true));
+        assertThat(list.getRevokedTokenIdCount(), is(2));
+    }
+
+    @Test
+    public void shouldReplaceAllWhenFileShrinks() throws Exception {
+        FileRevocationSource source = new FileRevocationSource(file);
+        write("jti id-1\njti id-2\nsub subject-1\n");
+        source.update(list);
+
+        write("jti id-2\n");
+        source.update(list);
+
+        assertThat(list.isRevoked(token("id-1", null)), is(false));
+        assertThat(list.isRevoked(token("id-2", null)), is(true));
+        assertThat(list.isRevoked(token(null, "subject-1")), is(false));
+    }
+
+    @Test
+    public void shouldReplaceAllWhenFileIsRewrittenWithSameLength() throws Exception {
+        FileRevocationSource source = new FileRevocationSource(file);
+        write("jti id-1\njti id-2\n");
+        source.update(list);
+        long modified = file.lastModified();
+
+        write("jti id-3\njti id-4\n");
+        assertThat(file.setLastModified(modified + 2000), is(true));
+        source.update(list);
+
+        assertThat(list.isRevoked(token("id-1", null)), is(false));
+        assertThat(list.isRevoked(token("id-2", null)), is(false));
+        assertThat(list.isRevoked(token("id-3", null)), is(true));
+        assertThat(list.isRevoked(token("id-4", null)), is(true));
+    }
+
+    @Test
+    public void shouldReplaceAllWhenFileIsRewrittenLonger() throws Exception {
+        FileRevocationSource source = new FileRevocationSource(file);
+        write("jti id-1\n");
+        source.update(list);
+
+        write("jti id-2\njti id-3\n");
+        source.update(list);
+
+        assertThat(list.isRevoked(token("id-1", null)), is(false));
+        assertThat(list.isRevoked(token("id-2", null)), is(true));
+        assertThat(list.isRevoked(token("id-3", null)), is(true));
+    }
+
+    @Test
+    public void shouldReplaceAllWhenFileIsReplaced() throws Exception {
+        FileRevocationSource source = new FileRevocationSource(file);
+        write("jti id-1\n");
+        source.update(list);
+
+        File replacement = folder.newFile("revoked.txt.new");
+        Files.write(replacement.toPath(), "jti id-1\njti id-2\n".getBytes(StandardCharsets.UTF_8));
+        list.revokeTokenIds(Collections.singleton("id-0"));
+        Files.move(replacement.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        source.update(list);
+
+        assertThat(list.isRevoked(token("id-0", null)), is(false));
+        assertThat(list.isRevoked(token("id-1", null)), is(true));
+        assertThat(list.isRevoked(token("id-2", null)), is(true));
+    }
+
+    @Test
+    public void shouldNotReadFileAgainWhenAppendedTo() throws Exception {
+        FileRevocationSource source = new FileRevocationSource(file);
+        write("jti id-1\n");
+        source.update(list);
+        list.revokeTokenIds(Collections.singleton("id-0"));
+
+        append("jti id-2\n");
+        assertThat(file.setLastModified(file.lastModified() + 2000), is(true));
+        source.update(list);
+
+        assertThat(list.isRevoked(token("id-0", null)), is(true));
+        assertThat(list.isRevoked(token("id-2", null)), is(true));
+    }
+
+    private void write(String content) throws Exception {
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void append(String content) throws Exception {
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+    }
+
+    private static DecodedJWT token(String id, String subject) throws Exception {
+        return JWT.decode(JWT.create()
+                .withJWTId(id)
+                .withSubject(subject)
+                .sign(Algorithm.HMAC256("secret")));
+    }
+}
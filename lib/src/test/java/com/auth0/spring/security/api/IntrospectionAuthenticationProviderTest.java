@@ -0,0 +1,351 @@
+package com.auth0.spring.security.api;
+
+import com.auth0.spring.security.api.authentication.AuthenticationOpaqueToken;
+import com.auth0.spring.security.api.authentication.PreAuthenticatedAuthenticationJsonWebToken;
+import com.auth0.spring.security.api.authentication.PreAuthenticatedOpaqueToken;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.core.Authentication;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class IntrospectionAuthenticationProviderTest {
+
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+    private StubHttpServer server;
+    private IntrospectionClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new StubHttpServer();
+        client = new IntrospectionClient(new URL(server.getUrl() + "/introspect"), "client", "secret");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.stop();
+    }
+
+    @Test
+    public void shouldThrowOnNullClient() throws Exception {
+        exception.expect(IllegalArgumentException.class);
+        exception.expectMessage("A non-null client is required");
+        new IntrospectionAuthenticationProvider(null);
+    }
+
+    @Test
+    public void shouldThrowOnNonPositiveTimeout() throws Exception {
+        exception.expect(IllegalArgumentException.class);
+        exception.expectMessage("The timeout must be positive");
+        new IntrospectionAuthenticationProvider(client).withTimeout(0, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void shouldOnlySupportOpaqueTokens() throws Exception {
+        IntrospectionAuthenticationProvider provider = new IntrospectionAuthenticationProvider(client);
+
+        assertThat(provider.supports(PreAuthenticatedOpaqueToken.class), is(true));
+        assertThat(provider.supports(PreAuthenticatedAuthenticationJsonWebToken.class), is(false));
+        assertThat(provider.authenticate(PreAuthenticatedAuthenticationJsonWebToken.usingToken("eyJhbGciOiJIUzI1NiJ9.e30.XmNK3GpH3Ys_7wsYBfq4C3M6goz71I7dTgUkuIa5lyQ")), is(nullValue()));
+    }
+
+    @Test
+    public void shouldAuthenticateActiveToken() throws Exception {
+        server.respond(200, "{\"active\":true,\"sub\":\"user\",\"scope\":\"read:messages write:messages\",\"exp\":" + inSeconds(60) + "}");
+        IntrospectionAuthenticationProvider provider = new IntrospectionAuthenticationProvider(client);
+
+        Authentication result = provider.authenticate(PreAuthenticatedOpaqueToken.usingToken("opaque"));
+
+        assertThat(result, is(instanceOf(AuthenticationOpaqueToken.class)));
+        assertThat(result.isAuthenticated(), is(true));
+        assertThat(result.getName(), is("user"));
+        assertThat(result.getCredentials(), is((Object) "opaque"));
+        assertThat(result.getAuthorities(), hasSize(2));
+        assertThat(result.getAuthorities().iterator().next().getAuthority(), is("read:messages"));
+        assertThat(((Map<?, ?>) result.getDetails()).get("sub"), is((Object) "user"));
+    }
+
+    @Test
+    public void shouldFailOnInactiveToken() throws Exception {
+        server.respond(200, "{\"active\":false}");
+        IntrospectionAuthenticationProvider provider = new IntrospectionAuthenticationProvider(client);
+
+        exception.expect(BadCredentialsException.class);
+        exception.expectMessage("Not an active token");
+        provider.authenticate(PreAuthenticatedOpaqueToken.usingToken("opaque"));
+    }
+
+    @Test
+    public void shouldFailOnActiveTokenThatExpired() throws Exception {
+        server.respond(200, "{\"active\":true,\"exp\":" + inSeconds(-60) + "}");
+        IntrospectionAuthenticationProvider provider = new IntrospectionAuthenticationProvider(client);
+
+        exception.expect(BadCredentialsException.class);
+        exception.expectMessage("Not an active token");
+        provider.authenticate(PreAuthenticatedOpaqueToken.usingToken("opaque"));
+    }
+
+    @Test
+    public void shouldFailWhenEndpointFails() throws Exception {
+        server.respond(500, "");
+        IntrospectionAuthenticationProvider provider = new IntrospectionAuthenticationProvider(client);
+
+        exception.expect(AuthenticationServiceException.class);
+        exception.expectMessage("Could not introspect token");
+        provider.authenticate(PreAuthenticatedOpaqueToken.usingToken("opaque"));
+    }
+
+    @Test
+    public void shouldCacheIntrospections() throws Exception {
+        server.respond(200, "{\"active\":true,\"sub\":\"user\",\"exp\":" + inSeconds(60) + "}");
+        IntrospectionAuthenticationProvider provider = new IntrospectionAuthenticationProvider(client);
+
+        Authentication result1 = provider.authenticate(PreAuthenticatedOpaqueToken.usingToken("opaque"));
+        Authentication result2 = provider.authenticate(PreAuthenticatedOpaqueToken.usingToken("opaque"));
+
+        assertThat(result2, is(sameInstance(result1)));
+        assertThat(server.getRequestCount(), is(1));
+        assertThat(provider.size(), is(1L));
+    }
+
+    @Test
+    public void shouldCacheInactiveTokens() throws Exception {
+        server.respond(200, "{\"active\":false}");
+        IntrospectionAuthenticationProvider provider = new IntrospectionAuthenticationProvider(client);
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                provider.authenticate(PreAuthenticatedOpaqueToken.usingToken("opaque"));
+            } catch (BadCredentialsException ignored) {
+            }
+        }
+
+        assertThat(server.getRequestCount(), is(1));
+    }
+
+    @Test
+    public void shouldNotEvictActiveTokensWithInactiveOnes() throws Exception {
+        server.respond(200, "{\"active\":true,\"exp\":" + inSeconds(60) + "}");
+        IntrospectionAuthenticationProvider provider = new IntrospectionAuthenticationProvider(client, 2, 5, TimeUnit.MINUTES)
+                .withInactiveCache(1, 1, TimeUnit.MINUTES);
+        provider.authenticate(PreAuthenticatedOpaqueToken.usingToken("active"));
+        server.respond(200, "{\"active\":false}");
+        for (String token : new String[]{"inactive-1", "inactive-2", "inactive-3"}) {
+            try {
+                provider.authenticate(PreAuthenticatedOpaqueToken.usingToken(token));
+                fail("Expected the token to be inactive");
+            } catch (BadCredentialsException ignored) {
+            }
+        }
+
+        Authentication result = provider.authenticate(PreAuthenticatedOpaqueToken.usingToken("active"));
+
+        assertThat(result.isAuthenticated(), is(true));
+        assertThat(server.getRequestCount(), is(4));
+        assertThat(provider.size(), is(2L));
+    }
+
+    @Test
+    public void shouldIntrospectInactiveTokensAgainAfterInactiveMaxAge() throws Exception {
+        server.respond(200, "{\"active\":false}");
+        IntrospectionAuthenticationProvider provider = new IntrospectionAuthenticationProvider(client)
+                .withInactiveCache(10, 100, TimeUnit.MILLISECONDS);
+        try {
+            provider.authenticate(PreAuthenticatedOpaqueToken.usingToken("opaque"));
+        } catch (BadCredentialsException ignored) {
+        }
+        Thread.sleep(200);
+
+        try {
+            provider.authenticate(PreAuthenticatedOpaqueToken.usingToken("opaque"));
+        } catch (BadCredentialsException ignored) {
+        }
+
+        assertThat(server.getRequestCount(), is(2));
+    }
+
+    @Test
+    public void shouldThrowOnNegativeInactiveCacheSize() throws Exception {
+        exception.expect(IllegalArgumentException.class);
+        exception.expectMessage("The inactive cache size cannot be negative");
+        new IntrospectionAuthenticationProvider(client).withInactiveCache(-1, 1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void shouldThrowOnNegativeInactiveMaxAge() throws Exception {
+        exception.expect(IllegalArgumentException.class);
+        exception.expectMessage("The inactive max age cannot be negative");
+        new IntrospectionAuthenticationProvider(client).withInactiveCache(1, -1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void shouldNotCacheFailures() throws Exception {
+        server.respond(500, "");
+        IntrospectionAuthenticationProvider provider = new IntrospectionAuthenticationProvider(client);
+        try {
+            provider.authenticate(PreAuthenticatedOpaqueToken.usingToken("opaque"));
+        } catch (AuthenticationServiceException ignored) {
+        }
+        server.respond(200, "{\"active\":true,\"exp\":" + inSeconds(60) + "}");
+
+        Authentication result = provider.authenticate(PreAuthenticatedOpaqueToken.usingToken("opaque"));
+
+        assertThat(result.isAuthenticated(), is(true));
+        assertThat(server.getRequestCount(), is(2));
+    }
+
+    @Test
+    public void shouldIntrospectAgainAfterExpiration() throws Exception {
+        server.respond(200, "{\"active\":true,\"exp\":" + inSeconds(1) + "}");
+        IntrospectionAuthenticationProvider provider = new IntrospectionAuthenticationProvider(client);
+        provider.authenticate(PreAuthenticatedOpaqueToken.usingToken("opaque"));
+
+        Thread.sleep(1100);
+        server.respond(200, "{\"active\":false}");
+
+        exception.expect(BadCredentialsException.class);
+        try {
+            provider.authenticate(PreAuthenticatedOpaqueToken.usingToken("opaque"));
+        } finally {
+            assertThat(server.getRequestCount(), is(2));
+        }
+    }
+
+    @Test
+    public void shouldIntrospectAgainWhenCachedAuthenticationIsMarkedAsNotAuthenticated() throws Exception {
+        server.respond(200, "{\"active\":true,\"exp\":" + inSeconds(60) + "}");
+        IntrospectionAuthenticationProvider provider = new IntrospectionAuthenticationProvider(client);
+        provider.authenticate(PreAuthenticatedOpaqueToken.usingToken("opaque")).setAuthenticated(false);
+
+        Authentication result = provider.authenticate(PreAuthenticatedOpaqueToken.usingToken("opaque"));
+
+        assertThat(result.isAuthenticated(), is(true));
+        assertThat(server.getRequestCount(), is(2));
+    }
+
+    @Test
+    public void shouldCoalesceConcurrentIntrospectionsOfSameToken() throws Exception {
+        server.respond(200, "{\"active\":true,\"exp\":" + inSeconds(60) + "}");
+        server.delay(300);
+        final IntrospectionAuthenticationProvider provider = new IntrospectionAuthenticationProvider(client);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Authentication>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(executor.submit(new Callable<Authentication>() {
+                    @Override
+                    public Authentication call() throws Exception {
+                        return provider.authenticate(PreAuthenticatedOpaqueToken.usingToken("opaque"));
+                    }
+                }));
+            }
+            for (Future<Authentication> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS).isAuthenticated(), is(true));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(server.getRequestCount(), is(1));
+    }
+
+    @Test
+    public void shouldInvalidateAll() throws Exception {
+        server.respond(200, "{\"active\":true,\"exp\":" + inSeconds(60) + "}");
+        IntrospectionAuthenticationProvider provider = new IntrospectionAuthenticationProvider(client);
+        provider.authenticate(PreAuthenticatedOpaqueToken.usingToken("opaque"));
+
+        provider.invalidateAll();
+        provider.authenticate(PreAuthenticatedOpaqueToken.usingToken("opaque"));
+
+        assertThat(server.getRequestCount(), is(2));
+    }
+
+    @Test
+    public void shouldThrowOnNonPositiveMaxConcurrentIntrospections() throws Exception {
+        exception.expect(IllegalArgumentException.class);
+        exception.expectMessage("The maximum number of concurrent introspections must be positive");
+        new IntrospectionAuthenticationProvider(client).withMaxConcurrentIntrospections(0);
+    }
+
+    @Test
+    public void shouldRejectTokensThatAreNotBearerTokensWithoutIntrospection() throws Exception {
+        IntrospectionAuthenticationProvider provider = new IntrospectionAuthenticationProvider(client);
+        StringBuilder longToken = new StringBuilder();
+        for (int i = 0; i < 4097; i++) {
+            longToken.append('a');
+        }
+
+        for (String token : new String[]{"not a token", "token\u00e9", "=", "to=ken", longToken.toString()}) {
+            try {
+                provider.authenticate(PreAuthenticatedOpaqueToken.usingToken(token));
+                fail("Expected " + token + " to be rejected");
+            } catch (BadCredentialsException e) {
+                assertThat(e.getMessage(), is("Not a valid token"));
+            }
+        }
+
+        assertThat(server.getRequestCount(), is(0));
+    }
+
+    @Test
+    public void shouldAcceptBearerTokenSyntax() throws Exception {
+        assertThat(IntrospectionAuthenticationProvider.isBearerToken("2YotnFZFEjr1zCsicMWpAA"), is(true));
+        assertThat(IntrospectionAuthenticationProvider.isBearerToken("a-b.c_d~e+f/g=="), is(true));
+        assertThat(IntrospectionAuthenticationProvider.isBearerToken(""), is(false));
+    }
+
+    @Test
+    public void shouldRejectNewTokensWhenTooManyIntrospectionsAreInProgress() throws Exception {
+        server.respond(200, "{\"active\":true,\"exp\":" + inSeconds(60) + "}");
+        server.delay(500);
+        final IntrospectionAuthenticationProvider provider = new IntrospectionAuthenticationProvider(client)
+                .withMaxConcurrentIntrospections(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Authentication> first = executor.submit(new Callable<Authentication>() {
+                @Override
+                public Authentication call() throws Exception {
+                    return provider.authenticate(PreAuthenticatedOpaqueToken.usingToken("first"));
+                }
+            });
+            while (server.getRequestCount() == 0) {
+                Thread.sleep(10);
+            }
+
+            try {
+                provider.authenticate(PreAuthenticatedOpaqueToken.usingToken("second"));
+                fail("Expected the introspection to be rejected");
+            } catch (AuthenticationServiceException e) {
+                assertThat(e.getMessage(), is("Too many introspections in progress"));
+            }
+            assertThat(first.get(5, TimeUnit.SECONDS).isAuthenticated(), is(true));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(provider.authenticate(PreAuthenticatedOpaqueToken.usingToken("second")).isAuthenticated(), is(true));
+    }
+
+    private static long inSeconds(long seconds) {
+        return System.currentTimeMillis() / 1000 + seconds;
+    }
+}
@@ -0,0 +1,98 @@
+package com.auth0.spring.security.api;
+
+import org.apache.commons.codec.binary.Base64;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+public class IntrospectionClientTest {
+
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+    private StubHttpServer server;
+    private IntrospectionClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new StubHttpServer();
+        client = new IntrospectionClient(new URL(server.getUrl() + "/introspect"), "client id", "secret");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.stop();
+    }
+
+    @Test
+    public void shouldThrowOnNullUrl() throws Exception {
+        exception.expect(IllegalArgumentException.class);
+        exception.expectMessage("A non-null url is required");
+        new IntrospectionClient(null, "client", "secret");
+    }
+
+    @Test
+    public void shouldThrowOnNullClientCredentials() throws Exception {
+        exception.expect(IllegalArgumentException.class);
+        exception.expectMessage("A non-null client id and secret are required");
+        new IntrospectionClient(new URL(server.getUrl()), "client", null);
+    }
+
+    @Test
+    public void shouldPostTokenWithClientCredentials() throws Exception {
+        server.respond(200, "{\"active\":true,\"sub\":\"user\",\"exp\":1500000000}");
+
+        Map<String, Object> claims = client.introspect("opaque+token");
+
+        assertThat(claims, hasEntry("active", (Object) true));
+        assertThat(claims, hasEntry("sub", (Object) "user"));
+        assertThat(claims, hasEntry("exp", (Object) 1500000000));
+        assertThat(server.getLastRequestBody(), is("token=opaque%2Btoken&token_type_hint=access_token"));
+        String credentials = new String(Base64.decodeBase64(server.getLastAuthorization().substring("Basic ".length())), StandardCharsets.UTF_8);
+        assertThat(credentials, is("client+id:secret"));
+    }
+
+    @Test
+    public void shouldThrowOnErrorStatus() throws Exception {
+        server.respond(401, "{\"error\":\"invalid_client\"}");
+
+        exception.expect(IOException.class);
+        exception.expectMessage(containsString("status 401"));
+        client.introspect("token");
+    }
+
+    @Test
+    public void shouldThrowOnInvalidResponse() throws Exception {
+        server.respond(200, "not json");
+
+        exception.expect(IOException.class);
+        client.introspect("token");
+    }
+
+    @Test
+    public void shouldReuseConnection() throws Exception {
+        server.respond(200, "{\"active\":false}");
+
+        client.introspect("token-1");
+        client.introspect("token-2");
+        server.respond(400, "{\"error\":\"invalid_request\"}");
+        try {
+            client.introspect("token-3");
+        } catch (IOException ignored) {
+        }
+        server.respond(200, "{\"active\":false}");
+        client.introspect("token-4");
+
+        assertThat(server.getRequestCount(), is(4));
+        assertThat(server.getConnectionCount(), is(1));
+    }
+}
@@ -0,0 +1,170 @@
+package com.auth0.spring.security.api;
+
+import com.auth0.jwk.InvalidPublicKeyException;
+import com.auth0.jwk.Jwk;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.AlgorithmMismatchException;
+import com.auth0.spring.security.api.authentication.RSAPSSAlgorithm;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.PublicKey;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static com.auth0.spring.security.api.JwksTestUtils.*;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+public class JwkAlgorithmsTest {
+
+    private static final Set<String> ALL = JwkAlgorithms.supported();
+
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+
+    @Test
+    public void shouldSupportRsaAndEcAlgorithms() throws Exception {
+        assertThat(ALL, hasItems("RS256", "RS384", "RS512", "ES256", "ES384", "ES512"));
+        assertThat(ALL, not(hasItems("HS256", "none")));
+        assertThat(ALL.contains("PS256"), is(RSAPSSAlgorithm.isSupported()));
+    }
+
+    @Test
+    public void shouldUseAlgorithmOfKey() throws Exception {
+        Jwk jwk = parse(rsaJwk("key-id", RSAKeyPair()));
+
+        assertThat(JwkAlgorithms.nameFor(jwk, "RS256", ALL), is("RS256"));
+    }
+
+    @Test
+    public void shouldFailWhenHeaderDoesNotMatchAlgorithmOfKey() throws Exception {
+        Jwk jwk = parse(rsaJwk("key-id", RSAKeyPair()));
+
+        exception.expect(AlgorithmMismatchException.class);
+        JwkAlgorithms.nameFor(jwk, "RS512", ALL);
+    }
+
+    @Test
+    public void shouldUseHeaderAlgorithmForRsaKeyWithoutAlgorithm() throws Exception {
+        Jwk jwk = new Jwk("key-id", "RSA", null, "sig", null, null, null, null, null);
+
+        assertThat(JwkAlgorithms.nameFor(jwk, "RS384", ALL), is("RS384"));
+    }
+
+    @Test
+    public void shouldFailOnSymmetricAlgorithmForRsaKey() throws Exception {
+        Jwk jwk = new Jwk("key-id", "RSA", null, "sig", null, null, null, null, null);
+
+        exception.expect(AlgorithmMismatchException.class);
+        JwkAlgorithms.nameFor(jwk, "HS256", ALL);
+    }
+
+    @Test
+    public void shouldFailOnEcAlgorithmForRsaKey() throws Exception {
+        Jwk jwk = new Jwk("key-id", "RSA", null, "sig", null, null, null, null, null);
+
+        exception.expect(AlgorithmMismatchException.class);
+        JwkAlgorithms.nameFor(jwk, "ES256", ALL);
+    }
+
+    @Test
+    public void shouldUseAlgorithmOfCurveForEcKeyWithoutAlgorithm() throws Exception {
+        Jwk jwk = parse(ecJwk("key-id", ECKeyPair("secp384r1"), "P-384", null));
+
+        assertThat(JwkAlgorithms.nameFor(jwk, "ES384", ALL), is("ES384"));
+    }
+
+    @Test
+    public void shouldFailWhenHeaderDoesNotMatchCurveOfKey() throws Exception {
+        Jwk jwk = parse(ecJwk("key-id", ECKeyPair("secp384r1"), "P-384", null));
+
+        exception.expect(AlgorithmMismatchException.class);
+        JwkAlgorithms.nameFor(jwk, "ES256", ALL);
+    }
+
+    @Test
+    public void shouldFailWhenAlgorithmOfKeyDoesNotMatchCurve() throws Exception {
+        Jwk jwk = parse(ecJwk("key-id", ECKeyPair("secp256r1"), "P-256", "ES512"));
+
+        exception.expect(AlgorithmMismatchException.class);
+        JwkAlgorithms.nameFor(jwk, "ES512", ALL);
+    }
+
+    @Test
+    public void shouldFailOnAlgorithmNotAllowed() throws Exception {
+        Jwk jwk = parse(rsaJwk("key-id", RSAKeyPair()));
+
+        exception.expect(AlgorithmMismatchException.class);
+        JwkAlgorithms.nameFor(jwk, "RS256", new HashSet<>(Arrays.asList("ES256")));
+    }
+
+    @Test
+    public void shouldBuildEcPublicKey() throws Exception {
+        KeyPair keyPair = ECKeyPair("secp256r1");
+        Jwk jwk = parse(ecJwk("key-id", keyPair, "P-256", "ES256"));
+
+        PublicKey publicKey = JwkAlgorithms.publicKeyOf(jwk);
+
+        assertThat(publicKey, is(keyPair.getPublic()));
+    }
+
+    @Test
+    public void shouldBuildRsaPublicKey() throws Exception {
+        KeyPair keyPair = RSAKeyPair();
+        Jwk jwk = parse(rsaJwk("key-id", keyPair));
+
+        assertThat(JwkAlgorithms.publicKeyOf(jwk), is(keyPair.getPublic()));
+    }
+
+    @Test
+    public void shouldFailOnUnknownCurve() throws Exception {
+        Jwk jwk = parse(ecJwk("key-id", ECKeyPair("secp256r1"), "P-192", "ES256"));
+
+        exception.expect(InvalidPublicKeyException.class);
+        JwkAlgorithms.publicKeyOf(jwk);
+    }
+
+    @Test
+    public void shouldFailOnUnsupportedKeyType() throws Exception {
+        Jwk jwk = new Jwk("key-id", "oct", "HS256", "sig", null, null, null, null, null);
+
+        exception.expect(InvalidPublicKeyException.class);
+        JwkAlgorithms.publicKeyOf(jwk);
+    }
+
+    @Test
+    public void shouldCreateAlgorithmForKey() throws Exception {
+        PublicKey rsaKey = RSAKeyPair().getPublic();
+        PublicKey ecKey = ECKeyPair("secp256r1").getPublic();
+
+        assertThat(JwkAlgorithms.create("RS384", rsaKey).getName(), is("RS384"));
+        assertThat(JwkAlgorithms.create("PS256", rsaKey), is(instanceOf(RSAPSSAlgorithm.class)));
+        assertThat(JwkAlgorithms.create("ES256", ecKey).getName(), is("ES256"));
+    }
+
+    @Test
+    public void shouldFailToCreateAlgorithmForKeyOfOtherType() throws Exception {
+        exception.expect(InvalidPublicKeyException.class);
+        exception.expectMessage("The key can't be used with ES256");
+        JwkAlgorithms.create("ES256", RSAKeyPair().getPublic());
+    }
+
+    @Test
+    public void shouldVerifyWithCreatedEcAlgorithm() throws Exception {
+        KeyPair keyPair = ECKeyPair("secp256r1");
+        byte[] content = "content".getBytes(StandardCharsets.UTF_8);
+        byte[] signature = Algorithm.ECDSA256((java.security.interfaces.ECKey) keyPair.getPrivate()).sign(content);
+
+        JwkAlgorithms.create("ES256", JwkAlgorithms.publicKeyOf(parse(ecJwk("key-id", keyPair, "P-256", "ES256"))))
+                .verify(content, signature);
+    }
+
+    private static Jwk parse(String jwk) throws Exception {
+        return JwksFetcher.parse(jwks(jwk).getBytes(StandardCharsets.UTF_8)).get(0);
+    }
+}
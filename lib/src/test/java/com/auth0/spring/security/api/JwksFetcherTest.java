@@ -0,0 +1,149 @@
+package com.auth0.spring.security.api;
+
+import com.auth0.jwk.Jwk;
+import com.auth0.jwk.RateLimitReachedException;
+import com.auth0.jwk.SigningKeyNotFoundException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.io.IOException;
+import java.net.URL;
+import java.security.KeyPair;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import static com.auth0.spring.security.api.JwksTestUtils.*;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class JwksFetcherTest {
+
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+    private StubHttpServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new StubHttpServer();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.stop();
+    }
+
+    @Test
+    public void shouldThrowOnNullUrl() throws Exception {
+        exception.expect(IllegalArgumentException.class);
+        exception.expectMessage("A non-null url is required");
+        new JwksFetcher(null);
+    }
+
+    @Test
+    public void shouldThrowOnMissingIssuer() throws Exception {
+        exception.expect(IllegalArgumentException.class);
+        exception.expectMessage("A domain is required");
+        JwksFetcher.forIssuer(null);
+    }
+
+    @Test
+    public void shouldBuildUrlForIssuerDomain() throws Exception {
+        assertThat(JwksFetcher.forIssuer("samples.auth0.com").getUrl(), is(new URL("https://samples.auth0.com/.well-known/jwks.json")));
+        assertThat(JwksFetcher.forIssuer("https://samples.auth0.com/").getUrl(), is(new URL("https://samples.auth0.com/.well-known/jwks.json")));
+    }
+
+    @Test
+    public void shouldFetchAllKeys() throws Exception {
+        KeyPair keyPair1 = RSAKeyPair();
+        KeyPair keyPair2 = RSAKeyPair();
+        server.respond(200, jwks(rsaJwk("key-1", keyPair1), rsaJwk("key-2", keyPair2)));
+
+        List<Jwk> keys = JwksFetcher.forIssuer(server.getUrl()).fetch();
+
+        assertThat(keys, hasSize(2));
+        assertThat(keys.get(0).getId(), is("key-1"));
+        assertThat(keys.get(0).getType(), is("RSA"));
+        assertThat(keys.get(0).getAlgorithm(), is("RS256"));
+        assertThat(keys.get(0).getPublicKey(), is(keyPair1.getPublic()));
+        assertThat(keys.get(1).getId(), is("key-2"));
+        assertThat(keys.get(1).getPublicKey(), is(keyPair2.getPublic()));
+    }
+
+    @Test
+    public void shouldFailOnErrorStatus() throws Exception {
+        server.respond(500, "{}");
+
+        exception.expect(SigningKeyNotFoundException.class);
+        exception.expectMessage(containsString("status 500"));
+        JwksFetcher.forIssuer(server.getUrl()).fetch();
+    }
+
+    @Test
+    public void shouldTellErrorStatusIsFetchFailure() throws Exception {
+        server.respond(503, "{}");
+
+        try {
+            JwksFetcher.forIssuer(server.getUrl()).fetch();
+            fail("Expected the download to fail");
+        } catch (SigningKeyNotFoundException e) {
+            assertThat(JwksFetcher.isFetchFailure(e), is(true));
+        }
+    }
+
+    @Test
+    public void shouldNotTellMissingKeyIsFetchFailure() throws Exception {
+        SigningKeyNotFoundException missing = new SigningKeyNotFoundException("No key found with kid key-1", null);
+
+        assertThat(JwksFetcher.isFetchFailure(missing), is(false));
+        assertThat(JwksFetcher.isFetchFailure(new SigningKeyNotFoundException("Failed to get key", new ExecutionException(missing))), is(false));
+        assertThat(JwksFetcher.isFetchFailure(new SigningKeyNotFoundException("Failed to get key", new IOException("Timeout"))), is(true));
+    }
+
+    @Test
+    public void shouldTellRateLimitedLookupIsFetchFailure() throws Exception {
+        RateLimitReachedException rateLimited = new RateLimitReachedException(1000);
+
+        assertThat(JwksFetcher.isFetchFailure(rateLimited), is(true));
+        assertThat(JwksFetcher.isFetchFailure(new SigningKeyNotFoundException("Failed to get key", new ExecutionException(rateLimited))), is(true));
+    }
+
+    @Test
+    public void shouldFailOnInvalidJson() throws Exception {
+        server.respond(200, "not json");
+
+        exception.expect(SigningKeyNotFoundException.class);
+        exception.expectMessage("Failed to parse jwks");
+        JwksFetcher.forIssuer(server.getUrl()).fetch();
+    }
+
+    @Test
+    public void shouldFailOnEmptyKeys() throws Exception {
+        server.respond(200, "{\"keys\":[]}");
+
+        exception.expect(SigningKeyNotFoundException.class);
+        exception.expectMessage("No keys found in jwks");
+        JwksFetcher.forIssuer(server.getUrl()).fetch();
+    }
+
+    @Test
+    public void shouldFailOnKeyWithoutType() throws Exception {
+        server.respond(200, "{\"keys\":[{\"kid\":\"key-1\"}]}");
+
+        exception.expect(SigningKeyNotFoundException.class);
+        JwksFetcher.forIssuer(server.getUrl()).fetch();
+    }
+
+    @Test
+    public void shouldFailWhenServerIsUnreachable() throws Exception {
+        String url = server.getUrl();
+        server.stop();
+
+        exception.expect(SigningKeyNotFoundException.class);
+        exception.expectMessage(startsWith("Cannot obtain jwks from url"));
+        JwksFetcher.forIssuer(url).fetch();
+    }
+}
@@ -0,0 +1,98 @@
+package com.auth0.spring.security.api;
+
+import com.auth0.jwk.Jwk;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.KeyPair;
+import java.util.List;
+
+import static com.auth0.spring.security.api.JwksTestUtils.*;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+public class JwksSnapshotTest {
+
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shouldThrowOnNullFile() throws Exception {
+        exception.expect(IllegalArgumentException.class);
+        exception.expectMessage("A non-null file is required");
+        new JwksSnapshot(null);
+    }
+
+    @Test
+    public void shouldReturnNullWhenFileIsMissing() throws Exception {
+        JwksSnapshot snapshot = new JwksSnapshot(new File(folder.getRoot(), "jwks.json"));
+
+        assertThat(snapshot.load(), is(nullValue()));
+    }
+
+    @Test
+    public void shouldSaveAndLoadKeys() throws Exception {
+        KeyPair keyPair = RSAKeyPair();
+        File file = new File(folder.getRoot(), "jwks.json");
+        JwksSnapshot snapshot = new JwksSnapshot(file);
+
+        snapshot.save(bytes(jwks(rsaJwk("key-id", keyPair))));
+        List<Jwk> keys = new JwksSnapshot(file).load();
+
+        assertThat(keys, hasSize(1));
+        assertThat(keys.get(0).getId(), is("key-id"));
+        assertThat(keys.get(0).getPublicKey(), is(keyPair.getPublic()));
+        assertThat(folder.getRoot().list(), is(arrayContaining("jwks.json")));
+    }
+
+    @Test
+    public void shouldReplaceExistingSnapshot() throws Exception {
+        File file = new File(folder.getRoot(), "jwks.json");
+        JwksSnapshot snapshot = new JwksSnapshot(file);
+
+        snapshot.save(bytes(jwks(rsaJwk("key-1", RSAKeyPair()))));
+        snapshot.save(bytes(jwks(rsaJwk("key-2", RSAKeyPair()))));
+
+        assertThat(new JwksSnapshot(file).load().get(0).getId(), is("key-2"));
+    }
+
+    @Test
+    public void shouldNotRewriteUnchangedSnapshot() throws Exception {
+        File file = new File(folder.getRoot(), "jwks.json");
+        JwksSnapshot snapshot = new JwksSnapshot(file);
+        byte[] json = bytes(jwks(rsaJwk("key-id", RSAKeyPair())));
+
+        snapshot.save(json);
+        assertThat(file.setLastModified(1000), is(true));
+        snapshot.save(json);
+
+        assertThat(file.lastModified(), is(1000L));
+    }
+
+    @Test
+    public void shouldIgnoreSnapshotThatIsNotJson() throws Exception {
+        File file = new File(folder.getRoot(), "jwks.json");
+        Files.write(file.toPath(), bytes("{\"keys\":[{\"kid\":"));
+
+        assertThat(new JwksSnapshot(file).load(), is(nullValue()));
+    }
+
+    @Test
+    public void shouldIgnoreSnapshotWithInvalidKey() throws Exception {
+        File file = new File(folder.getRoot(), "jwks.json");
+        Files.write(file.toPath(), bytes(jwks("{\"kid\":\"key-id\",\"kty\":\"RSA\",\"n\":\"\",\"e\":\"\"}")));
+
+        assertThat(new JwksSnapshot(file).load(), is(nullValue()));
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,71 @@
+package com.auth0.spring.security.api;
+
+import org.apache.commons.codec.binary.Base64;
+
+import java.math.BigInteger;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Arrays;
+
+/**
+ * Builds json web key sets for tests.
+ */
+class JwksTestUtils {
+
+    static KeyPair RSAKeyPair() throws NoSuchAlgorithmException {
+        KeyPairGenerator kpg = KeyPairGenerator.getInstance("RSA");
+        kpg.initialize(2048);
+        return kpg.genKeyPair();
+    }
+
+    static KeyPair ECKeyPair(String curve) throws Exception {
+        KeyPairGenerator kpg = KeyPairGenerator.getInstance("EC");
+        kpg.initialize(new ECGenParameterSpec(curve));
+        return kpg.genKeyPair();
+    }
+
+    static String jwks(String... keys) {
+        StringBuilder builder = new StringBuilder("{\"keys\":[");
+        for (int i = 0; i < keys.length; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append(keys[i]);
+        }
+        return builder.append("]}").toString();
+    }
+
+    static String rsaJwk(String kid, KeyPair keyPair) {
+        RSAPublicKey publicKey = (RSAPublicKey) keyPair.getPublic();
+        return "{\"kid\":\"" + kid + "\",\"kty\":\"RSA\",\"alg\":\"RS256\",\"use\":\"sig\","
+                + "\"n\":\"" + base64(publicKey.getModulus()) + "\","
+                + "\"e\":\"" + base64(publicKey.getPublicExponent()) + "\"}";
+    }
+
+    static String ecJwk(String kid, KeyPair keyPair, String crv, String alg) {
+        ECPublicKey publicKey = (ECPublicKey) keyPair.getPublic();
+        int size = (publicKey.getParams().getCurve().getField().getFieldSize() + 7) / 8;
+        return "{\"kid\":\"" + kid + "\",\"kty\":\"EC\"," + (alg != null ? "\"alg\":\"" + alg + "\"," : "") + "\"use\":\"sig\","
+                + "\"crv\":\"" + crv + "\","
+                + "\"x\":\"" + Base64.encodeBase64URLSafeString(unsigned(publicKey.getW().getAffineX(), size)) + "\","
+                + "\"y\":\"" + Base64.encodeBase64URLSafeString(unsigned(publicKey.getW().getAffineY(), size)) + "\"}";
+    }
+
+    private static byte[] unsigned(BigInteger value, int size) {
+        byte[] bytes = value.toByteArray();
+        if (bytes.length > size) {
+            return Arrays.copyOfRange(bytes, bytes.length - size, bytes.length);
+        }
+        byte[] padded = new byte[size];
+        System.arraycopy(bytes, 0, padded, size - bytes.length, bytes.length);
+        return padded;
+    }
+
+    private static String base64(BigInteger value) {
+        return Base64.encodeBase64URLSafeString(value.toByteArray());
+    }
+}
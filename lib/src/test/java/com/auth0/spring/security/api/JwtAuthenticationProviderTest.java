@@ -2,31 +2,53 @@ package com.auth0.spring.security.api;
 
 import com.auth0.jwk.*;
 import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTVerifier;
 import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.AlgorithmMismatchException;
 import com.auth0.jwt.exceptions.InvalidClaimException;
+import com.auth0.jwt.exceptions.JWTVerificationException;
 import com.auth0.jwt.exceptions.SignatureVerificationException;
+import com.auth0.jwt.interfaces.Clock;
 import com.auth0.spring.security.api.authentication.AuthenticationJsonWebToken;
+import com.auth0.spring.security.api.authentication.AuthenticationMetrics;
+import com.auth0.spring.security.api.authentication.ClaimAuthoritiesExtractor;
+import com.auth0.spring.security.api.authentication.JwtAuthentication;
 import com.auth0.spring.security.api.authentication.PreAuthenticatedAuthenticationJsonWebToken;
+import com.auth0.spring.security.api.authentication.RSAPSSAlgorithm;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
 import org.hamcrest.Matchers;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
 import org.springframework.security.authentication.AuthenticationServiceException;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.core.Authentication;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.security.KeyPair;
 import java.security.KeyPairGenerator;
 import java.security.NoSuchAlgorithmException;
+import java.security.interfaces.ECKey;
 import java.security.interfaces.RSAKey;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Date;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import static org.hamcrest.Matchers.*;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 public class JwtAuthenticationProviderTest {
 
@@ -130,6 +152,90 @@ public class JwtAuthenticationProviderTest {
         provider.authenticate(authentication);
     }
 
+    @Test
+    public void shouldThrowOnEmptyAudiences() throws Exception {
+        exception.expect(IllegalArgumentException.class);
+        exception.expectMessage("At least one audience is required");
+        new JwtAuthenticationProvider("secret".getBytes(), "issuer", "audience")
+                .withAudiences(Collections.<String>emptyList());
+    }
+
+    @Test
+    public void shouldAuthenticateUsingSecretWithAnyOfAudiences() throws Exception {
+        JwtAuthenticationProvider provider = new JwtAuthenticationProvider("secret".getBytes(), "issuer", "audience")
+                .withAudiences(Arrays.asList("audience", "other-audience"));
+        String token = JWT.create()
+                .withAudience("other-audience")
+                .withIssuer("issuer")
+                .sign(Algorithm.HMAC256("secret"));
+        Authentication authentication = PreAuthenticatedAuthenticationJsonWebToken.usingToken(token);
+
+        Authentication result = provider.authenticate(authentication);
+
+        assertThat(result, is(notNullValue()));
+        assertThat(result.isAuthenticated(), is(true));
+    }
+
+    @Test
+    public void shouldFailToAuthenticateUsingSecretIfNoneOfAudiencesMatch() throws Exception {
+        JwtAuthenticationProvider provider = new JwtAuthenticationProvider("secret".getBytes(), "issuer", "audience")
+                .withAudiences(Arrays.asList("other-audience", "another-audience"));
+        String token = JWT.create()
+                .withAudience("audience")
+                .withIssuer("issuer")
+                .sign(Algorithm.HMAC256("secret"));
+        Authentication authentication = PreAuthenticatedAuthenticationJsonWebToken.usingToken(token);
+
+        exception.expect(BadCredentialsException.class);
+        exception.expectMessage("Not a valid token");
+        exception.expectCause(Matchers.<Throwable>instanceOf(InvalidClaimException.class));
+        provider.authenticate(authentication);
+    }
+
+    @Test
+    public void shouldThrowOnNegativeLeeway() throws Exception {
+        exception.expect(IllegalArgumentException.class);
+        exception.expectMessage("The leeway cannot be negative");
+        new JwtAuthenticationProvider("secret".getBytes(), "issuer", "audience")
+                .withLeeway(-1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void shouldAuthenticateUsingSecretIfExpiredWithinLeeway() throws Exception {
+        JwtAuthenticationProvider provider = new JwtAuthenticationProvider("secret".getBytes(), "issuer", "audience")
+                .withLeeway(2, TimeUnit.MINUTES);
+        String token = JWT.create()
+                .withAudience("audience")
+                .withIssuer("issuer")
+                .withExpiresAt(new Date(System.currentTimeMillis() - 60 * 1000))
+                .sign(Algorithm.HMAC256("secret"));
+        Authentication authentication = PreAuthenticatedAuthenticationJsonWebToken.usingToken(token);
+
+        Authentication result = provider.authenticate(authentication);
+
+        assertThat(result, is(notNullValue()));
+        assertThat(result.isAuthenticated(), is(true));
+    }
+
+    @Test
+    public void shouldFailToAuthenticateUsingSecretIfExpiredAccordingToClock() throws Exception {
+        Clock clock = mock(Clock.class);
+        when(clock.getToday()).thenReturn(new Date(System.currentTimeMillis() + 120 * 1000));
+        JwtAuthenticationProvider provider = new JwtAuthenticationProvider("secret".getBytes(), "issuer", "audience")
+                .withClock(clock);
+        String token = JWT.create()
+                .withAudience("audience")
+                .withIssuer("issuer")
+                .withExpiresAt(new Date(System.currentTimeMillis() + 60 * 1000))
+                .sign(Algorithm.HMAC256("secret"));
+        Authentication authentication = PreAuthenticatedAuthenticationJsonWebToken.usingToken(token);
+
+        exception.expect(BadCredentialsException.class);
+        exception.expectMessage("Not a valid token");
+        exception.expectCause(Matchers.<Throwable>instanceOf(InvalidClaimException.class));
+        provider.authenticate(authentication);
+    }
+
     @Test
     public void shouldAuthenticateUsingSecret() throws Exception {
         JwtAuthenticationProvider provider = new JwtAuthenticationProvider("secret".getBytes(), "issuer", "audience");
@@ -145,6 +251,56 @@ public class JwtAuthenticationProviderTest {
         assertThat(result, is(not(equalTo(authentication))));
     }
 
+    @Test
+    public void shouldAuthenticateOtherJwtAuthenticationImplementations() throws Exception {
+        JwtAuthenticationProvider provider = new JwtAuthenticationProvider("secret".getBytes(), "issuer", "audience");
+        String token = JWT.create()
+                .withAudience("audience")
+                .withIssuer("issuer")
+                .sign(Algorithm.HMAC256("secret"));
+
+        Authentication result = provider.authenticate(new ExternalJwtAuthentication(token));
+
+        assertThat(result, is(notNullValue()));
+        assertThat(result.isAuthenticated(), is(true));
+    }
+
+    @Test
+    public void shouldFailToAuthenticateOtherJwtAuthenticationImplementationsWithMalformedToken() throws Exception {
+        JwtAuthenticationProvider provider = new JwtAuthenticationProvider("secret".getBytes(), "issuer", "audience");
+
+        exception.expect(BadCredentialsException.class);
+        exception.expectMessage("Not a valid token");
+        provider.authenticate(new ExternalJwtAuthentication("not.a.jwt"));
+    }
+
+
+    @Test
+    public void shouldAuthenticateUsingCustomAuthoritiesExtractor() throws Exception {
+        JwtAuthenticationProvider provider = new JwtAuthenticationProvider("secret".getBytes(), "issuer", "audience")
+                .withAuthoritiesExtractor(new ClaimAuthoritiesExtractor("permissions"));
+        String token = JWT.create()
+                .withAudience("audience")
+                .withIssuer("issuer")
+                .withClaim("scope", "read:users")
+                .withArrayClaim("permissions", new String[]{"read:orders"})
+                .sign(Algorithm.HMAC256("secret"));
+        Authentication authentication = PreAuthenticatedAuthenticationJsonWebToken.usingToken(token);
+
+        Authentication result = provider.authenticate(authentication);
+
+        assertThat(result.getAuthorities(), hasSize(1));
+        assertThat(result.getAuthorities().iterator().next().getAuthority(), is("read:orders"));
+    }
+
+    @Test
+    public void shouldNotAllowNullAuthoritiesExtractor() throws Exception {
+        JwtAuthenticationProvider provider = new JwtAuthenticationProvider("secret".getBytes(), "issuer", "audience");
+
+        exception.expect(IllegalArgumentException.class);
+        exception.expectMessage("The authorities extractor cannot be null");
+        provider.withAuthoritiesExtractor(null);
+    }
 
     //RS
 
@@ -230,7 +386,7 @@ public class JwtAuthenticationProviderTest {
         when(jwk.getPublicKey()).thenReturn(keyPair.getPublic());
         JwtAuthenticationProvider provider = new JwtAuthenticationProvider(jwkProvider, "issuer", "audience");
         String token = JWT.create()
-                .withAudience("some")
+                .withAudience("audience")
                 .withIssuer("issuer")
                 .sign(Algorithm.RSA256((RSAKey) keyPair.getPrivate()));
 
@@ -312,6 +468,222 @@ public class JwtAuthenticationProviderTest {
         provider.authenticate(authentication);
     }
 
+    @Test
+    public void shouldRecordStagesOfJWKAuthentication() throws Exception {
+        Jwk jwk = mock(Jwk.class);
+        JwkProvider jwkProvider = mock(JwkProvider.class);
+        AuthenticationMetrics metrics = mock(AuthenticationMetrics.class);
+
+        KeyPair keyPair = RSAKeyPair();
+        when(jwkProvider.get(eq("key-id"))).thenReturn(jwk);
+        when(jwk.getPublicKey()).thenReturn(keyPair.getPublic());
+        JwtAuthenticationProvider provider = new JwtAuthenticationProvider(jwkProvider, "issuer", "audience")
+                .withMetrics(metrics);
+        Map<String, Object> keyIdHeader = Collections.singletonMap("kid", (Object) "key-id");
+        String token = JWT.create()
+                .withAudience("audience")
+                .withIssuer("issuer")
+                .withHeader(keyIdHeader)
+                .sign(Algorithm.RSA256((RSAKey) keyPair.getPrivate()));
+
+        provider.authenticate(PreAuthenticatedAuthenticationJsonWebToken.usingToken(token));
+
+        verify(metrics).recordTime(eq(AuthenticationMetrics.Stage.KEY_LOOKUP), anyLong());
+        verify(metrics).recordTime(eq(AuthenticationMetrics.Stage.SIGNATURE), anyLong());
+        verify(metrics).recordTime(eq(AuthenticationMetrics.Stage.CLAIMS), anyLong());
+        verify(metrics).recordSuccess();
+        verifyNoMoreInteractions(metrics);
+    }
+
+    @Test
+    public void shouldRecordFailuresOfSecretAuthentication() throws Exception {
+        AuthenticationMetrics metrics = mock(AuthenticationMetrics.class);
+        JwtAuthenticationProvider provider = new JwtAuthenticationProvider("secret".getBytes(), "issuer", "audience")
+                .withMetrics(metrics);
+        String token = JWT.create()
+                .withAudience("audience")
+                .withIssuer("issuer")
+                .withExpiresAt(new Date(System.currentTimeMillis() - 60 * 1000))
+                .sign(Algorithm.HMAC256("secret"));
+
+        try {
+            provider.authenticate(PreAuthenticatedAuthenticationJsonWebToken.usingToken(token));
+            fail("Expected the token to be rejected");
+        } catch (BadCredentialsException ignored) {
+        }
+
+        verify(metrics).recordFailure(AuthenticationMetrics.Failure.EXPIRED);
+        verify(metrics, never()).recordSuccess();
+    }
+
+    @Test
+    public void shouldRecordMissingKeyId() throws Exception {
+        AuthenticationMetrics metrics = mock(AuthenticationMetrics.class);
+        JwtAuthenticationProvider provider = new JwtAuthenticationProvider(mock(JwkProvider.class), "issuer", "audience")
+                .withMetrics(metrics);
+        String token = JWT.create()
+                .withAudience("audience")
+                .withIssuer("issuer")
+                .sign(Algorithm.RSA256((RSAKey) RSAKeyPair().getPrivate()));
+
+        try {
+            provider.authenticate(PreAuthenticatedAuthenticationJsonWebToken.usingToken(token));
+            fail("Expected the token to be rejected");
+        } catch (BadCredentialsException ignored) {
+        }
+
+        verify(metrics).recordFailure(AuthenticationMetrics.Failure.MISSING_KEY_ID);
+    }
+
+    @Test
+    public void shouldRecordJwksFetchFailure() throws Exception {
+        JwkProvider jwkProvider = mock(JwkProvider.class);
+        AuthenticationMetrics metrics = mock(AuthenticationMetrics.class);
+        when(jwkProvider.get(eq("key-id"))).thenThrow(SigningKeyNotFoundException.class);
+        JwtAuthenticationProvider provider = new JwtAuthenticationProvider(jwkProvider, "issuer", "audience")
+                .withMetrics(metrics);
+        Map<String, Object> keyIdHeader = Collections.singletonMap("kid", (Object) "key-id");
+        String token = JWT.create()
+                .withAudience("audience")
+                .withIssuer("issuer")
+                .withHeader(keyIdHeader)
+                .sign(Algorithm.RSA256((RSAKey) RSAKeyPair().getPrivate()));
+
+        try {
+            provider.authenticate(PreAuthenticatedAuthenticationJsonWebToken.usingToken(token));
+            fail("Expected the token to be rejected");
+        } catch (AuthenticationServiceException ignored) {
+        }
+
+        verify(metrics).recordTime(eq(AuthenticationMetrics.Stage.KEY_LOOKUP), anyLong());
+        verify(metrics).recordFailure(AuthenticationMetrics.Failure.JWKS_FETCH_FAILED);
+    }
+
+    @Test
+    public void shouldReportAuthenticatedTokenToAuditor() throws Exception {
+        AuthenticationAuditor auditor = mock(AuthenticationAuditor.class);
+        JwtAuthenticationProvider provider = new JwtAuthenticationProvider("secret".getBytes(), "issuer", "audience")
+                .withAuditor(auditor);
+        String token = JWT.create()
+                .withAudience("audience")
+                .withIssuer("issuer")
+                .sign(Algorithm.HMAC256("secret"));
+
+        Authentication result = provider.authenticate(PreAuthenticatedAuthenticationJsonWebToken.usingToken(token));
+
+        verify(auditor).authenticated(result);
+        verifyNoMoreInteractions(auditor);
+    }
+
+    @Test
+    public void shouldReportRejectedTokenToAuditor() throws Exception {
+        AuthenticationAuditor auditor = mock(AuthenticationAuditor.class);
+        JwtAuthenticationProvider provider = new JwtAuthenticationProvider("secret".getBytes(), "issuer", "audience")
+                .withAuditor(auditor);
+        String token = JWT.create()
+                .withAudience("audience")
+                .withIssuer("issuer")
+                .sign(Algorithm.HMAC256("other"));
+        Authentication authentication = PreAuthenticatedAuthenticationJsonWebToken.usingToken(token);
+
+        try {
+            provider.authenticate(authentication);
+            fail("Expected the token to be rejected");
+        } catch (BadCredentialsException e) {
+            verify(auditor).rejected(authentication, e);
+        }
+        verifyNoMoreInteractions(auditor);
+    }
+
+    @Test
+    public void shouldAuthenticateUsingAsyncJWKProvider() throws Exception {
+        Jwk jwk = mock(Jwk.class);
+        AsyncJwkProvider jwkProvider = mock(AsyncJwkProvider.class);
+
+        KeyPair keyPair = RSAKeyPair();
+        when(jwkProvider.getAsync(eq("key-id"))).thenReturn(Futures.immediateFuture(jwk));
+        when(jwk.getPublicKey()).thenReturn(keyPair.getPublic());
+        JwtAuthenticationProvider provider = new JwtAuthenticationProvider(jwkProvider, "issuer", "audience");
+        Map<String, Object> keyIdHeader = Collections.singletonMap("kid", (Object) "key-id");
+        String token = JWT.create()
+                .withAudience("audience")
+                .withIssuer("issuer")
+                .withHeader(keyIdHeader)
+                .sign(Algorithm.RSA256((RSAKey) keyPair.getPrivate()));
+
+        Authentication result = provider.authenticate(PreAuthenticatedAuthenticationJsonWebToken.usingToken(token));
+
+        assertThat(result, is(notNullValue()));
+        assertThat(result.isAuthenticated(), is(true));
+    }
+
+    @Test
+    public void shouldFailToAuthenticateUsingAsyncJWKProviderIfKeyLookupTimesOut() throws Exception {
+        AsyncJwkProvider jwkProvider = mock(AsyncJwkProvider.class);
+        when(jwkProvider.getAsync(eq("key-id"))).thenReturn(SettableFuture.<Jwk>create());
+        JwtAuthenticationProvider provider = new JwtAuthenticationProvider(jwkProvider, "issuer", "audience")
+                .withKeyLookupTimeout(50, TimeUnit.MILLISECONDS);
+        Map<String, Object> keyIdHeader = Collections.singletonMap("kid", (Object) "key-id");
+        String token = JWT.create()
+                .withAudience("audience")
+                .withIssuer("issuer")
+                .withHeader(keyIdHeader)
+                .sign(Algorithm.RSA256((RSAKey) RSAKeyPair().getPrivate()));
+
+        exception.expect(AuthenticationServiceException.class);
+        exception.expectMessage("Could not retrieve jwks from issuer");
+        exception.expectCause(Matchers.<Throwable>instanceOf(SigningKeyNotFoundException.class));
+        provider.authenticate(PreAuthenticatedAuthenticationJsonWebToken.usingToken(token));
+    }
+
+    @Test
+    public void shouldFailToAuthenticateUsingAsyncJWKProviderWithLookupException() throws Exception {
+        AsyncJwkProvider jwkProvider = mock(AsyncJwkProvider.class);
+        when(jwkProvider.getAsync(eq("key-id"))).thenReturn(Futures.<Jwk>immediateFailedFuture(new KeyIdRejectedException("Rejected", null)));
+        JwtAuthenticationProvider provider = new JwtAuthenticationProvider(jwkProvider, "issuer", "audience");
+        Map<String, Object> keyIdHeader = Collections.singletonMap("kid", (Object) "key-id");
+        String token = JWT.create()
+                .withAudience("audience")
+                .withIssuer("issuer")
+                .withHeader(keyIdHeader)
+                .sign(Algorithm.RSA256((RSAKey) RSAKeyPair().getPrivate()));
+
+        exception.expect(BadCredentialsException.class);
+        exception.expectMessage("Unknown kid found in jwt");
+        provider.authenticate(PreAuthenticatedAuthenticationJsonWebToken.usingToken(token));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void shouldRoundKeyLookupTimeoutUpToOneMillisecond() throws Exception {
+        KeyPair keyPair = RSAKeyPair();
+        ListenableFuture<Jwk> lookup = mock(ListenableFuture.class);
+        when(lookup.get(anyLong(), any(TimeUnit.class))).thenReturn(parseJwk(JwksTestUtils.rsaJwk("key-id", keyPair)));
+        AsyncJwkProvider jwkProvider = mock(AsyncJwkProvider.class);
+        when(jwkProvider.getAsync(eq("key-id"))).thenReturn(lookup);
+        JwtAuthenticationProvider provider = new JwtAuthenticationProvider(jwkProvider, "issuer", "audience")
+                .withKeyLookupTimeout(500, TimeUnit.MICROSECONDS);
+        Map<String, Object> keyIdHeader = Collections.singletonMap("kid", (Object) "key-id");
+        String token = JWT.create()
+                .withAudience("audience")
+                .withIssuer("issuer")
+                .withHeader(keyIdHeader)
+                .sign(Algorithm.RSA256((RSAKey) keyPair.getPrivate()));
+
+        Authentication result = provider.authenticate(PreAuthenticatedAuthenticationJsonWebToken.usingToken(token));
+
+        assertThat(result.isAuthenticated(), is(true));
+        verify(lookup).get(1L, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void shouldNotAllowInvalidKeyLookupTimeout() throws Exception {
+        exception.expect(IllegalArgumentException.class);
+        exception.expectMessage("The key lookup timeout must be positive");
+        new JwtAuthenticationProvider(mock(AsyncJwkProvider.class), "issuer", "audience")
+                .withKeyLookupTimeout(0, TimeUnit.SECONDS);
+    }
+
     @SuppressWarnings("unchecked")
     @Test
     public void shouldFailToAuthenticateUsingJWKIfKeyIdDoesNotMatch() throws Exception {
@@ -322,7 +694,7 @@ public class JwtAuthenticationProviderTest {
         JwtAuthenticationProvider provider = new JwtAuthenticationProvider(jwkProvider, "issuer", "audience");
         Map<String, Object> keyIdHeader = Collections.singletonMap("kid", (Object) "key-id");
         String token = JWT.create()
-                .withAudience("some")
+                .withAudience("audience")
                 .withIssuer("issuer")
                 .withHeader(keyIdHeader)
                 .sign(Algorithm.RSA256((RSAKey) keyPair.getPrivate()));
@@ -347,7 +719,7 @@ public class JwtAuthenticationProviderTest {
         JwtAuthenticationProvider provider = new JwtAuthenticationProvider(jwkProvider, "issuer", "audience");
         Map<String, Object> keyIdHeader = Collections.singletonMap("kid", (Object) "key-id");
         String token = JWT.create()
-                .withAudience("some")
+                .withAudience("audience")
                 .withIssuer("issuer")
                 .withHeader(keyIdHeader)
                 .sign(Algorithm.RSA256((RSAKey) keyPair.getPrivate()));
@@ -370,7 +742,7 @@ public class JwtAuthenticationProviderTest {
         JwtAuthenticationProvider provider = new JwtAuthenticationProvider(jwkProvider, "issuer", "audience");
         Map<String, Object> keyIdHeader = Collections.singletonMap("kid", (Object) "key-id");
         String token = JWT.create()
-                .withAudience("some")
+                .withAudience("audience")
                 .withIssuer("issuer")
                 .withHeader(keyIdHeader)
                 .sign(Algorithm.RSA256((RSAKey) keyPair.getPrivate()));
@@ -383,6 +755,124 @@ public class JwtAuthenticationProviderTest {
         provider.authenticate(authentication);
     }
 
+    @Test
+    public void shouldFailToAuthenticateUsingJWKIfKeyIdIsTooLong() throws Exception {
+        JwkProvider jwkProvider = mock(JwkProvider.class);
+
+        KeyPair keyPair = RSAKeyPair();
+        JwtAuthenticationProvider provider = new JwtAuthenticationProvider(jwkProvider, "issuer", "audience");
+        char[] kid = new char[257];
+        Arrays.fill(kid, 'a');
+        Map<String, Object> keyIdHeader = Collections.singletonMap("kid", (Object) new String(kid));
+        String token = JWT.create()
+                .withAudience("audience")
+                .withIssuer("issuer")
+                .withHeader(keyIdHeader)
+                .sign(Algorithm.RSA256((RSAKey) keyPair.getPrivate()));
+
+        Authentication authentication = PreAuthenticatedAuthenticationJsonWebToken.usingToken(token);
+
+        try {
+            provider.authenticate(authentication);
+            fail("Expected the kid to be rejected");
+        } catch (BadCredentialsException e) {
+            assertThat(e.getMessage(), is("Invalid kid found in jwt"));
+        }
+        verify(jwkProvider, never()).get(anyString());
+    }
+
+    @Test
+    public void shouldFailToAuthenticateUsingJWKIfKeyIdHasControlCharacters() throws Exception {
+        JwkProvider jwkProvider = mock(JwkProvider.class);
+
+        KeyPair keyPair = RSAKeyPair();
+        JwtAuthenticationProvider provider = new JwtAuthenticationProvider(jwkProvider, "issuer", "audience");
+        Map<String, Object> keyIdHeader = Collections.singletonMap("kid", (Object) "key\nid");
+        String token = JWT.create()
+                .withAudience("audience")
+                .withIssuer("issuer")
+                .withHeader(keyIdHeader)
+                .sign(Algorithm.RSA256((RSAKey) keyPair.getPrivate()));
+
+        Authentication authentication = PreAuthenticatedAuthenticationJsonWebToken.usingToken(token);
+
+        exception.expect(BadCredentialsException.class);
+        exception.expectMessage("Invalid kid found in jwt");
+        provider.authenticate(authentication);
+    }
+
+    @Test
+    public void shouldFailToAuthenticateUsingJWKIfKeyIdIsRejected() throws Exception {
+        JwkProvider jwkProvider = mock(JwkProvider.class);
+
+        KeyPair keyPair = RSAKeyPair();
+        when(jwkProvider.get(eq("key-id"))).thenThrow(KeyIdRejectedException.class);
+        JwtAuthenticationProvider provider = new JwtAuthenticationProvider(jwkProvider, "issuer", "audience");
+        Map<String, Object> keyIdHeader = Collections.singletonMap("kid", (Object) "key-id");
+        String token = JWT.create()
+                .withAudience("audience")
+                .withIssuer("issuer")
+                .withHeader(keyIdHeader)
+                .sign(Algorithm.RSA256((RSAKey) keyPair.getPrivate()));
+
+        Authentication authentication = PreAuthenticatedAuthenticationJsonWebToken.usingToken(token);
+
+        exception.expect(BadCredentialsException.class);
+        exception.expectMessage("Unknown kid found in jwt");
+        exception.expectCause(Matchers.<Throwable>instanceOf(KeyIdRejectedException.class));
+        provider.authenticate(authentication);
+    }
+
+    @Test
+    public void shouldFailToAuthenticateUsingJWKIfKeyLookupIsRateLimited() throws Exception {
+        JwkProvider jwkProvider = mock(JwkProvider.class);
+
+        KeyPair keyPair = RSAKeyPair();
+        when(jwkProvider.get(eq("key-id"))).thenThrow(new RateLimitReachedException(1000));
+        JwtAuthenticationProvider provider = new JwtAuthenticationProvider(jwkProvider, "issuer", "audience");
+        Map<String, Object> keyIdHeader = Collections.singletonMap("kid", (Object) "key-id");
+        String token = JWT.create()
+                .withAudience("audience")
+                .withIssuer("issuer")
+                .withHeader(keyIdHeader)
+                .sign(Algorithm.RSA256((RSAKey) keyPair.getPrivate()));
+
+        Authentication authentication = PreAuthenticatedAuthenticationJsonWebToken.usingToken(token);
+
+        exception.expect(AuthenticationServiceException.class);
+        exception.expectMessage("Cannot authenticate with jwt");
+        exception.expectCause(Matchers.<Throwable>instanceOf(RateLimitReachedException.class));
+        provider.authenticate(authentication);
+    }
+
+    @Test
+    public void shouldFailToAuthenticateUsingJWKIfKeyIdIsRejectedAfterFailedDownload() throws Exception {
+        JwkProvider jwkProvider = mock(JwkProvider.class);
+        AuthenticationMetrics metrics = mock(AuthenticationMetrics.class);
+
+        KeyPair keyPair = RSAKeyPair();
+        SigningKeyNotFoundException downloadFailure = new SigningKeyNotFoundException("Cannot obtain jwks", new IOException("Connection refused"));
+        when(jwkProvider.get(eq("key-id"))).thenThrow(new KeyIdRejectedException("Rejected", downloadFailure));
+        JwtAuthenticationProvider provider = new JwtAuthenticationProvider(jwkProvider, "issuer", "audience")
+                .withMetrics(metrics);
+        Map<String, Object> keyIdHeader = Collections.singletonMap("kid", (Object) "key-id");
+        String token = JWT.create()
+                .withAudience("audience")
+                .withIssuer("issuer")
+                .withHeader(keyIdHeader)
+                .sign(Algorithm.RSA256((RSAKey) keyPair.getPrivate()));
+
+        try {
+            provider.authenticate(PreAuthenticatedAuthenticationJsonWebToken.usingToken(token));
+            fail("Expected the key lookup to fail");
+        } catch (AuthenticationServiceException e) {
+            assertThat(e.getMessage(), is("Could not retrieve jwks from issuer"));
+            assertThat(e.getCause(), is(instanceOf(KeyIdRejectedException.class)));
+        }
+        verify(metrics).recordFailure(AuthenticationMetrics.Failure.JWKS_FETCH_FAILED);
+        verify(metrics, never()).recordFailure(AuthenticationMetrics.Failure.UNKNOWN_KEY_ID);
+    }
+
     @Test
     public void shouldAuthenticateUsingJWK() throws Exception {
         Jwk jwk = mock(Jwk.class);
@@ -407,9 +897,426 @@ public class JwtAuthenticationProviderTest {
         assertThat(result, is(not(equalTo(authentication))));
     }
 
+    @Test
+    public void shouldReuseVerifierWhileJWKDoesNotChange() throws Exception {
+        Jwk jwk = mock(Jwk.class);
+        JwkProvider jwkProvider = mock(JwkProvider.class);
+
+        KeyPair keyPair = RSAKeyPair();
+        when(jwkProvider.get(eq("key-id"))).thenReturn(jwk);
+        when(jwk.getPublicKey()).thenReturn(keyPair.getPublic());
+        JwtAuthenticationProvider provider = new JwtAuthenticationProvider(jwkProvider, "issuer", "audience");
+        Map<String, Object> keyIdHeader = Collections.singletonMap("kid", (Object) "key-id");
+        String token = JWT.create()
+                .withAudience("audience")
+                .withIssuer("issuer")
+                .withHeader(keyIdHeader)
+                .sign(Algorithm.RSA256((RSAKey) keyPair.getPrivate()));
+
+        provider.authenticate(PreAuthenticatedAuthenticationJsonWebToken.usingToken(token));
+        provider.authenticate(PreAuthenticatedAuthenticationJsonWebToken.usingToken(token));
+        Authentication result = provider.authenticate(PreAuthenticatedAuthenticationJsonWebToken.usingToken(token));
+
+        assertThat(result, is(notNullValue()));
+        verify(jwk, times(1)).getPublicKey();
+    }
+
+    @Test
+    public void shouldCheckAlgorithmOfEveryTokenWithCachedVerifier() throws Exception {
+        KeyPair keyPair = RSAKeyPair();
+        JwkProvider jwkProvider = mock(JwkProvider.class);
+        when(jwkProvider.get("key-id")).thenReturn(parseJwk(JwksTestUtils.rsaJwk("key-id", keyPair)));
+        JwtAuthenticationProvider provider = new JwtAuthenticationProvider(jwkProvider, "issuer", "audience");
+        Map<String, Object> keyIdHeader = Collections.singletonMap("kid", (Object) "key-id");
+        String token = JWT.create()
+                .withAudience("audience")
+                .withIssuer("issuer")
+                .withHeader(keyIdHeader)
+                .sign(Algorithm.RSA256((RSAKey) keyPair.getPrivate()));
+        String otherAlgorithmToken = JWT.create()
+                .withAudience("audience")
+                .withIssuer("issuer")
+                .withHeader(keyIdHeader)
+                .sign(Algorithm.RSA512((RSAKey) keyPair.getPrivate()));
+        provider.authenticate(PreAuthenticatedAuthenticationJsonWebToken.usingToken(token));
+
+        try {
+            provider.authenticate(PreAuthenticatedAuthenticationJsonWebToken.usingToken(otherAlgorithmToken));
+            fail("Expected the token to be rejected");
+        } catch (BadCredentialsException e) {
+            assertThat(e.getCause(), is(instanceOf(AlgorithmMismatchException.class)));
+        }
+        provider.withAllowedAlgorithms("ES256");
+
+        exception.expect(BadCredentialsException.class);
+        exception.expectCause(Matchers.<Throwable>instanceOf(AlgorithmMismatchException.class));
+        provider.authenticate(PreAuthenticatedAuthenticationJsonWebToken.usingToken(token));
+    }
+
+    @Test
+    public void shouldNotLookUpKeyOfExpiredToken() throws Exception {
+        JwkProvider jwkProvider = mock(JwkProvider.class);
+        JwtAuthenticationProvider provider = new JwtAuthenticationProvider(jwkProvider, "issuer", "audience");
+        Map<String, Object> keyIdHeader = Collections.singletonMap("kid", (Object) "key-id");
+        String token = JWT.create()
+                .withAudience("audience")
+                .withIssuer("issuer")
+                .withExpiresAt(new Date(System.currentTimeMillis() - 60 * 1000))
+                .withHeader(keyIdHeader)
+                .sign(Algorithm.RSA256((RSAKey) RSAKeyPair().getPrivate()));
+
+        try {
+            provider.authenticate(PreAuthenticatedAuthenticationJsonWebToken.usingToken(token));
+            fail("Expected the token to be rejected");
+        } catch (BadCredentialsException e) {
+            assertThat(e.getCause(), is(instanceOf(InvalidClaimException.class)));
+        }
+
+        verify(jwkProvider, never()).get(anyString());
+    }
+
+    @Test
+    public void shouldNotLookUpKeyOfTokenWithDisallowedAlgorithm() throws Exception {
+        JwkProvider jwkProvider = mock(JwkProvider.class);
+        JwtAuthenticationProvider provider = new JwtAuthenticationProvider(jwkProvider, "issuer", "audience")
+                .withAllowedAlgorithms("ES256");
+        Map<String, Object> keyIdHeader = Collections.singletonMap("kid", (Object) "key-id");
+        String token = JWT.create()
+                .withAudience("audience")
+                .withIssuer("issuer")
+                .withHeader(keyIdHeader)
+                .sign(Algorithm.RSA256((RSAKey) RSAKeyPair().getPrivate()));
+
+        try {
+            provider.authenticate(PreAuthenticatedAuthenticationJsonWebToken.usingToken(token));
+            fail("Expected the token to be rejected");
+        } catch (BadCredentialsException e) {
+            assertThat(e.getCause(), is(instanceOf(AlgorithmMismatchException.class)));
+        }
+
+        verify(jwkProvider, never()).get(anyString());
+    }
+
+    @Test
+    public void shouldRebuildVerifierWhenJWKChanges() throws Exception {
+        Jwk jwk1 = mock(Jwk.class);
+        Jwk jwk2 = mock(Jwk.class);
+        JwkProvider jwkProvider = mock(JwkProvider.class);
+
+        KeyPair keyPair1 = RSAKeyPair();
+        KeyPair keyPair2 = RSAKeyPair();
+        when(jwkProvider.get(eq("key-id"))).thenReturn(jwk1, jwk2);
+        when(jwk1.getPublicKey()).thenReturn(keyPair1.getPublic());
+        when(jwk2.getPublicKey()).thenReturn(keyPair2.getPublic());
+        JwtAuthenticationProvider provider = new JwtAuthenticationProvider(jwkProvider, "issuer", "audience");
+        Map<String, Object> keyIdHeader = Collections.singletonMap("kid", (Object) "key-id");
+        String token1 = JWT.create()
+                .withAudience("audience")
+                .withIssuer("issuer")
+                .withHeader(keyIdHeader)
+                .sign(Algorithm.RSA256((RSAKey) keyPair1.getPrivate()));
+        String token2 = JWT.create()
+                .withAudience("audience")
+                .withIssuer("issuer")
+                .withHeader(keyIdHeader)
+                .sign(Algorithm.RSA256((RSAKey) keyPair2.getPrivate()));
+
+        Authentication result1 = provider.authenticate(PreAuthenticatedAuthenticationJsonWebToken.usingToken(token1));
+        Authentication result2 = provider.authenticate(PreAuthenticatedAuthenticationJsonWebToken.usingToken(token2));
+
+        assertThat(result1, is(notNullValue()));
+        assertThat(result2, is(notNullValue()));
+    }
+
+    @Test
+    public void shouldReturnCachedAuthenticationForAlreadyVerifiedToken() throws Exception {
+        Jwk jwk = mock(Jwk.class);
+        JwkProvider jwkProvider = mock(JwkProvider.class);
+
+        KeyPair keyPair = RSAKeyPair();
+        when(jwkProvider.get(eq("key-id"))).thenReturn(jwk);
+        when(jwk.getPublicKey()).thenReturn(keyPair.getPublic());
+        VerifiedTokenCache tokenCache = new VerifiedTokenCache(10, 1, TimeUnit.HOURS);
+        JwtAuthenticationProvider provider = new JwtAuthenticationProvider(jwkProvider, "issuer", "audience")
+                .withVerifiedTokenCache(tokenCache);
+        Map<String, Object> keyIdHeader = Collections.singletonMap("kid", (Object) "key-id");
+        String token = JWT.create()
+                .withAudience("audience")
+                .withIssuer("issuer")
+                .withHeader(keyIdHeader)
+                .sign(Algorithm.RSA256((RSAKey) keyPair.getPrivate()));
+
+        Authentication result1 = provider.authenticate(PreAuthenticatedAuthenticationJsonWebToken.usingToken(token));
+        Authentication result2 = provider.authenticate(PreAuthenticatedAuthenticationJsonWebToken.usingToken(token));
+
+        assertThat(result1, is(notNullValue()));
+        assertThat(result2, is(sameInstance(result1)));
+        assertThat(tokenCache.getMissCount(), is(1L));
+        assertThat(tokenCache.getHitCount(), is(1L));
+        verify(jwkProvider, times(1)).get("key-id");
+    }
+
+    @Test
+    public void shouldNotCacheInvalidToken() throws Exception {
+        VerifiedTokenCache tokenCache = new VerifiedTokenCache(10, 1, TimeUnit.HOURS);
+        JwtAuthenticationProvider provider = new JwtAuthenticationProvider("secret".getBytes(), "issuer", "audience")
+                .withVerifiedTokenCache(tokenCache);
+        String token = JWT.create()
+                .withIssuer("issuer")
+                .withAudience("audience")
+                .sign(Algorithm.HMAC256("not-real-secret"));
+
+        try {
+            provider.authenticate(PreAuthenticatedAuthenticationJsonWebToken.usingToken(token));
+        } catch (BadCredentialsException ignored) {
+        }
+
+        assertThat(tokenCache.size(), is(0L));
+        exception.expect(BadCredentialsException.class);
+        provider.authenticate(PreAuthenticatedAuthenticationJsonWebToken.usingToken(token));
+    }
+
+    @Test
+    public void shouldNotShareVerifiedTokenCacheBetweenProviders() throws Exception {
+        VerifiedTokenCache tokenCache = new VerifiedTokenCache(10, 1, TimeUnit.HOURS);
+        new JwtAuthenticationProvider("secret".getBytes(), "issuer", "audience")
+                .withVerifiedTokenCache(tokenCache);
+        JwtAuthenticationProvider other = new JwtAuthenticationProvider("secret".getBytes(), "issuer", "other-audience");
+
+        exception.expect(IllegalArgumentException.class);
+        exception.expectMessage("The token cache is already used by another provider");
+        other.withVerifiedTokenCache(tokenCache);
+    }
+
+    @Test
+    public void shouldAllowSettingSameVerifiedTokenCacheTwice() throws Exception {
+        VerifiedTokenCache tokenCache = new VerifiedTokenCache(10, 1, TimeUnit.HOURS);
+        JwtAuthenticationProvider provider = new JwtAuthenticationProvider("secret".getBytes(), "issuer", "audience")
+                .withVerifiedTokenCache(tokenCache);
+
+        assertThat(provider.withVerifiedTokenCache(tokenCache), is(sameInstance(provider)));
+    }
+
+    @Test
+    public void shouldFailToAuthenticateRevokedToken() throws Exception {
+        RevocationList revocationList = new RevocationList(10);
+        revocationList.revokeTokenIds(Collections.singleton("revoked-id"));
+        AuthenticationMetrics metrics = mock(AuthenticationMetrics.class);
+        JwtAuthenticationProvider provider = new JwtAuthenticationProvider("secret".getBytes(), "issuer", "audience")
+                .withRevocationChecker(revocationList)
+                .withMetrics(metrics);
+        String token = JWT.create()
+                .withIssuer("issuer")
+                .withAudience("audience")
+                .withJWTId("revoked-id")
+                .sign(Algorithm.HMAC256("secret"));
+
+        try {
+            provider.authenticate(PreAuthenticatedAuthenticationJsonWebToken.usingToken(token));
+            fail("Expected the token to be rejected");
+        } catch (BadCredentialsException e) {
+            assertThat(e.getMessage(), is("Revoked token"));
+        }
+        verify(metrics).recordFailure(AuthenticationMetrics.Failure.REVOKED);
+        verify(metrics, never()).recordSuccess();
+    }
+
+    @Test
+    public void shouldAuthenticateTokenThatWasNotRevoked() throws Exception {
+        RevocationList revocationList = new RevocationList(10);
+        revocationList.revokeSubjects(Collections.singleton("revoked-subject"));
+        JwtAuthenticationProvider provider = new JwtAuthenticationProvider("secret".getBytes(), "issuer", "audience")
+                .withRevocationChecker(revocationList);
+        String token = JWT.create()
+                .withIssuer("issuer")
+                .withAudience("audience")
+                .withSubject("subject")
+                .sign(Algorithm.HMAC256("secret"));
+
+        Authentication result = provider.authenticate(PreAuthenticatedAuthenticationJsonWebToken.usingToken(token));
+
+        assertThat(result, is(notNullValue()));
+        assertThat(result.isAuthenticated(), is(true));
+    }
+
+    @Test
+    public void shouldFailToAuthenticateCachedTokenRevokedAfterVerification() throws Exception {
+        RevocationList revocationList = new RevocationList(10);
+        VerifiedTokenCache tokenCache = new VerifiedTokenCache(10, 1, TimeUnit.HOURS);
+        JwtAuthenticationProvider provider = new JwtAuthenticationProvider("secret".getBytes(), "issuer", "audience")
+                .withVerifiedTokenCache(tokenCache)
+                .withRevocationChecker(revocationList);
+        String token = JWT.create()
+                .withIssuer("issuer")
+                .withAudience("audience")
+                .withSubject("subject")
+                .sign(Algorithm.HMAC256("secret"));
+        provider.authenticate(PreAuthenticatedAuthenticationJsonWebToken.usingToken(token));
+
+        revocationList.revokeSubjects(Collections.singleton("subject"));
+
+        exception.expect(BadCredentialsException.class);
+        exception.expectMessage("Revoked token");
+        provider.authenticate(PreAuthenticatedAuthenticationJsonWebToken.usingToken(token));
+    }
+
+    @Test
+    public void shouldAuthenticateUsingEcJWK() throws Exception {
+        KeyPair keyPair = JwksTestUtils.ECKeyPair("secp256r1");
+        JwkProvider jwkProvider = mock(JwkProvider.class);
+        when(jwkProvider.get("key-id")).thenReturn(parseJwk(JwksTestUtils.ecJwk("key-id", keyPair, "P-256", "ES256")));
+        JwtAuthenticationProvider provider = new JwtAuthenticationProvider(jwkProvider, "issuer", "audience");
+        String token = JWT.create()
+                .withAudience("audience")
+                .withIssuer("issuer")
+                .withHeader(Collections.singletonMap("kid", (Object) "key-id"))
+                .sign(Algorithm.ECDSA256((ECKey) keyPair.getPrivate()));
+
+        Authentication result = provider.authenticate(PreAuthenticatedAuthenticationJsonWebToken.usingToken(token));
+
+        assertThat(result.isAuthenticated(), is(true));
+    }
+
+    @Test
+    public void shouldAuthenticateUsingPssJWK() throws Exception {
+        assumeTrue(RSAPSSAlgorithm.isSupported());
+        KeyPair keyPair = RSAKeyPair();
+        String rsaJwk = JwksTestUtils.rsaJwk("key-id", keyPair).replace("\"RS256\"", "\"PS256\"");
+        JwkProvider jwkProvider = mock(JwkProvider.class);
+        when(jwkProvider.get("key-id")).thenReturn(parseJwk(rsaJwk));
+        JwtAuthenticationProvider provider = new JwtAuthenticationProvider(jwkProvider, "issuer", "audience");
+        String token = JWT.create()
+                .withAudience("audience")
+                .withIssuer("issuer")
+                .withHeader(Collections.singletonMap("kid", (Object) "key-id"))
+                .sign(RSAPSSAlgorithm.PS256((RSAKey) keyPair.getPrivate()));
+
+        Authentication result = provider.authenticate(PreAuthenticatedAuthenticationJsonWebToken.usingToken(token));
+
+        assertThat(result.isAuthenticated(), is(true));
+    }
+
+    @Test
+    public void shouldFailToAuthenticateWhenHeaderAlgorithmDoesNotMatchJWK() throws Exception {
+        AuthenticationMetrics metrics = mock(AuthenticationMetrics.class);
+        KeyPair keyPair = RSAKeyPair();
+        JwkProvider jwkProvider = mock(JwkProvider.class);
+        when(jwkProvider.get("key-id")).thenReturn(parseJwk(JwksTestUtils.rsaJwk("key-id", keyPair)));
+        JwtAuthenticationProvider provider = new JwtAuthenticationProvider(jwkProvider, "issuer", "audience")
+                .withMetrics(metrics);
+        String token = JWT.create()
+                .withAudience("audience")
+                .withIssuer("issuer")
+                .withHeader(Collections.singletonMap("kid", (Object) "key-id"))
+                .sign(Algorithm.RSA512((RSAKey) keyPair.getPrivate()));
+
+        try {
+            provider.authenticate(PreAuthenticatedAuthenticationJsonWebToken.usingToken(token));
+            fail("Expected the token to be rejected");
+        } catch (BadCredentialsException e) {
+            assertThat(e.getMessage(), is("Not a valid token"));
+            assertThat(e.getCause(), is(instanceOf(AlgorithmMismatchException.class)));
+        }
+        verify(metrics).recordFailure(AuthenticationMetrics.Failure.ALGORITHM_MISMATCH);
+    }
+
+    @Test
+    public void shouldFailToAuthenticateWithSecretAlgorithmUsingRsaJWK() throws Exception {
+        KeyPair keyPair = RSAKeyPair();
+        Jwk jwk = mock(Jwk.class);
+        when(jwk.getPublicKey()).thenReturn(keyPair.getPublic());
+        JwkProvider jwkProvider = mock(JwkProvider.class);
+        when(jwkProvider.get("key-id")).thenReturn(jwk);
+        JwtAuthenticationProvider provider = new JwtAuthenticationProvider(jwkProvider, "issuer", "audience");
+        String token = JWT.create()
+                .withAudience("audience")
+                .withIssuer("issuer")
+                .withHeader(Collections.singletonMap("kid", (Object) "key-id"))
+                .sign(Algorithm.HMAC256(keyPair.getPublic().getEncoded()));
+
+        exception.expect(BadCredentialsException.class);
+        exception.expectCause(Matchers.<Throwable>instanceOf(AlgorithmMismatchException.class));
+        provider.authenticate(PreAuthenticatedAuthenticationJsonWebToken.usingToken(token));
+    }
+
+    @Test
+    public void shouldFailToAuthenticateWithAlgorithmNotAllowed() throws Exception {
+        KeyPair keyPair = JwksTestUtils.ECKeyPair("secp256r1");
+        JwkProvider jwkProvider = mock(JwkProvider.class);
+        when(jwkProvider.get("key-id")).thenReturn(parseJwk(JwksTestUtils.ecJwk("key-id", keyPair, "P-256", "ES256")));
+        JwtAuthenticationProvider provider = new JwtAuthenticationProvider(jwkProvider, "issuer", "audience")
+                .withAllowedAlgorithms("RS256");
+        String token = JWT.create()
+                .withAudience("audience")
+                .withIssuer("issuer")
+                .withHeader(Collections.singletonMap("kid", (Object) "key-id"))
+                .sign(Algorithm.ECDSA256((ECKey) keyPair.getPrivate()));
+
+        exception.expect(BadCredentialsException.class);
+        exception.expectCause(Matchers.<Throwable>instanceOf(AlgorithmMismatchException.class));
+        provider.authenticate(PreAuthenticatedAuthenticationJsonWebToken.usingToken(token));
+    }
+
+    @Test
+    public void shouldThrowOnUnsupportedAllowedAlgorithm() throws Exception {
+        exception.expect(IllegalArgumentException.class);
+        exception.expectMessage("The algorithm HS256 is not supported");
+        new JwtAuthenticationProvider(mock(JwkProvider.class), "issuer", "audience")
+                .withAllowedAlgorithms("RS256", "HS256");
+    }
+
+    @Test
+    public void shouldThrowOnNoAllowedAlgorithms() throws Exception {
+        exception.expect(IllegalArgumentException.class);
+        exception.expectMessage("At least one algorithm is required");
+        new JwtAuthenticationProvider(mock(JwkProvider.class), "issuer", "audience")
+                .withAllowedAlgorithms();
+    }
+
+    private static Jwk parseJwk(String jwk) throws Exception {
+        return JwksFetcher.parse(JwksTestUtils.jwks(jwk).getBytes(StandardCharsets.UTF_8)).get(0);
+    }
+
     private KeyPair RSAKeyPair() throws NoSuchAlgorithmException {
         KeyPairGenerator kpg = KeyPairGenerator.getInstance("RSA");
         kpg.initialize(2048);
         return kpg.genKeyPair();
     }
-}
\ No newline at end of file
+
+    /**
+     * {@link JwtAuthentication} implemented outside of this library, that doesn't expose the decoded token
+     */
+    private static class ExternalJwtAuthentication extends AbstractAuthenticationToken implements JwtAuthentication {
+        private final String token;
+
+        ExternalJwtAuthentication(String token) {
+            super(null);
+            this.token = token;
+        }
+
+        @Override
+        public String getToken() {
+            return token;
+        }
+
+        @Override
+        public String getKeyId() {
+            return JWT.decode(token).getKeyId();
+        }
+
+        @Override
+        public Authentication verify(JWTVerifier verifier) throws JWTVerificationException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Object getCredentials() {
+            return token;
+        }
+
+        @Override
+        public Object getPrincipal() {
+            return null;
+        }
+    }
+}
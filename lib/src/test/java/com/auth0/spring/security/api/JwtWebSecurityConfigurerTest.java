@@ -1,14 +1,28 @@
 package com.auth0.spring.security.api;
 
+import com.auth0.jwk.JwkProvider;
+import com.auth0.spring.security.api.authentication.AuthenticationMetrics;
+import com.auth0.spring.security.api.authentication.ClaimAuthoritiesExtractor;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
 import org.springframework.security.authentication.AuthenticationProvider;
 
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
 import static org.hamcrest.Matchers.*;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.mock;
 
 public class JwtWebSecurityConfigurerTest {
 
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     @Test
     public void shouldCreateRS256Configurer() throws Exception {
         JwtWebSecurityConfigurer configurer = JwtWebSecurityConfigurer.forRS256("audience", "issuer");
@@ -65,4 +79,178 @@ public class JwtWebSecurityConfigurerTest {
         assertThat(configurer.provider, is(notNullValue()));
         assertThat(configurer.provider, is(provider));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldConfigureVerifiedTokenCache() throws Exception {
+        VerifiedTokenCache tokenCache = new VerifiedTokenCache(10, 1, TimeUnit.HOURS);
+        JwtWebSecurityConfigurer configurer = JwtWebSecurityConfigurer.forHS256("audience", "issuer", "secret".getBytes())
+                .withVerifiedTokenCache(tokenCache);
+
+        assertThat(configurer, is(notNullValue()));
+        assertThat(configurer.provider, is(instanceOf(JwtAuthenticationProvider.class)));
+    }
+
+    @Test
+    public void shouldNotConfigureVerifiedTokenCacheWithCustomAuthenticationProvider() throws Exception {
+        AuthenticationProvider provider = mock(AuthenticationProvider.class);
+        JwtWebSecurityConfigurer configurer = JwtWebSecurityConfigurer.forHS256("audience", "issuer", provider);
+
+        exception.expect(IllegalStateException.class);
+        exception.expectMessage("This option requires the default JwtAuthenticationProvider");
+        configurer.withVerifiedTokenCache(new VerifiedTokenCache(10, 1, TimeUnit.HOURS));
+    }
+
+    @Test
+    public void shouldConfigureAuthoritiesExtractor() throws Exception {
+        JwtWebSecurityConfigurer configurer = JwtWebSecurityConfigurer.forRS256("audience", "issuer")
+                .withAuthoritiesExtractor(new ClaimAuthoritiesExtractor("permissions"));
+
+        assertThat(configurer, is(notNullValue()));
+        assertThat(configurer.provider, is(instanceOf(JwtAuthenticationProvider.class)));
+    }
+
+    @Test
+    public void shouldConfigureTokenIntrospection() throws Exception {
+        JwtWebSecurityConfigurer configurer = JwtWebSecurityConfigurer.forRS256("audience", "issuer")
+                .withTokenIntrospection("https://issuer.example.com/oauth/introspect", "client", "secret");
+
+        assertThat(configurer.introspectionProvider, is(instanceOf(IntrospectionAuthenticationProvider.class)));
+        assertThat(configurer.provider, is(instanceOf(JwtAuthenticationProvider.class)));
+    }
+
+    @Test
+    public void shouldConfigureTokenIntrospectionWithCustomProvider() throws Exception {
+        AuthenticationProvider introspectionProvider = mock(AuthenticationProvider.class);
+        JwtWebSecurityConfigurer configurer = JwtWebSecurityConfigurer.forHS256("audience", "issuer", mock(AuthenticationProvider.class))
+                .withTokenIntrospection(introspectionProvider);
+
+        assertThat(configurer.introspectionProvider, is(introspectionProvider));
+    }
+
+    @Test
+    public void shouldThrowOnInvalidIntrospectionUrl() throws Exception {
+        exception.expect(IllegalArgumentException.class);
+        exception.expectMessage("Invalid introspection url");
+        JwtWebSecurityConfigurer.forRS256("audience", "issuer")
+                .withTokenIntrospection("not a url", "client", "secret");
+    }
+
+    @Test
+    public void shouldThrowOnNullIntrospectionProvider() throws Exception {
+        exception.expect(IllegalArgumentException.class);
+        exception.expectMessage("A non-null introspection provider is required");
+        JwtWebSecurityConfigurer.forRS256("audience", "issuer")
+                .withTokenIntrospection((AuthenticationProvider) null);
+    }
+
+    @Test
+    public void shouldConfigurePublicPaths() throws Exception {
+        JwtWebSecurityConfigurer configurer = JwtWebSecurityConfigurer.forRS256("audience", "issuer")
+                .withPublicPaths("/health", "/static/**");
+
+        assertThat(configurer.publicPaths, is(notNullValue()));
+        assertThat(configurer.publicPaths.matches("/static/app.js", null), is(true));
+    }
+
+    @Test
+    public void shouldCreateRS256ConfigurerWithCustomJwkProvider() throws Exception {
+        JwkProvider jwkProvider = mock(JwkProvider.class);
+        JwtWebSecurityConfigurer configurer = JwtWebSecurityConfigurer.forRS256("audience", "issuer", jwkProvider);
+
+        assertThat(configurer, is(notNullValue()));
+        assertThat(configurer.audience, is("audience"));
+        assertThat(configurer.issuer, is("issuer"));
+        assertThat(configurer.provider, is(instanceOf(JwtAuthenticationProvider.class)));
+    }
+
+    @Test
+    public void shouldCreateRS256ConfigurerWithKeyPrefetch() throws Exception {
+        StubHttpServer server = new StubHttpServer();
+        try {
+            server.respond(200, JwksTestUtils.jwks(JwksTestUtils.rsaJwk("key-id", JwksTestUtils.RSAKeyPair())));
+            JwtWebSecurityConfigurer configurer = JwtWebSecurityConfigurer.forRS256WithKeyPrefetch("audience", server.getUrl(), 1, TimeUnit.HOURS);
+
+            assertThat(configurer, is(notNullValue()));
+            assertThat(configurer.audience, is("audience"));
+            assertThat(configurer.issuer, is(server.getUrl()));
+            assertThat(configurer.provider, is(instanceOf(JwtAuthenticationProvider.class)));
+            assertThat(server.getRequestCount(), is(1));
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void shouldSetMetricsOnDefaultProvider() throws Exception {
+        AuthenticationMetrics metrics = mock(AuthenticationMetrics.class);
+        JwtWebSecurityConfigurer configurer = JwtWebSecurityConfigurer.forHS256("audience", "issuer", "secret".getBytes())
+                .withMetrics(metrics);
+
+        assertThat(configurer.metrics, is(metrics));
+    }
+
+    @Test
+    public void shouldNotAllowMetricsWithCustomProvider() throws Exception {
+        exception.expect(IllegalStateException.class);
+        exception.expectMessage("This option requires the default JwtAuthenticationProvider");
+        JwtWebSecurityConfigurer.forHS256("audience", "issuer", mock(AuthenticationProvider.class))
+                .withMetrics(mock(AuthenticationMetrics.class));
+    }
+
+    @Test
+    public void shouldNotAllowAudiencesWithCustomProvider() throws Exception {
+        exception.expect(IllegalStateException.class);
+        exception.expectMessage("This option requires the default JwtAuthenticationProvider");
+        JwtWebSecurityConfigurer.forHS256("audience", "issuer", mock(AuthenticationProvider.class))
+                .withAudiences("audience", "other-audience");
+    }
+
+    @Test
+    public void shouldNotAllowLeewayWithCustomProvider() throws Exception {
+        exception.expect(IllegalStateException.class);
+        exception.expectMessage("This option requires the default JwtAuthenticationProvider");
+        JwtWebSecurityConfigurer.forHS256("audience", "issuer", mock(AuthenticationProvider.class))
+                .withLeeway(30, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void shouldNotAllowRevocationCheckerWithCustomProvider() throws Exception {
+        exception.expect(IllegalStateException.class);
+        exception.expectMessage("This option requires the default JwtAuthenticationProvider");
+        JwtWebSecurityConfigurer.forHS256("audience", "issuer", mock(AuthenticationProvider.class))
+                .withRevocationChecker(new RevocationList(10));
+    }
+
+    @Test
+    public void shouldNotAllowAuditorWithCustomProvider() throws Exception {
+        exception.expect(IllegalStateException.class);
+        exception.expectMessage("This option requires the default JwtAuthenticationProvider");
+        JwtWebSecurityConfigurer.forHS256("audience", "issuer", mock(AuthenticationProvider.class))
+                .withAuditor(new LoggingAuthenticationAuditor());
+    }
+
+    @Test
+    public void shouldCreateRS256ConfigurerWithAsyncKeyLookup() throws Exception {
+        JwtWebSecurityConfigurer configurer = JwtWebSecurityConfigurer.forRS256WithAsyncKeyLookup("audience", "issuer", 2, 1, TimeUnit.SECONDS);
+
+        assertThat(configurer, is(notNullValue()));
+        assertThat(configurer.audience, is("audience"));
+        assertThat(configurer.issuer, is("issuer"));
+        assertThat(configurer.provider, is(instanceOf(JwtAuthenticationProvider.class)));
+    }
+
+    @Test
+    public void shouldCreateRS256ConfigurerWithKeySnapshot() throws Exception {
+        File file = folder.newFile("jwks.json");
+        StubHttpServer server = new StubHttpServer();
+        try {
+            server.respond(200, JwksTestUtils.jwks(JwksTestUtils.rsaJwk("key-id", JwksTestUtils.RSAKeyPair())));
+            JwtWebSecurityConfigurer configurer = JwtWebSecurityConfigurer.forRS256WithKeyPrefetch("audience", server.getUrl(), 1, TimeUnit.HOURS, file);
+
+            assertThat(configurer.provider, is(instanceOf(JwtAuthenticationProvider.class)));
+            assertThat(new JwksSnapshot(file).load(), hasSize(1));
+        } finally {
+            server.stop();
+        }
+    }
+}
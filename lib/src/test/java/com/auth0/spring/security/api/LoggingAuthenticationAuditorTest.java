@@ -0,0 +1,32 @@
+package com.auth0.spring.security.api;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+public class LoggingAuthenticationAuditorTest {
+
+    @Test
+    public void shouldNotEscapePlainValue() throws Exception {
+        String value = "Not a valid token";
+
+        assertThat(LoggingAuthenticationAuditor.escape(value), is(sameInstance(value)));
+    }
+
+    @Test
+    public void shouldEscapeQuotesAndBackslashes() throws Exception {
+        assertThat(LoggingAuthenticationAuditor.escape("a\"b\\c"), is("a\\\"b\\\\c"));
+    }
+
+    @Test
+    public void shouldEscapeLineBreaks() throws Exception {
+        assertThat(LoggingAuthenticationAuditor.escape("line\r\nevent=authentication outcome=success"),
+                is("line\\r\\nevent=authentication outcome=success"));
+    }
+
+    @Test
+    public void shouldEscapeNullAsEmptyValue() throws Exception {
+        assertThat(LoggingAuthenticationAuditor.escape(null), is(""));
+    }
+}
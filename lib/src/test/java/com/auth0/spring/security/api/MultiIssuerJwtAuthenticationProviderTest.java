@@ -0,0 +1,193 @@
+package com.auth0.spring.security.api;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.spring.security.api.authentication.PreAuthenticatedAuthenticationJsonWebToken;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class MultiIssuerJwtAuthenticationProviderTest {
+
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+
+    @Test
+    public void shouldThrowOnNullResolver() throws Exception {
+        exception.expect(IllegalArgumentException.class);
+        exception.expectMessage("A non-null resolver is required");
+        new MultiIssuerJwtAuthenticationProvider(null);
+    }
+
+    @Test
+    public void shouldThrowOnNullIssuers() throws Exception {
+        exception.expect(IllegalArgumentException.class);
+        exception.expectMessage("A non-null collection of issuers is required");
+        MultiIssuerJwtAuthenticationProvider.forRS256(null, "audience");
+    }
+
+    @Test
+    public void shouldNotSupportOtherAuthentications() throws Exception {
+        MultiIssuerJwtAuthenticationProvider provider = new MultiIssuerJwtAuthenticationProvider(secretResolver());
+
+        assertThat(provider.supports(PreAuthenticatedAuthenticationJsonWebToken.class), is(true));
+        assertThat(provider.supports(UsernamePasswordAuthenticationToken.class), is(false));
+        assertThat(provider.authenticate(new UsernamePasswordAuthenticationToken("user", "pass")), is(nullValue()));
+    }
+
+    @Test
+    public void shouldAuthenticateWithProviderOfTokenIssuer() throws Exception {
+        MultiIssuerJwtAuthenticationProvider provider = new MultiIssuerJwtAuthenticationProvider(secretResolver());
+
+        Authentication first = provider.authenticate(tokenOf("tenant-1", "tenant-1-secret"));
+        Authentication second = provider.authenticate(tokenOf("tenant-2", "tenant-2-secret"));
+
+        assertThat(first.isAuthenticated(), is(true));
+        assertThat(second.isAuthenticated(), is(true));
+        assertThat(provider.size(), is(2L));
+    }
+
+    @Test
+    public void shouldFailWithSecretOfOtherIssuer() throws Exception {
+        MultiIssuerJwtAuthenticationProvider provider = new MultiIssuerJwtAuthenticationProvider(secretResolver());
+
+        exception.expect(BadCredentialsException.class);
+        exception.expectMessage("Not a valid token");
+        provider.authenticate(tokenOf("tenant-1", "tenant-2-secret"));
+    }
+
+    @Test
+    public void shouldResolveEachIssuerOnce() throws Exception {
+        IssuerResolver resolver = spy(secretResolver());
+        MultiIssuerJwtAuthenticationProvider provider = new MultiIssuerJwtAuthenticationProvider(resolver);
+
+        for (int i = 0; i < 5; i++) {
+            provider.authenticate(tokenOf("tenant-1", "tenant-1-secret"));
+        }
+
+        verify(resolver, times(1)).resolve("tenant-1");
+    }
+
+    @Test
+    public void shouldRejectTokenWithoutIssuer() throws Exception {
+        IssuerResolver resolver = mock(IssuerResolver.class);
+        MultiIssuerJwtAuthenticationProvider provider = new MultiIssuerJwtAuthenticationProvider(resolver);
+        String token = JWT.create()
+                .withAudience("audience")
+                .sign(Algorithm.HMAC256("secret"));
+
+        try {
+            provider.authenticate(PreAuthenticatedAuthenticationJsonWebToken.usingToken(token));
+            fail("Expected the token to be rejected");
+        } catch (BadCredentialsException e) {
+            assertThat(e.getMessage(), is("No issuer found in jwt"));
+        }
+        verifyZeroInteractions(resolver);
+    }
+
+    @Test
+    public void shouldRejectUnknownIssuerWithoutKeepingIt() throws Exception {
+        IssuerResolver resolver = spy(secretResolver());
+        MultiIssuerJwtAuthenticationProvider provider = new MultiIssuerJwtAuthenticationProvider(resolver);
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                provider.authenticate(tokenOf("unknown", "secret"));
+                fail("Expected the token to be rejected");
+            } catch (BadCredentialsException e) {
+                assertThat(e.getMessage(), is("Unknown issuer found in jwt"));
+            }
+        }
+        assertThat(provider.size(), is(0L));
+        verify(resolver, times(2)).resolve("unknown");
+    }
+
+    @Test
+    public void shouldFailWhenResolverFails() throws Exception {
+        IssuerResolver resolver = mock(IssuerResolver.class);
+        when(resolver.resolve(anyString())).thenThrow(new IllegalStateException("Failure"));
+        MultiIssuerJwtAuthenticationProvider provider = new MultiIssuerJwtAuthenticationProvider(resolver);
+
+        exception.expect(AuthenticationServiceException.class);
+        exception.expectMessage("Cannot create the provider for the issuer");
+        provider.authenticate(tokenOf("tenant-1", "tenant-1-secret"));
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedIssuer() throws Exception {
+        IssuerResolver resolver = spy(secretResolver());
+        MultiIssuerJwtAuthenticationProvider provider = new MultiIssuerJwtAuthenticationProvider(resolver, 1, 1, TimeUnit.HOURS);
+
+        provider.authenticate(tokenOf("tenant-1", "tenant-1-secret"));
+        provider.authenticate(tokenOf("tenant-2", "tenant-2-secret"));
+        provider.authenticate(tokenOf("tenant-1", "tenant-1-secret"));
+
+        assertThat(provider.size(), is(1L));
+        verify(resolver, times(2)).resolve("tenant-1");
+    }
+
+    @Test
+    public void shouldEvictIdleIssuer() throws Exception {
+        IssuerResolver resolver = spy(secretResolver());
+        MultiIssuerJwtAuthenticationProvider provider = new MultiIssuerJwtAuthenticationProvider(resolver, 10, 50, TimeUnit.MILLISECONDS);
+
+        provider.authenticate(tokenOf("tenant-1", "tenant-1-secret"));
+        Thread.sleep(100);
+        provider.authenticate(tokenOf("tenant-1", "tenant-1-secret"));
+
+        verify(resolver, times(2)).resolve("tenant-1");
+    }
+
+    @Test
+    public void shouldRejectIssuerNotAcceptedForRS256() throws Exception {
+        MultiIssuerJwtAuthenticationProvider provider = MultiIssuerJwtAuthenticationProvider.forRS256(Arrays.asList("https://tenant-1/", "https://tenant-2/"), "audience");
+
+        exception.expect(BadCredentialsException.class);
+        exception.expectMessage("Unknown issuer found in jwt");
+        provider.authenticate(tokenOf("https://tenant-3/", "secret"));
+    }
+
+    @Test
+    public void shouldCreateConfigurerForManyIssuers() throws Exception {
+        JwtWebSecurityConfigurer configurer = JwtWebSecurityConfigurer.forRS256("audience", Collections.singletonList("https://tenant-1/"));
+
+        assertThat(configurer.audience, is("audience"));
+        assertThat(configurer.provider, is(instanceOf(MultiIssuerJwtAuthenticationProvider.class)));
+    }
+
+    private static Authentication tokenOf(String issuer, String secret) throws Exception {
+        String token = JWT.create()
+                .withAudience("audience")
+                .withIssuer(issuer)
+                .sign(Algorithm.HMAC256(secret));
+        return PreAuthenticatedAuthenticationJsonWebToken.usingToken(token);
+    }
+
+    private static IssuerResolver secretResolver() {
+        return new SecretIssuerResolver();
+    }
+
+    static class SecretIssuerResolver implements IssuerResolver {
+        @Override
+        public JwtAuthenticationProvider resolve(String issuer) {
+            if (!issuer.startsWith("tenant-")) {
+                return null;
+            }
+            return new JwtAuthenticationProvider((issuer + "-secret").getBytes(), issuer, "audience");
+        }
+    }
+}
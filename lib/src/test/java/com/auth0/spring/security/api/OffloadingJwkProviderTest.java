@@ -0,0 +1,169 @@
+package com.auth0.spring.security.api;
+
+import com.auth0.jwk.Jwk;
+import com.auth0.jwk.JwkException;
+import com.auth0.jwk.JwkProvider;
+import com.google.common.util.concurrent.ListenableFuture;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class OffloadingJwkProviderTest {
+
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+    private OffloadingJwkProvider provider;
+
+    @After
+    public void tearDown() throws Exception {
+        if (provider != null) {
+            provider.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldThrowOnNullProvider() throws Exception {
+        exception.expect(IllegalArgumentException.class);
+        exception.expectMessage("A non-null provider is required");
+        new OffloadingJwkProvider(null, Executors.newSingleThreadExecutor());
+    }
+
+    @Test
+    public void shouldThrowOnNullExecutor() throws Exception {
+        exception.expect(IllegalArgumentException.class);
+        exception.expectMessage("A non-null executor is required");
+        new OffloadingJwkProvider(mock(JwkProvider.class), null);
+    }
+
+    @Test
+    public void shouldThrowOnInvalidThreads() throws Exception {
+        exception.expect(IllegalArgumentException.class);
+        exception.expectMessage("The number of threads must be positive");
+        OffloadingJwkProvider.withBoundedExecutor(mock(JwkProvider.class), 0, 1);
+    }
+
+    @Test
+    public void shouldThrowOnInvalidMaxPending() throws Exception {
+        exception.expect(IllegalArgumentException.class);
+        exception.expectMessage("The number of pending lookups must be positive");
+        OffloadingJwkProvider.withBoundedExecutor(mock(JwkProvider.class), 1, 0);
+    }
+
+    @Test
+    public void shouldObtainKeyOnExecutor() throws Exception {
+        JwkProvider delegate = mock(JwkProvider.class);
+        final Jwk jwk = mock(Jwk.class);
+        final Thread caller = Thread.currentThread();
+        final Thread[] lookupThread = new Thread[1];
+        when(delegate.get("key-id")).thenAnswer(new Answer<Jwk>() {
+            @Override
+            public Jwk answer(InvocationOnMock invocation) throws Throwable {
+                lookupThread[0] = Thread.currentThread();
+                return jwk;
+            }
+        });
+        provider = OffloadingJwkProvider.withBoundedExecutor(delegate, 1, 10);
+
+        assertThat(provider.getAsync("key-id").get(5, TimeUnit.SECONDS), is(jwk));
+
+        assertThat(lookupThread[0], is(notNullValue()));
+        assertThat(lookupThread[0], is(not(caller)));
+        assertThat(lookupThread[0].getName(), startsWith("jwks-lookup-"));
+    }
+
+    @Test
+    public void shouldReturnRecentlyObtainedKeyWithoutLookup() throws Exception {
+        JwkProvider delegate = mock(JwkProvider.class);
+        Jwk jwk = mock(Jwk.class);
+        when(delegate.get("key-id")).thenReturn(jwk);
+        provider = OffloadingJwkProvider.withBoundedExecutor(delegate, 1, 10);
+
+        assertThat(provider.getAsync("key-id").get(5, TimeUnit.SECONDS), is(jwk));
+        ListenableFuture<Jwk> second = provider.getAsync("key-id");
+
+        assertThat(second.isDone(), is(true));
+        assertThat(second.get(), is(jwk));
+        verify(delegate, times(1)).get("key-id");
+    }
+
+    @Test
+    public void shouldShareLookupInProgress() throws Exception {
+        JwkProvider delegate = mock(JwkProvider.class);
+        final Jwk jwk = mock(Jwk.class);
+        final CountDownLatch release = new CountDownLatch(1);
+        when(delegate.get("key-id")).thenAnswer(new Answer<Jwk>() {
+            @Override
+            public Jwk answer(InvocationOnMock invocation) throws Throwable {
+                release.await(5, TimeUnit.SECONDS);
+                return jwk;
+            }
+        });
+        provider = OffloadingJwkProvider.withBoundedExecutor(delegate, 2, 10);
+
+        ListenableFuture<Jwk> first = provider.getAsync("key-id");
+        ListenableFuture<Jwk> second = provider.getAsync("key-id");
+        release.countDown();
+
+        assertThat(second, is(sameInstance(first)));
+        assertThat(first.get(5, TimeUnit.SECONDS), is(jwk));
+        verify(delegate, times(1)).get("key-id");
+    }
+
+    @Test
+    public void shouldFailWithProviderException() throws Exception {
+        JwkProvider delegate = mock(JwkProvider.class);
+        JwkException failure = new JwkException("Failure");
+        when(delegate.get("key-id")).thenThrow(failure);
+        provider = OffloadingJwkProvider.withBoundedExecutor(delegate, 1, 10);
+
+        try {
+            provider.getAsync("key-id").get(5, TimeUnit.SECONDS);
+            fail("Expected the lookup to fail");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), is((Throwable) failure));
+        }
+    }
+
+    @Test
+    public void shouldCancelLookupWhenExecutorIsFull() throws Exception {
+        JwkProvider delegate = mock(JwkProvider.class);
+        final CountDownLatch release = new CountDownLatch(1);
+        when(delegate.get(anyString())).thenAnswer(new Answer<Jwk>() {
+            @Override
+            public Jwk answer(InvocationOnMock invocation) throws Throwable {
+                release.await(5, TimeUnit.SECONDS);
+                return mock(Jwk.class);
+            }
+        });
+        provider = OffloadingJwkProvider.withBoundedExecutor(delegate, 1, 1);
+
+        provider.getAsync("key-1");
+        provider.getAsync("key-2");
+        ListenableFuture<Jwk> rejected = provider.getAsync("key-3");
+        release.countDown();
+
+        try {
+            rejected.get(5, TimeUnit.SECONDS);
+            fail("Expected the lookup to be rejected");
+        } catch (CancellationException ignored) {
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.auth0.spring.security.api;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class PublicPathsTest {
+
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+
+    @Test
+    public void shouldThrowOnEmptyPaths() throws Exception {
+        exception.expect(IllegalArgumentException.class);
+        exception.expectMessage("At least one path is required");
+        new PublicPaths(Collections.<String>emptyList());
+    }
+
+    @Test
+    public void shouldThrowOnRelativePath() throws Exception {
+        exception.expect(IllegalArgumentException.class);
+        exception.expectMessage("The path health must start with /");
+        PublicPaths.of("health");
+    }
+
+    @Test
+    public void shouldThrowOnUnsupportedWildcard() throws Exception {
+        exception.expect(IllegalArgumentException.class);
+        exception.expectMessage("The path /static/*.js must be exact or end with /**");
+        PublicPaths.of("/static/*.js");
+    }
+
+    @Test
+    public void shouldMatchExactPaths() throws Exception {
+        PublicPaths paths = PublicPaths.of("/health", "/healthz", "/info");
+
+        assertThat(paths.matches("/health", null), is(true));
+        assertThat(paths.matches("/healthz", null), is(true));
+        assertThat(paths.matches("/info", null), is(true));
+        assertThat(paths.matches("/heal", null), is(false));
+        assertThat(paths.matches("/health/", null), is(false));
+        assertThat(paths.matches("/health/details", null), is(false));
+        assertThat(paths.matches("/api", null), is(false));
+        assertThat(paths.matches("", null), is(false));
+    }
+
+    @Test
+    public void shouldMatchPrefixes() throws Exception {
+        PublicPaths paths = PublicPaths.of("/static/**", "/health");
+
+        assertThat(paths.matches("/static", null), is(true));
+        assertThat(paths.matches("/static/", null), is(true));
+        assertThat(paths.matches("/static/js/app.js", null), is(true));
+        assertThat(paths.matches("/statics", null), is(false));
+        assertThat(paths.matches("/stat", null), is(false));
+    }
+
+    @Test
+    public void shouldMatchEverythingWithRootPrefix() throws Exception {
+        PublicPaths paths = PublicPaths.of("/**");
+
+        assertThat(paths.matches("/", null), is(true));
+        assertThat(paths.matches("/anything/else", null), is(true));
+    }
+
+    @Test
+    public void shouldMatchServletPathFollowedByPathInfo() throws Exception {
+        PublicPaths paths = PublicPaths.of("/app/health", "/app/static/**");
+
+        assertThat(paths.matches("/app", "/health"), is(true));
+        assertThat(paths.matches("/app", "/static/app.js"), is(true));
+        assertThat(paths.matches("/app", "/messages"), is(false));
+        assertThat(paths.matches("/app", null), is(false));
+    }
+
+    @Test
+    public void shouldMatchRequest() throws Exception {
+        PublicPaths paths = PublicPaths.of("/health");
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getServletPath()).thenReturn("/health");
+
+        assertThat(paths.matches(request), is(true));
+    }
+}
@@ -0,0 +1,416 @@
+package com.auth0.spring.security.api;
+
+import com.auth0.jwk.Jwk;
+import com.auth0.jwk.SigningKeyNotFoundException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.KeyPair;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.auth0.spring.security.api.JwksTestUtils.*;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class RefreshingJwkProviderTest {
+
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    private StubHttpServer server;
+    private RefreshingJwkProvider provider;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new StubHttpServer();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (provider != null) {
+            provider.stop();
+        }
+        server.stop();
+    }
+
+    @Test
+    public void shouldThrowOnNullFetcher() throws Exception {
+        exception.expect(IllegalArgumentException.class);
+        exception.expectMessage("A non-null fetcher is required");
+        new RefreshingJwkProvider(null, 1, TimeUnit.MINUTES);
+    }
+
+    @Test
+    public void shouldThrowOnInvalidRefreshInterval() throws Exception {
+        exception.expect(IllegalArgumentException.class);
+        exception.expectMessage("The refresh interval must be positive");
+        new RefreshingJwkProvider(JwksFetcher.forIssuer(server.getUrl()), 0, TimeUnit.MINUTES);
+    }
+
+    @Test
+    public void shouldPrefetchKeysOnStart() throws Exception {
+        KeyPair keyPair = RSAKeyPair();
+        server.respond(200, jwks(rsaJwk("key-id", keyPair)));
+
+        provider = new RefreshingJwkProvider(JwksFetcher.forIssuer(server.getUrl()), 1, TimeUnit.HOURS).start();
+        assertThat(server.getRequestCount(), is(1));
+
+        Jwk jwk = provider.get("key-id");
+        assertThat(jwk.getPublicKey(), is(keyPair.getPublic()));
+        assertThat(provider.get("key-id"), is(sameInstance(jwk)));
+        assertThat(server.getRequestCount(), is(1));
+    }
+
+    @Test
+    public void shouldStartEvenIfPrefetchFails() throws Exception {
+        server.respond(500, "{}");
+
+        provider = new RefreshingJwkProvider(JwksFetcher.forIssuer(server.getUrl()), 1, TimeUnit.HOURS).start();
+
+        KeyPair keyPair = RSAKeyPair();
+        server.respond(200, jwks(rsaJwk("key-id", keyPair)));
+        assertThat(provider.get("key-id").getPublicKey(), is(keyPair.getPublic()));
+    }
+
+    @Test
+    public void shouldRefreshKeysInBackground() throws Exception {
+        KeyPair keyPair1 = RSAKeyPair();
+        KeyPair keyPair2 = RSAKeyPair();
+        server.respond(200, jwks(rsaJwk("key-1", keyPair1)));
+        provider = new RefreshingJwkProvider(JwksFetcher.forIssuer(server.getUrl()), 50, TimeUnit.MILLISECONDS).start();
+
+        server.respond(200, jwks(rsaJwk("key-1", keyPair1), rsaJwk("key-2", keyPair2)));
+        int requests = server.getRequestCount();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (server.getRequestCount() < requests + 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertThat(server.getRequestCount(), is(greaterThanOrEqualTo(requests + 2)));
+        int beforeLookup = server.getRequestCount();
+        provider.stop();
+        assertThat(provider.get("key-2").getPublicKey(), is(keyPair2.getPublic()));
+        assertThat(server.getRequestCount(), is(beforeLookup));
+    }
+
+    @Test
+    public void shouldKeepInstanceOfUnchangedKeysOnRefresh() throws Exception {
+        KeyPair keyPair = RSAKeyPair();
+        server.respond(200, jwks(rsaJwk("key-id", keyPair)));
+        provider = new RefreshingJwkProvider(JwksFetcher.forIssuer(server.getUrl()), 1, TimeUnit.HOURS).start();
+        Jwk jwk = provider.get("key-id");
+
+        provider.refresh();
+
+        assertThat(provider.get("key-id"), is(sameInstance(jwk)));
+    }
+
+    @Test
+    public void shouldKeepPreviousKeysIfRefreshFails() throws Exception {
+        KeyPair keyPair = RSAKeyPair();
+        server.respond(200, jwks(rsaJwk("key-id", keyPair)));
+        provider = new RefreshingJwkProvider(JwksFetcher.forIssuer(server.getUrl()), 1, TimeUnit.HOURS).start();
+        server.respond(500, "{}");
+
+        try {
+            provider.refresh();
+        } catch (SigningKeyNotFoundException ignored) {
+        }
+
+        assertThat(provider.get("key-id").getPublicKey(), is(keyPair.getPublic()));
+    }
+
+    @Test
+    public void shouldRefreshOnUnknownKeyId() throws Exception {
+        KeyPair keyPair1 = RSAKeyPair();
+        KeyPair keyPair2 = RSAKeyPair();
+        server.respond(200, jwks(rsaJwk("key-1", keyPair1)));
+        provider = new RefreshingJwkProvider(JwksFetcher.forIssuer(server.getUrl()), 1, TimeUnit.HOURS).start();
+        server.respond(200, jwks(rsaJwk("key-1", keyPair1), rsaJwk("key-2", keyPair2)));
+
+        assertThat(provider.get("key-2").getPublicKey(), is(keyPair2.getPublic()));
+        assertThat(server.getRequestCount(), is(2));
+    }
+
+    @Test
+    public void shouldFailOnKeyIdNotInJwks() throws Exception {
+        server.respond(200, jwks(rsaJwk("key-1", RSAKeyPair())));
+        provider = new RefreshingJwkProvider(JwksFetcher.forIssuer(server.getUrl()), 1, TimeUnit.HOURS).start();
+
+        exception.expect(SigningKeyNotFoundException.class);
+        exception.expectMessage(containsString("with kid key-2"));
+        provider.get("key-2");
+    }
+
+    @Test
+    public void shouldRefreshOnceForConcurrentLookupsOfNewKeyId() throws Exception {
+        KeyPair keyPair1 = RSAKeyPair();
+        KeyPair keyPair2 = RSAKeyPair();
+        server.respond(200, jwks(rsaJwk("key-1", keyPair1)));
+        provider = new RefreshingJwkProvider(JwksFetcher.forIssuer(server.getUrl()), 1, TimeUnit.HOURS).start();
+        server.respond(200, jwks(rsaJwk("key-1", keyPair1), rsaJwk("key-2", keyPair2)));
+        server.delay(200);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Jwk>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(executor.submit(new Callable<Jwk>() {
+                    @Override
+                    public Jwk call() throws Exception {
+                        return provider.get("key-2");
+                    }
+                }));
+            }
+            int resolved = 0;
+            for (Future<Jwk> result : results) {
+                try {
+                    assertThat(result.get(5, TimeUnit.SECONDS).getPublicKey(), is(keyPair2.getPublic()));
+                    resolved++;
+                } catch (ExecutionException e) {
+                    assertThat(e.getCause(), is(instanceOf(KeyIdRejectedException.class)));
+                }
+            }
+            assertThat(resolved, is(greaterThanOrEqualTo(1)));
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(provider.get("key-2").getPublicKey(), is(keyPair2.getPublic()));
+        assertThat(server.getRequestCount(), is(2));
+    }
+
+    @Test
+    public void shouldRejectUnknownKeyIdWithoutWaitingForDownloadInProgress() throws Exception {
+        KeyPair keyPair1 = RSAKeyPair();
+        server.respond(200, jwks(rsaJwk("key-1", keyPair1)));
+        provider = new RefreshingJwkProvider(JwksFetcher.forIssuer(server.getUrl()), 1, TimeUnit.HOURS).start();
+        server.delay(1000);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.submit(new Callable<Jwk>() {
+                @Override
+                public Jwk call() throws Exception {
+                    return provider.get("key-2");
+                }
+            });
+            Thread.sleep(100);
+
+            final long start = System.nanoTime();
+            try {
+                provider.get("key-3");
+                fail("Expected the key to be rejected");
+            } catch (KeyIdRejectedException ignored) {
+            }
+            assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), is(lessThan(500L)));
+            assertThat(provider.get("key-1").getPublicKey(), is(keyPair1.getPublic()));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void shouldKeepKeysOfLatestDownloadWhenRefreshesOverlap() throws Exception {
+        KeyPair keyPair1 = RSAKeyPair();
+        KeyPair keyPair2 = RSAKeyPair();
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<String> responses = Collections.synchronizedList(new ArrayList<>(Arrays.asList(
+                jwks(rsaJwk("key-1", keyPair1)), jwks(rsaJwk("key-2", keyPair2)))));
+        JwksFetcher fetcher = new JwksFetcher(new URL(server.getUrl())) {
+            @Override
+            byte[] download() throws SigningKeyNotFoundException {
+                final String response = responses.size() > 1 ? responses.remove(0) : responses.get(0);
+                if (response.contains("key-1")) {
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return response.getBytes(StandardCharsets.UTF_8);
+            }
+        };
+        provider = new RefreshingJwkProvider(fetcher, 1, TimeUnit.HOURS);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> slow = executor.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    provider.refresh();
+                    return null;
+                }
+            });
+            while (responses.size() > 1) {
+                Thread.sleep(10);
+            }
+            provider.refresh();
+            release.countDown();
+            slow.get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        try {
+            provider.get("key-1");
+            fail("Expected the key of the older download to be discarded");
+        } catch (SigningKeyNotFoundException ignored) {
+        }
+        assertThat(provider.get("key-2").getPublicKey(), is(keyPair2.getPublic()));
+    }
+
+    @Test
+    public void shouldThrowOnNegativeMissingKeyRefreshInterval() throws Exception {
+        exception.expect(IllegalArgumentException.class);
+        exception.expectMessage("The missing key refresh interval cannot be negative");
+        new RefreshingJwkProvider(JwksFetcher.forIssuer(server.getUrl()), 1, TimeUnit.MINUTES)
+                .withMissingKeyRefreshInterval(-1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void shouldRejectUnknownKeyIdWithoutDownloadingKeysTooOften() throws Exception {
+        server.respond(200, jwks(rsaJwk("key-1", RSAKeyPair())));
+        provider = new RefreshingJwkProvider(JwksFetcher.forIssuer(server.getUrl()), 1, TimeUnit.HOURS).start();
+        try {
+            provider.get("key-2");
+            fail("Expected the key to be missing");
+        } catch (SigningKeyNotFoundException ignored) {
+        }
+        assertThat(server.getRequestCount(), is(2));
+
+        try {
+            provider.get("key-3");
+            fail("Expected the key to be rejected");
+        } catch (KeyIdRejectedException e) {
+            assertThat(e.getMessage(), is("No key found with kid key-3, keys were downloaded too recently to try again"));
+        }
+        assertThat(server.getRequestCount(), is(2));
+    }
+
+    @Test
+    public void shouldKeepDownloadFailureAsCauseOfRejectedKeyId() throws Exception {
+        server.respond(200, jwks(rsaJwk("key-1", RSAKeyPair())));
+        provider = new RefreshingJwkProvider(JwksFetcher.forIssuer(server.getUrl()), 1, TimeUnit.HOURS).start();
+        server.respond(503, "{}");
+        try {
+            provider.get("key-2");
+            fail("Expected the download to fail");
+        } catch (SigningKeyNotFoundException e) {
+            assertThat(JwksFetcher.isFetchFailure(e), is(true));
+        }
+
+        try {
+            provider.get("key-3");
+            fail("Expected the key to be rejected");
+        } catch (KeyIdRejectedException e) {
+            assertThat(e.getCause(), is(instanceOf(SigningKeyNotFoundException.class)));
+            assertThat(JwksFetcher.isFetchFailure(e), is(true));
+        }
+    }
+
+    @Test
+    public void shouldDownloadKeysAgainAfterMissingKeyRefreshInterval() throws Exception {
+        KeyPair keyPair = RSAKeyPair();
+        server.respond(200, jwks(rsaJwk("key-1", RSAKeyPair())));
+        provider = new RefreshingJwkProvider(JwksFetcher.forIssuer(server.getUrl()), 1, TimeUnit.HOURS)
+                .withMissingKeyRefreshInterval(50, TimeUnit.MILLISECONDS)
+                .start();
+        try {
+            provider.get("key-2");
+            fail("Expected the key to be missing");
+        } catch (SigningKeyNotFoundException ignored) {
+        }
+        server.respond(200, jwks(rsaJwk("key-2", keyPair)));
+        Thread.sleep(100);
+
+        assertThat(provider.get("key-2").getPublicKey(), is(keyPair.getPublic()));
+        assertThat(server.getRequestCount(), is(3));
+    }
+
+    @Test
+    public void shouldSaveDownloadedKeysInSnapshot() throws Exception {
+        KeyPair keyPair = RSAKeyPair();
+        File file = new File(folder.getRoot(), "jwks.json");
+        server.respond(200, jwks(rsaJwk("key-id", keyPair)));
+
+        provider = new RefreshingJwkProvider(JwksFetcher.forIssuer(server.getUrl()), 1, TimeUnit.HOURS)
+                .withSnapshot(new JwksSnapshot(file))
+                .start();
+
+        assertThat(file.exists(), is(true));
+        assertThat(new JwksSnapshot(file).load().get(0).getPublicKey(), is(keyPair.getPublic()));
+    }
+
+    @Test
+    public void shouldStartFromSnapshotWhenIssuerIsUnreachable() throws Exception {
+        KeyPair keyPair = RSAKeyPair();
+        File file = new File(folder.getRoot(), "jwks.json");
+        new JwksSnapshot(file).save(jwks(rsaJwk("key-id", keyPair)).getBytes(StandardCharsets.UTF_8));
+        String url = server.getUrl();
+        server.stop();
+
+        provider = new RefreshingJwkProvider(JwksFetcher.forIssuer(url), 1, TimeUnit.HOURS)
+                .withSnapshot(new JwksSnapshot(file))
+                .start();
+
+        assertThat(provider.get("key-id").getPublicKey(), is(keyPair.getPublic()));
+    }
+
+    @Test
+    public void shouldRefreshInBackgroundAfterStartingFromSnapshot() throws Exception {
+        KeyPair keyPair1 = RSAKeyPair();
+        KeyPair keyPair2 = RSAKeyPair();
+        File file = new File(folder.getRoot(), "jwks.json");
+        new JwksSnapshot(file).save(jwks(rsaJwk("key-1", keyPair1)).getBytes(StandardCharsets.UTF_8));
+        server.respond(200, jwks(rsaJwk("key-1", keyPair1), rsaJwk("key-2", keyPair2)));
+
+        provider = new RefreshingJwkProvider(JwksFetcher.forIssuer(server.getUrl()), 1, TimeUnit.HOURS)
+                .withSnapshot(new JwksSnapshot(file))
+                .start();
+        assertThat(provider.get("key-1").getPublicKey(), is(keyPair1.getPublic()));
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (new JwksSnapshot(file).load().size() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        provider.stop();
+        assertThat(new JwksSnapshot(file).load(), hasSize(2));
+        assertThat(provider.get("key-2").getPublicKey(), is(keyPair2.getPublic()));
+        assertThat(server.getRequestCount(), is(1));
+    }
+
+    @Test
+    public void shouldDownloadKeysWhenSnapshotIsInvalid() throws Exception {
+        KeyPair keyPair = RSAKeyPair();
+        File file = new File(folder.getRoot(), "jwks.json");
+        Files.write(file.toPath(), "not json".getBytes(StandardCharsets.UTF_8));
+        server.respond(200, jwks(rsaJwk("key-id", keyPair)));
+
+        provider = new RefreshingJwkProvider(JwksFetcher.forIssuer(server.getUrl()), 1, TimeUnit.HOURS)
+                .withSnapshot(new JwksSnapshot(file))
+                .start();
+
+        assertThat(server.getRequestCount(), is(1));
+        assertThat(provider.get("key-id").getPublicKey(), is(keyPair.getPublic()));
+    }
+}
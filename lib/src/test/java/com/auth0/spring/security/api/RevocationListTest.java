@@ -0,0 +1,202 @@
+package com.auth0.spring.security.api;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.*;
+
+public class RevocationListTest {
+
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+
+    @Test
+    public void shouldThrowOnNonPositiveExpectedRevocations() throws Exception {
+        exception.expect(IllegalArgumentException.class);
+        exception.expectMessage("The expected number of revocations must be positive");
+        new RevocationList(0);
+    }
+
+    @Test
+    public void shouldThrowOnInvalidFalsePositiveProbability() throws Exception {
+        exception.expect(IllegalArgumentException.class);
+        exception.expectMessage("The false positive probability must be between 0 and 1");
+        new RevocationList(10, 1);
+    }
+
+    @Test
+    public void shouldNotRevokeAnyTokenByDefault() throws Exception {
+        RevocationList list = new RevocationList(10);
+
+        assertThat(list.isRevoked(token("id", "subject")), is(false));
+        assertThat(list.isRevoked(token(null, null)), is(false));
+    }
+
+    @Test
+    public void shouldRevokeTokenIds() throws Exception {
+        RevocationList list = new RevocationList(10);
+
+        list.revokeTokenIds(Collections.singleton("revoked-id"));
+
+        assertThat(list.isRevoked(token("revoked-id", "subject")), is(true));
+        assertThat(list.isRevoked(token("other-id", "subject")), is(false));
+        assertThat(list.getRevokedTokenIdCount(), is(1));
+    }
+
+    @Test
+    public void shouldRevokeSubjects() throws Exception {
+        RevocationList list = new RevocationList(10);
+
+        list.revokeSubjects(Collections.singleton("revoked-subject"));
+
+        assertThat(list.isRevoked(token("id", "revoked-subject")), is(true));
+        assertThat(list.isRevoked(token("id", "other-subject")), is(false));
+        assertThat(list.getRevokedSubjectCount(), is(1));
+    }
+
+    @Test
+    public void shouldNotMixTokenIdsAndSubjects() throws Exception {
+        RevocationList list = new RevocationList(10);
+
+        list.revokeTokenIds(Collections.singleton("value"));
+
+        assertThat(list.isRevoked(token("id", "value")), is(false));
+    }
+
+    @Test
+    public void shouldReinstateRevokedValues() throws Exception {
+        RevocationList list = new RevocationList(10);
+        list.revokeTokenIds(Arrays.asList("id-1", "id-2"));
+        list.revokeSubjects(Collections.singleton("subject"));
+
+        list.reinstateTokenIds(Collections.singleton("id-1"));
+        list.reinstateSubjects(Collections.singleton("subject"));
+
+        assertThat(list.isRevoked(token("id-1", null)), is(false));
+        assertThat(list.isRevoked(token("id-2", null)), is(true));
+        assertThat(list.isRevoked(token(null, "subject")), is(false));
+    }
+
+    @Test
+    public void shouldReplaceAllValues() throws Exception {
+        RevocationList list = new RevocationList(10);
+        list.revokeTokenIds(Arrays.asList("id-1", "id-2"));
+        list.revokeSubjects(Collections.singleton("subject-1"));
+
+        list.replaceAll(Arrays.asList("id-2", "id-3"), Collections.singleton("subject-2"));
+
+        assertThat(list.isRevoked(token("id-1", null)), is(false));
+        assertThat(list.isRevoked(token("id-2", null)), is(true));
+        assertThat(list.isRevoked(token("id-3", null)), is(true));
+        assertThat(list.isRevoked(token(null, "subject-1")), is(false));
+        assertThat(list.isRevoked(token(null, "subject-2")), is(true));
+        assertThat(list.getRevokedTokenIdCount(), is(2));
+    }
+
+    @Test
+    public void shouldGrowBeyondExpectedRevocations() throws Exception {
+        RevocationList list = new RevocationList(4);
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            ids.add("id-" + i);
+        }
+
+        list.revokeTokenIds(ids);
+
+        for (String id : ids) {
+            assertThat(list.isRevoked(token(id, null)), is(true));
+        }
+        assertThat(list.isRevoked(token("id-1000", null)), is(false));
+    }
+
+    @Test
+    public void shouldKeepRevokedValuesAfterManyReinstated() throws Exception {
+        RevocationList list = new RevocationList(4);
+        list.revokeTokenIds(Arrays.asList("a", "b", "c", "d"));
+
+        list.reinstateTokenIds(Arrays.asList("a", "b", "c"));
+        list.revokeTokenIds(Collections.singleton("e"));
+        list.reinstateTokenIds(Collections.singleton("e"));
+
+        assertThat(list.isRevoked(token("d", null)), is(true));
+        assertThat(list.isRevoked(token("a", null)), is(false));
+        assertThat(list.isRevoked(token("e", null)), is(false));
+    }
+
+    @Test
+    public void shouldThrowOnNullSource() throws Exception {
+        exception.expect(IllegalArgumentException.class);
+        exception.expectMessage("A non-null source is required");
+        new RevocationList(10).withSource(null, 1, TimeUnit.MINUTES);
+    }
+
+    @Test
+    public void shouldThrowOnNonPositiveRefreshInterval() throws Exception {
+        exception.expect(IllegalArgumentException.class);
+        exception.expectMessage("The refresh interval must be positive");
+        new RevocationList(10).withSource(mock(RevocationSource.class), 0, TimeUnit.MINUTES);
+    }
+
+    @Test
+    public void shouldNotStartWithoutSource() throws Exception {
+        exception.expect(IllegalStateException.class);
+        exception.expectMessage("A source is required to start the refresh");
+        new RevocationList(10).start();
+    }
+
+    @Test
+    public void shouldUpdateFromSourceOnStart() throws Exception {
+        RevocationSource source = mock(RevocationSource.class);
+        RevocationList list = new RevocationList(10).withSource(source, 1, TimeUnit.HOURS);
+        try {
+            list.start();
+            verify(source).update(list);
+        } finally {
+            list.stop();
+        }
+    }
+
+    @Test
+    public void shouldStartEvenIfSourceFails() throws Exception {
+        RevocationSource source = mock(RevocationSource.class);
+        RevocationList list = new RevocationList(10).withSource(source, 1, TimeUnit.HOURS);
+        doThrow(IOException.class).when(source).update(list);
+        try {
+            assertThat(list.start(), is(sameInstance(list)));
+        } finally {
+            list.stop();
+        }
+    }
+
+    @Test
+    public void shouldRefreshFromSourcePeriodically() throws Exception {
+        RevocationSource source = mock(RevocationSource.class);
+        RevocationList list = new RevocationList(10).withSource(source, 10, TimeUnit.MILLISECONDS);
+        try {
+            list.start();
+            verify(source, timeout(5000).atLeast(3)).update(list);
+        } finally {
+            list.stop();
+        }
+    }
+
+    private static DecodedJWT token(String id, String subject) throws Exception {
+        return JWT.decode(JWT.create()
+                .withJWTId(id)
+                .withSubject(subject)
+                .sign(Algorithm.HMAC256("secret")));
+    }
+}
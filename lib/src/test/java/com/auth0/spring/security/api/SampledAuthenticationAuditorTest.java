@@ -0,0 +1,104 @@
+package com.auth0.spring.security.api;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class SampledAuthenticationAuditorTest {
+
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+
+    @Test
+    public void shouldThrowOnNullAuditor() throws Exception {
+        exception.expect(IllegalArgumentException.class);
+        exception.expectMessage("A non-null auditor is required");
+        new SampledAuthenticationAuditor(null, 0.5);
+    }
+
+    @Test
+    public void shouldThrowOnRateAboveOne() throws Exception {
+        exception.expect(IllegalArgumentException.class);
+        exception.expectMessage("The sample rate must be between 0 and 1");
+        new SampledAuthenticationAuditor(mock(AuthenticationAuditor.class), 1.5);
+    }
+
+    @Test
+    public void shouldThrowOnNegativeRate() throws Exception {
+        exception.expect(IllegalArgumentException.class);
+        exception.expectMessage("The sample rate must be between 0 and 1");
+        new SampledAuthenticationAuditor(mock(AuthenticationAuditor.class), 1, -0.1);
+    }
+
+    @Test
+    public void shouldReportEveryOutcomeWithRateOne() throws Exception {
+        AuthenticationAuditor delegate = mock(AuthenticationAuditor.class);
+        SampledAuthenticationAuditor auditor = new SampledAuthenticationAuditor(delegate, 1);
+        Authentication authentication = mock(Authentication.class);
+        AuthenticationException failure = new BadCredentialsException("Not a valid token");
+
+        for (int i = 0; i < 100; i++) {
+            auditor.authenticated(authentication);
+            auditor.rejected(authentication, failure);
+        }
+
+        verify(delegate, times(100)).authenticated(authentication);
+        verify(delegate, times(100)).rejected(authentication, failure);
+    }
+
+    @Test
+    public void shouldNotReportAnyOutcomeWithRateZero() throws Exception {
+        AuthenticationAuditor delegate = mock(AuthenticationAuditor.class);
+        SampledAuthenticationAuditor auditor = new SampledAuthenticationAuditor(delegate, 0);
+        Authentication authentication = mock(Authentication.class);
+
+        for (int i = 0; i < 100; i++) {
+            auditor.authenticated(authentication);
+            auditor.rejected(authentication, new BadCredentialsException("Not a valid token"));
+        }
+
+        verifyZeroInteractions(delegate);
+    }
+
+    @Test
+    public void shouldSampleSuccessesAndFailuresSeparately() throws Exception {
+        AuthenticationAuditor delegate = mock(AuthenticationAuditor.class);
+        SampledAuthenticationAuditor auditor = new SampledAuthenticationAuditor(delegate, 0, 1);
+        Authentication authentication = mock(Authentication.class);
+
+        auditor.authenticated(authentication);
+        auditor.rejected(authentication, new BadCredentialsException("Not a valid token"));
+
+        verify(delegate, never()).authenticated(any(Authentication.class));
+        verify(delegate).rejected(eq(authentication), any(AuthenticationException.class));
+    }
+
+    @Test
+    public void shouldReportAFractionOfOutcomes() throws Exception {
+        final int[] reported = new int[1];
+        SampledAuthenticationAuditor auditor = new SampledAuthenticationAuditor(new AuthenticationAuditor() {
+            @Override
+            public void authenticated(Authentication authentication) {
+                reported[0]++;
+            }
+
+            @Override
+            public void rejected(Authentication authentication, AuthenticationException exception) {
+            }
+        }, 0.1);
+
+        for (int i = 0; i < 10000; i++) {
+            auditor.authenticated(null);
+        }
+
+        assertTrue("Reported " + reported[0], reported[0] > 500 && reported[0] < 1500);
+    }
+}
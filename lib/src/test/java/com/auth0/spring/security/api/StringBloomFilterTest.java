@@ -0,0 +1,46 @@
+package com.auth0.spring.security.api;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+public class StringBloomFilterTest {
+
+    @Test
+    public void shouldContainPutValues() throws Exception {
+        StringBloomFilter filter = new StringBloomFilter(1000, 0.01);
+        for (int i = 0; i < 1000; i++) {
+            filter.put("value-" + i);
+        }
+
+        for (int i = 0; i < 1000; i++) {
+            assertThat(filter.mightContain("value-" + i), is(true));
+        }
+    }
+
+    @Test
+    public void shouldKeepFalsePositivesNearExpectedProbability() throws Exception {
+        StringBloomFilter filter = new StringBloomFilter(1000, 0.01);
+        for (int i = 0; i < 1000; i++) {
+            filter.put("value-" + i);
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 10000; i++) {
+            if (filter.mightContain("other-" + i)) {
+                falsePositives++;
+            }
+        }
+
+        assertThat(falsePositives, is(lessThan(300)));
+    }
+
+    @Test
+    public void shouldNotContainAnythingWhenEmpty() throws Exception {
+        StringBloomFilter filter = new StringBloomFilter(10, 0.01);
+
+        assertThat(filter.mightContain(""), is(false));
+        assertThat(filter.mightContain("value"), is(false));
+    }
+}
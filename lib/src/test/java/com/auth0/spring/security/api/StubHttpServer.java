@@ -0,0 +1,97 @@
+package com.auth0.spring.security.api;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Scanner;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local HTTP server answering every request with a configurable response, used as stand-in for issuer endpoints.
+ */
+class StubHttpServer {
+
+    private final HttpServer server;
+    private final AtomicInteger requestCount = new AtomicInteger();
+    private volatile int status = 200;
+    private volatile String body = "";
+    private volatile long delayMillis;
+    private volatile String lastRequestBody;
+    private volatile String lastAuthorization;
+    private final Set<Integer> clientPorts = Collections.newSetFromMap(new ConcurrentHashMap<Integer, Boolean>());
+
+    StubHttpServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                requestCount.incrementAndGet();
+                clientPorts.add(exchange.getRemoteAddress().getPort());
+                lastAuthorization = exchange.getRequestHeaders().getFirst("Authorization");
+                try (InputStream requestBody = exchange.getRequestBody()) {
+                    Scanner scanner = new Scanner(requestBody, "UTF-8").useDelimiter("\\A");
+                    lastRequestBody = scanner.hasNext() ? scanner.next() : "";
+                }
+                if (delayMillis > 0) {
+                    try {
+                        Thread.sleep(delayMillis);
+                    } catch (InterruptedException ignored) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                byte[] response = body.getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.sendResponseHeaders(status, response.length);
+                try (OutputStream outputStream = exchange.getResponseBody()) {
+                    outputStream.write(response);
+                }
+            }
+        });
+        server.start();
+    }
+
+    void respond(int status, String body) {
+        this.status = status;
+        this.body = body;
+    }
+
+    void delay(long delayMillis) {
+        this.delayMillis = delayMillis;
+    }
+
+    int getRequestCount() {
+        return requestCount.get();
+    }
+
+    String getLastRequestBody() {
+        return lastRequestBody;
+    }
+
+    String getLastAuthorization() {
+        return lastAuthorization;
+    }
+
+    /**
+     * @return number of distinct connections the requests were received on
+     */
+    int getConnectionCount() {
+        return clientPorts.size();
+    }
+
+    String getUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    void stop() {
+        server.stop(0);
+    }
+}
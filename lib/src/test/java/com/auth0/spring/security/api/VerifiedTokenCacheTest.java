@@ -0,0 +1,179 @@
+package com.auth0.spring.security.api;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.interfaces.Clock;
+import com.auth0.spring.security.api.authentication.DecodedJwtVerifier;
+import com.auth0.spring.security.api.authentication.PreAuthenticatedAuthenticationJsonWebToken;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.security.core.Authentication;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class VerifiedTokenCacheTest {
+
+    private Algorithm hmacAlgorithm;
+    private DecodedJwtVerifier verifier;
+
+    @Before
+    public void setUp() throws Exception {
+        hmacAlgorithm = Algorithm.HMAC256("secret");
+        verifier = DecodedJwtVerifier.require(hmacAlgorithm).build();
+    }
+
+    @Test
+    public void shouldMissUnknownToken() throws Exception {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10, 1, TimeUnit.HOURS);
+
+        assertThat(cache.get("token"), is(nullValue()));
+        assertThat(cache.getHitCount(), is(0L));
+        assertThat(cache.getMissCount(), is(1L));
+    }
+
+    @Test
+    public void shouldReturnCachedAuthentication() throws Exception {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10, 1, TimeUnit.HOURS);
+        String token = JWT.create()
+                .withExpiresAt(new Date(System.currentTimeMillis() + 60 * 1000))
+                .sign(hmacAlgorithm);
+        Authentication authentication = verified(token);
+
+        cache.put(token, authentication);
+
+        assertThat(cache.get(token), is(sameInstance(authentication)));
+        assertThat(cache.getHitCount(), is(1L));
+        assertThat(cache.getMissCount(), is(0L));
+        assertThat(cache.size(), is(1L));
+    }
+
+    @Test
+    public void shouldNotCacheExpiredToken() throws Exception {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10, 1, TimeUnit.HOURS);
+        String token = JWT.create()
+                .withExpiresAt(new Date(System.currentTimeMillis() - 60 * 1000))
+                .sign(hmacAlgorithm);
+        Authentication authentication = mock(Authentication.class);
+        when(authentication.getDetails()).thenReturn(JWT.decode(token));
+        when(authentication.isAuthenticated()).thenReturn(true);
+
+        cache.put(token, authentication);
+
+        assertThat(cache.size(), is(0L));
+        assertThat(cache.get(token), is(nullValue()));
+    }
+
+    @Test
+    public void shouldNotReturnAuthenticationMarkedAsNotAuthenticated() throws Exception {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10, 1, TimeUnit.HOURS);
+        String token = JWT.create()
+                .sign(hmacAlgorithm);
+        Authentication authentication = verified(token);
+
+        cache.put(token, authentication);
+        authentication.setAuthenticated(false);
+
+        assertThat(cache.get(token), is(nullValue()));
+        assertThat(cache.size(), is(0L));
+    }
+
+    @Test
+    public void shouldNotMatchDifferentToken() throws Exception {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10, 1, TimeUnit.HOURS);
+        String token = JWT.create()
+                .withSubject("1")
+                .sign(hmacAlgorithm);
+        String other = JWT.create()
+                .withSubject("2")
+                .sign(hmacAlgorithm);
+
+        cache.put(token, verified(token));
+
+        assertThat(cache.get(other), is(nullValue()));
+    }
+
+    @Test
+    public void shouldBeBoundedInSize() throws Exception {
+        VerifiedTokenCache cache = new VerifiedTokenCache(2, 1, TimeUnit.HOURS);
+        for (int i = 0; i < 5; i++) {
+            String token = JWT.create()
+                    .withSubject(String.valueOf(i))
+                    .sign(hmacAlgorithm);
+            cache.put(token, verified(token));
+        }
+
+        assertThat(cache.size(), is(lessThanOrEqualTo(2L)));
+    }
+
+    @Test
+    public void shouldInvalidateAll() throws Exception {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10, 1, TimeUnit.HOURS);
+        String token = JWT.create()
+                .sign(hmacAlgorithm);
+        cache.put(token, verified(token));
+
+        cache.invalidateAll();
+
+        assertThat(cache.get(token), is(nullValue()));
+    }
+
+    @Test
+    public void shouldExpireTokensAccordingToClock() throws Exception {
+        MutableClock clock = new MutableClock(1500000000000L);
+        VerifiedTokenCache cache = new VerifiedTokenCache(10, 1, TimeUnit.HOURS, clock);
+        String token = JWT.create()
+                .withExpiresAt(new Date(clock.now + 60 * 1000))
+                .sign(hmacAlgorithm);
+        cache.put(token, verified(token, clock));
+
+        clock.now += 59 * 1000;
+        assertThat(cache.get(token), is(notNullValue()));
+
+        clock.now += 1000;
+        assertThat(cache.get(token), is(nullValue()));
+    }
+
+    @Test
+    public void shouldExpireTokensAfterMaxAgeAccordingToClock() throws Exception {
+        MutableClock clock = new MutableClock(1500000000000L);
+        VerifiedTokenCache cache = new VerifiedTokenCache(10, 1, TimeUnit.MINUTES, clock);
+        String token = JWT.create()
+                .sign(hmacAlgorithm);
+        cache.put(token, verified(token, clock));
+
+        clock.now += 2 * 60 * 1000;
+
+        assertThat(cache.get(token), is(nullValue()));
+        assertThat(cache.size(), is(0L));
+    }
+
+    private Authentication verified(String token) throws Exception {
+        return PreAuthenticatedAuthenticationJsonWebToken.usingToken(token).verify(verifier);
+    }
+
+    private Authentication verified(String token, Clock clock) throws Exception {
+        DecodedJwtVerifier verifier = DecodedJwtVerifier.require(hmacAlgorithm)
+                .withClock(clock)
+                .build();
+        return PreAuthenticatedAuthenticationJsonWebToken.usingToken(token).verify(verifier);
+    }
+
+    private static class MutableClock implements Clock {
+        private long now;
+
+        MutableClock(long now) {
+            this.now = now;
+        }
+
+        @Override
+        public Date getToday() {
+            return new Date(now);
+        }
+    }
+}
@@ -12,9 +12,11 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Map;
 
@@ -95,6 +97,37 @@ public class AuthenticationJsonWebTokenTest {
         assertThat(auth.getKeyId(), is(nullValue()));
     }
 
+    @Test
+    public void shouldGetIssuer() throws Exception {
+        String token = JWT.create()
+                .withIssuer("auth0")
+                .sign(hmacAlgorithm);
+
+        AuthenticationJsonWebToken auth = new AuthenticationJsonWebToken(token, verifier);
+        assertThat(auth, is(notNullValue()));
+        assertThat(auth.getIssuer(), is("auth0"));
+    }
+
+    @Test
+    public void shouldGetNullIssuerOnMissingIssuerClaim() throws Exception {
+        String token = JWT.create()
+                .sign(hmacAlgorithm);
+
+        AuthenticationJsonWebToken auth = new AuthenticationJsonWebToken(token, verifier);
+        assertThat(auth, is(notNullValue()));
+        assertThat(auth.getIssuer(), is(nullValue()));
+    }
+
+    @Test
+    public void shouldGetAlgorithm() throws Exception {
+        String token = JWT.create()
+                .sign(hmacAlgorithm);
+
+        AuthenticationJsonWebToken auth = new AuthenticationJsonWebToken(token, verifier);
+        assertThat(auth, is(notNullValue()));
+        assertThat(auth.getAlgorithm(), is("HS256"));
+    }
+
     @Test
     public void shouldGetStringToken() throws Exception {
         String token = JWT.create()
@@ -217,4 +250,74 @@ public class AuthenticationJsonWebTokenTest {
         assertThat(authorities.get(1), is(notNullValue()));
         assertThat(authorities.get(1).getAuthority(), is("auth10"));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldVerifyAgainDecodedToken() throws Exception {
+        String token = JWT.create()
+                .withSubject("1234567890")
+                .sign(hmacAlgorithm);
+
+        AuthenticationJsonWebToken auth = new AuthenticationJsonWebToken(token, null);
+        assertThat(auth.isAuthenticated(), is(false));
+
+        DecodedJwtVerifier decodedVerifier = DecodedJwtVerifier.require(hmacAlgorithm).build();
+        Authentication verified = auth.verify(decodedVerifier);
+        assertThat(verified, is(instanceOf(AuthenticationJsonWebToken.class)));
+        assertThat(verified.isAuthenticated(), is(true));
+        assertThat(verified.getDetails(), is(sameInstance(auth.getDetails())));
+    }
+
+    @Test
+    public void shouldIgnoreRepeatedSpacesInScopeClaim() throws Exception {
+        String token = JWT.create()
+                .withClaim("scope", " auth0   auth10 ")
+                .sign(hmacAlgorithm);
+
+        AuthenticationJsonWebToken auth = new AuthenticationJsonWebToken(token, verifier);
+        ArrayList<GrantedAuthority> authorities = new ArrayList<>(auth.getAuthorities());
+        assertThat(authorities, is(IsCollectionWithSize.hasSize(2)));
+        assertThat(authorities.get(0).getAuthority(), is("auth0"));
+        assertThat(authorities.get(1).getAuthority(), is("auth10"));
+    }
+
+    @Test
+    public void shouldComputeAuthoritiesOnlyOnce() throws Exception {
+        String token = JWT.create()
+                .withClaim("scope", "auth0 auth10")
+                .sign(hmacAlgorithm);
+
+        AuthenticationJsonWebToken auth = new AuthenticationJsonWebToken(token, verifier);
+        Object authorities = auth.getAuthorities();
+        assertThat(auth.getAuthorities(), is(sameInstance(authorities)));
+    }
+
+    @Test
+    public void shouldNotAllowToModifyAuthorities() throws Exception {
+        String token = JWT.create()
+                .withClaim("scope", "auth0 auth10")
+                .sign(hmacAlgorithm);
+
+        AuthenticationJsonWebToken auth = new AuthenticationJsonWebToken(token, verifier);
+        @SuppressWarnings("unchecked")
+        Collection<GrantedAuthority> authorities = (Collection<GrantedAuthority>) auth.getAuthorities();
+
+        exception.expect(UnsupportedOperationException.class);
+        authorities.clear();
+    }
+
+    @Test
+    public void shouldShareAuthoritiesBetweenTokensWithSameScope() throws Exception {
+        String token1 = JWT.create()
+                .withSubject("1")
+                .withClaim("scope", "read:users")
+                .sign(hmacAlgorithm);
+        String token2 = JWT.create()
+                .withSubject("2")
+                .withClaim("scope", "read:users write:users")
+                .sign(hmacAlgorithm);
+
+        GrantedAuthority authority1 = new AuthenticationJsonWebToken(token1, verifier).getAuthorities().iterator().next();
+        GrantedAuthority authority2 = new AuthenticationJsonWebToken(token2, verifier).getAuthorities().iterator().next();
+        assertThat(authority1, is(sameInstance(authority2)));
+    }
+}
@@ -0,0 +1,96 @@
+package com.auth0.spring.security.api.authentication;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import org.hamcrest.collection.IsEmptyCollection;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class ClaimAuthoritiesExtractorTest {
+
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+    private Algorithm hmacAlgorithm;
+
+    @Before
+    public void setUp() throws Exception {
+        hmacAlgorithm = Algorithm.HMAC256("secret");
+    }
+
+    @Test
+    public void shouldThrowOnNullClaimName() throws Exception {
+        exception.expect(IllegalArgumentException.class);
+        exception.expectMessage("The claim name cannot be null");
+        new ClaimAuthoritiesExtractor(null);
+    }
+
+    @Test
+    public void shouldThrowOnNullRegistry() throws Exception {
+        exception.expect(IllegalArgumentException.class);
+        exception.expectMessage("The registry cannot be null");
+        new ClaimAuthoritiesExtractor("scope", null);
+    }
+
+    @Test
+    public void shouldExtractSpaceSeparatedClaim() throws Exception {
+        String token = JWT.create()
+                .withClaim("scope", "read:users  write:users")
+                .sign(hmacAlgorithm);
+
+        List<GrantedAuthority> authorities = new ArrayList<>(ClaimAuthoritiesExtractor.scope().extract(JWT.decode(token)));
+        assertThat(authorities, hasSize(2));
+        assertThat(authorities.get(0).getAuthority(), is("read:users"));
+        assertThat(authorities.get(1).getAuthority(), is("write:users"));
+    }
+
+    @Test
+    public void shouldExtractArrayClaim() throws Exception {
+        String token = JWT.create()
+                .withArrayClaim("permissions", new String[]{"read:orders", "write:orders"})
+                .sign(hmacAlgorithm);
+
+        ClaimAuthoritiesExtractor extractor = new ClaimAuthoritiesExtractor("permissions");
+        List<GrantedAuthority> authorities = new ArrayList<>(extractor.extract(JWT.decode(token)));
+        assertThat(authorities, hasSize(2));
+        assertThat(authorities.get(0).getAuthority(), is("read:orders"));
+        assertThat(authorities.get(1).getAuthority(), is("write:orders"));
+    }
+
+    @Test
+    public void shouldExtractEmptyAuthoritiesOnMissingClaim() throws Exception {
+        String token = JWT.create()
+                .sign(hmacAlgorithm);
+
+        assertThat(new ClaimAuthoritiesExtractor("permissions").extract(JWT.decode(token)), is(IsEmptyCollection.empty()));
+    }
+
+    @Test
+    public void shouldExtractEmptyAuthoritiesOnBlankClaim() throws Exception {
+        String token = JWT.create()
+                .withClaim("scope", "  ")
+                .sign(hmacAlgorithm);
+
+        assertThat(ClaimAuthoritiesExtractor.scope().extract(JWT.decode(token)), is(IsEmptyCollection.empty()));
+    }
+
+    @Test
+    public void shouldUseAuthoritiesFromRegistry() throws Exception {
+        GrantedAuthorityRegistry registry = new GrantedAuthorityRegistry(10);
+        GrantedAuthority authority = registry.authorityFor("read:orders");
+        String token = JWT.create()
+                .withClaim("scope", "read:orders")
+                .sign(hmacAlgorithm);
+
+        ClaimAuthoritiesExtractor extractor = new ClaimAuthoritiesExtractor("scope", registry);
+        assertThat(extractor.extract(JWT.decode(token)).iterator().next(), is(sameInstance(authority)));
+    }
+}
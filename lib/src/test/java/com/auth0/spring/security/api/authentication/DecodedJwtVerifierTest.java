@@ -0,0 +1,426 @@
+package com.auth0.spring.security.api.authentication;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.AlgorithmMismatchException;
+import com.auth0.jwt.exceptions.InvalidClaimException;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.exceptions.SignatureVerificationException;
+import com.auth0.jwt.interfaces.Clock;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+public class DecodedJwtVerifierTest {
+
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+    private Algorithm hmacAlgorithm;
+    private DecodedJwtVerifier verifier;
+
+    @Before
+    public void setUp() throws Exception {
+        hmacAlgorithm = Algorithm.HMAC256("secret");
+        verifier = DecodedJwtVerifier.require(hmacAlgorithm)
+                .withIssuer("issuer")
+                .withAudience("audience")
+                .build();
+    }
+
+    @Test
+    public void shouldThrowOnNullAlgorithm() throws Exception {
+        exception.expect(IllegalArgumentException.class);
+        exception.expectMessage("The Algorithm cannot be null.");
+        DecodedJwtVerifier.require(null);
+    }
+
+    @Test
+    public void shouldThrowOnNullAlgorithmResolver() throws Exception {
+        exception.expect(IllegalArgumentException.class);
+        exception.expectMessage("The AlgorithmResolver cannot be null.");
+        DecodedJwtVerifier.requireResolved(null);
+    }
+
+    @Test
+    public void shouldVerifyTokenWithResolvedAlgorithm() throws Exception {
+        DecodedJwtVerifier.AlgorithmResolver resolver = mock(DecodedJwtVerifier.AlgorithmResolver.class);
+        when(resolver.resolve(any(DecodedJWT.class))).thenReturn(hmacAlgorithm);
+        DecodedJwtVerifier verifier = DecodedJwtVerifier.requireResolved(resolver)
+                .withIssuer("issuer")
+                .build();
+        DecodedJWT jwt = JWT.decode(JWT.create()
+                .withIssuer("issuer")
+                .sign(hmacAlgorithm));
+
+        assertThat(verifier.verify(jwt), is(sameInstance(jwt)));
+        verify(resolver).resolve(jwt);
+    }
+
+    @Test
+    public void shouldNotResolveAlgorithmOfTokenWithInvalidClaims() throws Exception {
+        DecodedJwtVerifier.AlgorithmResolver resolver = mock(DecodedJwtVerifier.AlgorithmResolver.class);
+        DecodedJwtVerifier verifier = DecodedJwtVerifier.requireResolved(resolver)
+                .withIssuer("issuer")
+                .build();
+        DecodedJWT jwt = JWT.decode(JWT.create()
+                .withIssuer("issuer")
+                .withExpiresAt(new Date(System.currentTimeMillis() - 60 * 1000))
+                .sign(hmacAlgorithm));
+
+        try {
+            verifier.verify(jwt);
+            fail("Expected the token to be rejected");
+        } catch (InvalidClaimException ignored) {
+        }
+        verify(resolver, never()).resolve(any(DecodedJWT.class));
+    }
+
+    @Test
+    public void shouldFailWhenResolvedAlgorithmDoesNotMatch() throws Exception {
+        DecodedJwtVerifier.AlgorithmResolver resolver = mock(DecodedJwtVerifier.AlgorithmResolver.class);
+        when(resolver.resolve(any(DecodedJWT.class))).thenReturn(Algorithm.HMAC512("secret"));
+        DecodedJwtVerifier verifier = DecodedJwtVerifier.requireResolved(resolver).build();
+        DecodedJWT jwt = JWT.decode(JWT.create().sign(hmacAlgorithm));
+
+        exception.expect(AlgorithmMismatchException.class);
+        verifier.verify(jwt);
+    }
+
+    @Test
+    public void shouldVerifyDecodedToken() throws Exception {
+        DecodedJWT jwt = JWT.decode(JWT.create()
+                .withIssuer("issuer")
+                .withAudience("other", "audience")
+                .withExpiresAt(new Date(System.currentTimeMillis() + 60 * 1000))
+                .sign(hmacAlgorithm));
+
+        DecodedJWT verified = verifier.verify(jwt);
+        assertThat(verified, is(sameInstance(jwt)));
+    }
+
+    @Test
+    public void shouldThrowOnEmptyAudiences() throws Exception {
+        exception.expect(IllegalArgumentException.class);
+        exception.expectMessage("At least one audience is required");
+        DecodedJwtVerifier.require(hmacAlgorithm)
+                .withAnyOfAudience(Collections.<String>emptyList());
+    }
+
+    @Test
+    public void shouldVerifyTokenWithAnyOfAudiences() throws Exception {
+        DecodedJwtVerifier verifier = DecodedJwtVerifier.require(hmacAlgorithm)
+                .withAnyOfAudience(Arrays.asList("first", "second", "third"))
+                .build();
+        DecodedJWT jwt = JWT.decode(JWT.create()
+                .withAudience("other", "third")
+                .sign(hmacAlgorithm));
+
+        assertThat(verifier.verify(jwt), is(sameInstance(jwt)));
+    }
+
+    @Test
+    public void shouldFailOnNoneOfAudiences() throws Exception {
+        DecodedJwtVerifier verifier = DecodedJwtVerifier.require(hmacAlgorithm)
+                .withAnyOfAudience(Arrays.asList("first", "second"))
+                .build();
+        DecodedJWT jwt = JWT.decode(JWT.create()
+                .withAudience("other", "another")
+                .sign(hmacAlgorithm));
+
+        exception.expect(InvalidClaimException.class);
+        exception.expectMessage("The Claim 'aud' value doesn't contain the required audience.");
+        verifier.verify(jwt);
+    }
+
+    @Test
+    public void shouldFailOnAlgorithmMismatch() throws Exception {
+        DecodedJWT jwt = JWT.decode(JWT.create()
+                .withIssuer("issuer")
+                .withAudience("audience")
+                .sign(Algorithm.HMAC512("secret")));
+
+        exception.expect(AlgorithmMismatchException.class);
+        verifier.verify(jwt);
+    }
+
+    @Test
+    public void shouldFailOnInvalidSignature() throws Exception {
+        DecodedJWT jwt = JWT.decode(JWT.create()
+                .withIssuer("issuer")
+                .withAudience("audience")
+                .sign(Algorithm.HMAC256("not-real-secret")));
+
+        exception.expect(SignatureVerificationException.class);
+        verifier.verify(jwt);
+    }
+
+    @Test
+    public void shouldFailOnExpiredToken() throws Exception {
+        DecodedJWT jwt = JWT.decode(JWT.create()
+                .withIssuer("issuer")
+                .withAudience("audience")
+                .withExpiresAt(new Date(System.currentTimeMillis() - 60 * 1000))
+                .sign(hmacAlgorithm));
+
+        exception.expect(InvalidClaimException.class);
+        exception.expectMessage(startsWith("The Token has expired on"));
+        verifier.verify(jwt);
+    }
+
+    @Test
+    public void shouldFailOnTokenNotValidYet() throws Exception {
+        DecodedJWT jwt = JWT.decode(JWT.create()
+                .withIssuer("issuer")
+                .withAudience("audience")
+                .withNotBefore(new Date(System.currentTimeMillis() + 60 * 1000))
+                .sign(hmacAlgorithm));
+
+        exception.expect(InvalidClaimException.class);
+        exception.expectMessage(startsWith("The Token can't be used before"));
+        verifier.verify(jwt);
+    }
+
+    @Test
+    public void shouldFailOnTokenIssuedInTheFuture() throws Exception {
+        DecodedJWT jwt = JWT.decode(JWT.create()
+                .withIssuer("issuer")
+                .withAudience("audience")
+                .withIssuedAt(new Date(System.currentTimeMillis() + 60 * 1000))
+                .sign(hmacAlgorithm));
+
+        exception.expect(InvalidClaimException.class);
+        exception.expectMessage(startsWith("The Token can't be used before"));
+        verifier.verify(jwt);
+    }
+
+    @Test
+    public void shouldThrowOnNegativeLeeway() throws Exception {
+        exception.expect(IllegalArgumentException.class);
+        exception.expectMessage("Leeway value can't be negative.");
+        DecodedJwtVerifier.require(hmacAlgorithm).acceptLeeway(-1);
+    }
+
+    @Test
+    public void shouldAcceptTokenExpiredWithinLeeway() throws Exception {
+        DecodedJwtVerifier verifier = DecodedJwtVerifier.require(hmacAlgorithm)
+                .acceptLeeway(120)
+                .build();
+        DecodedJWT jwt = JWT.decode(JWT.create()
+                .withExpiresAt(new Date(System.currentTimeMillis() - 60 * 1000))
+                .sign(hmacAlgorithm));
+
+        verifier.verify(jwt);
+    }
+
+    @Test
+    public void shouldFailOnTokenExpiredBeyondLeeway() throws Exception {
+        DecodedJwtVerifier verifier = DecodedJwtVerifier.require(hmacAlgorithm)
+                .acceptLeeway(30)
+                .build();
+        DecodedJWT jwt = JWT.decode(JWT.create()
+                .withExpiresAt(new Date(System.currentTimeMillis() - 60 * 1000))
+                .sign(hmacAlgorithm));
+
+        exception.expect(InvalidClaimException.class);
+        exception.expectMessage(startsWith("The Token has expired on"));
+        verifier.verify(jwt);
+    }
+
+    @Test
+    public void shouldAcceptTokenNotValidYetWithinLeeway() throws Exception {
+        DecodedJwtVerifier verifier = DecodedJwtVerifier.require(hmacAlgorithm)
+                .acceptLeeway(120)
+                .build();
+        DecodedJWT jwt = JWT.decode(JWT.create()
+                .withNotBefore(new Date(System.currentTimeMillis() + 60 * 1000))
+                .withIssuedAt(new Date(System.currentTimeMillis() + 60 * 1000))
+                .sign(hmacAlgorithm));
+
+        verifier.verify(jwt);
+    }
+
+    @Test
+    public void shouldCheckTimeClaimsWithGivenClock() throws Exception {
+        final Date expiresAt = new Date(1500000000000L);
+        DecodedJWT jwt = JWT.decode(JWT.create()
+                .withExpiresAt(expiresAt)
+                .sign(hmacAlgorithm));
+        Clock clock = mock(Clock.class);
+        DecodedJwtVerifier verifier = DecodedJwtVerifier.require(hmacAlgorithm)
+                .withClock(clock)
+                .build();
+
+        when(clock.getToday()).thenReturn(new Date(expiresAt.getTime() - 1000));
+        verifier.verify(jwt);
+
+        when(clock.getToday()).thenReturn(new Date(expiresAt.getTime() + 1000));
+        exception.expect(InvalidClaimException.class);
+        exception.expectMessage(startsWith("The Token has expired on"));
+        verifier.verify(jwt);
+    }
+
+    @Test
+    public void shouldFailOnIssuerMismatch() throws Exception {
+        DecodedJWT jwt = JWT.decode(JWT.create()
+                .withIssuer("some")
+                .withAudience("audience")
+                .sign(hmacAlgorithm));
+
+        exception.expect(InvalidClaimException.class);
+        exception.expectMessage("The Claim 'iss' value doesn't match the required one.");
+        verifier.verify(jwt);
+    }
+
+    @Test
+    public void shouldFailOnMissingAudience() throws Exception {
+        DecodedJWT jwt = JWT.decode(JWT.create()
+                .withIssuer("issuer")
+                .sign(hmacAlgorithm));
+
+        exception.expect(InvalidClaimException.class);
+        exception.expectMessage("The Claim 'aud' value doesn't contain the required audience.");
+        verifier.verify(jwt);
+    }
+
+    @Test
+    public void shouldNotCheckClaimsThatAreNotRequired() throws Exception {
+        DecodedJwtVerifier verifier = DecodedJwtVerifier.require(hmacAlgorithm).build();
+        DecodedJWT jwt = JWT.decode(JWT.create()
+                .sign(hmacAlgorithm));
+
+        assertThat(verifier.verify(jwt), is(sameInstance(jwt)));
+    }
+
+    @Test
+    public void shouldRecordSignatureAndClaimsTime() throws Exception {
+        AuthenticationMetrics metrics = mock(AuthenticationMetrics.class);
+        DecodedJwtVerifier verifier = DecodedJwtVerifier.require(hmacAlgorithm)
+                .withIssuer("issuer")
+                .withMetrics(metrics)
+                .build();
+        DecodedJWT jwt = JWT.decode(JWT.create()
+                .withIssuer("issuer")
+                .sign(hmacAlgorithm));
+
+        verifier.verify(jwt);
+
+        verify(metrics).recordTime(eq(AuthenticationMetrics.Stage.SIGNATURE), anyLong());
+        verify(metrics).recordTime(eq(AuthenticationMetrics.Stage.CLAIMS), anyLong());
+        verify(metrics, never()).recordFailure(any(AuthenticationMetrics.Failure.class));
+    }
+
+    @Test
+    public void shouldRecordBadSignature() throws Exception {
+        assertFailureRecorded(JWT.create().withIssuer("issuer").withAudience("audience").sign(Algorithm.HMAC256("other")), AuthenticationMetrics.Failure.BAD_SIGNATURE);
+    }
+
+    @Test
+    public void shouldRecordAlgorithmMismatch() throws Exception {
+        assertFailureRecorded(JWT.create().sign(Algorithm.HMAC512("secret")), AuthenticationMetrics.Failure.ALGORITHM_MISMATCH);
+    }
+
+    @Test
+    public void shouldRecordExpiredToken() throws Exception {
+        String token = JWT.create()
+                .withExpiresAt(new Date(System.currentTimeMillis() - 60 * 1000))
+                .sign(hmacAlgorithm);
+        assertFailureRecorded(token, AuthenticationMetrics.Failure.EXPIRED);
+    }
+
+    @Test
+    public void shouldRecordTokenNotValidYet() throws Exception {
+        String token = JWT.create()
+                .withNotBefore(new Date(System.currentTimeMillis() + 60 * 1000))
+                .sign(hmacAlgorithm);
+        assertFailureRecorded(token, AuthenticationMetrics.Failure.NOT_YET_VALID);
+    }
+
+    @Test
+    public void shouldRecordIssuerMismatch() throws Exception {
+        assertFailureRecorded(JWT.create().withIssuer("other").sign(hmacAlgorithm), AuthenticationMetrics.Failure.WRONG_ISSUER);
+    }
+
+    @Test
+    public void shouldRecordAudienceMismatch() throws Exception {
+        assertFailureRecorded(JWT.create().withIssuer("issuer").withAudience("other").sign(hmacAlgorithm), AuthenticationMetrics.Failure.WRONG_AUDIENCE);
+    }
+
+    @Test
+    public void shouldNotVerifySignatureOfExpiredToken() throws Exception {
+        Algorithm algorithm = mock(Algorithm.class);
+        when(algorithm.getName()).thenReturn("HS256");
+        DecodedJwtVerifier verifier = DecodedJwtVerifier.require(algorithm).build();
+        DecodedJWT jwt = JWT.decode(JWT.create()
+                .withExpiresAt(new Date(System.currentTimeMillis() - 60 * 1000))
+                .sign(hmacAlgorithm));
+
+        try {
+            verifier.verify(jwt);
+            fail("Expected the token to be rejected");
+        } catch (InvalidClaimException ignored) {
+        }
+        verify(algorithm, never()).verify(any(byte[].class), any(byte[].class));
+    }
+
+    @Test
+    public void shouldNotVerifySignatureOfTokenForOtherAudience() throws Exception {
+        AuthenticationMetrics metrics = mock(AuthenticationMetrics.class);
+        DecodedJwtVerifier verifier = DecodedJwtVerifier.require(hmacAlgorithm)
+                .withIssuer("issuer")
+                .withAudience("audience")
+                .withMetrics(metrics)
+                .build();
+        DecodedJWT jwt = JWT.decode(JWT.create()
+                .withIssuer("issuer")
+                .withAudience("other")
+                .sign(Algorithm.HMAC256("other-secret")));
+
+        exception.expect(InvalidClaimException.class);
+        try {
+            verifier.verify(jwt);
+        } finally {
+            verify(metrics).recordTime(eq(AuthenticationMetrics.Stage.CLAIMS), anyLong());
+            verify(metrics, never()).recordTime(eq(AuthenticationMetrics.Stage.SIGNATURE), anyLong());
+        }
+    }
+
+    private void assertFailureRecorded(String token, AuthenticationMetrics.Failure failure) {
+        AuthenticationMetrics metrics = mock(AuthenticationMetrics.class);
+        DecodedJwtVerifier verifier = DecodedJwtVerifier.require(hmacAlgorithm)
+                .withIssuer("issuer")
+                .withAudience("audience")
+                .withMetrics(metrics)
+                .build();
+        try {
+            verifier.verify(JWT.decode(token));
+            fail("Expected the token to be rejected");
+        } catch (JWTVerificationException ignored) {
+        }
+        verify(metrics).recordFailure(failure);
+        verifyNoMoreInteractionsExceptTimes(metrics);
+    }
+
+    private static void verifyNoMoreInteractionsExceptTimes(AuthenticationMetrics metrics) {
+        verify(metrics, atLeast(0)).recordTime(any(AuthenticationMetrics.Stage.class), anyLong());
+        verifyNoMoreInteractions(metrics);
+    }
+}
@@ -0,0 +1,60 @@
+package com.auth0.spring.security.api.authentication;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.springframework.security.core.GrantedAuthority;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class GrantedAuthorityRegistryTest {
+
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+
+    @Test
+    public void shouldThrowOnNegativeMaximumSize() throws Exception {
+        exception.expect(IllegalArgumentException.class);
+        exception.expectMessage("The maximum size cannot be negative");
+        new GrantedAuthorityRegistry(-1);
+    }
+
+    @Test
+    public void shouldHaveDefaultRegistry() throws Exception {
+        assertThat(GrantedAuthorityRegistry.getDefault(), is(notNullValue()));
+        assertThat(GrantedAuthorityRegistry.getDefault(), is(sameInstance(GrantedAuthorityRegistry.getDefault())));
+    }
+
+    @Test
+    public void shouldReturnSameInstanceForSameValue() throws Exception {
+        GrantedAuthorityRegistry registry = new GrantedAuthorityRegistry(10);
+
+        GrantedAuthority authority = registry.authorityFor("read:orders");
+        assertThat(authority.getAuthority(), is("read:orders"));
+        assertThat(registry.authorityFor("read:orders"), is(sameInstance(authority)));
+        assertThat(registry.size(), is(1));
+    }
+
+    @Test
+    public void shouldReturnDifferentInstancesForDifferentValues() throws Exception {
+        GrantedAuthorityRegistry registry = new GrantedAuthorityRegistry(10);
+
+        assertThat(registry.authorityFor("read:orders"), is(not(registry.authorityFor("write:orders"))));
+        assertThat(registry.size(), is(2));
+    }
+
+    @Test
+    public void shouldNotGrowOverMaximumSize() throws Exception {
+        GrantedAuthorityRegistry registry = new GrantedAuthorityRegistry(2);
+        GrantedAuthority first = registry.authorityFor("a");
+        registry.authorityFor("b");
+
+        GrantedAuthority third = registry.authorityFor("c");
+        assertThat(third.getAuthority(), is("c"));
+        assertThat(registry.authorityFor("c"), is(not(sameInstance(third))));
+        assertThat(registry.authorityFor("c"), is(equalTo(third)));
+        assertThat(registry.authorityFor("a"), is(sameInstance(first)));
+        assertThat(registry.size(), is(2));
+    }
+}
@@ -8,6 +8,7 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.springframework.security.core.Authentication;
 
 import java.util.Collections;
 import java.util.Map;
@@ -76,6 +77,37 @@ public class PreAuthenticatedAuthenticationJsonWebTokenTest {
         assertThat(auth.getKeyId(), is(nullValue()));
     }
 
+    @Test
+    public void shouldGetIssuer() throws Exception {
+        String token = JWT.create()
+                .withIssuer("auth0")
+                .sign(hmacAlgorithm);
+
+        PreAuthenticatedAuthenticationJsonWebToken auth = usingToken(token);
+        assertThat(auth, is(notNullValue()));
+        assertThat(auth.getIssuer(), is("auth0"));
+    }
+
+    @Test
+    public void shouldGetNullIssuerOnMissingIssuerClaim() throws Exception {
+        String token = JWT.create()
+                .sign(hmacAlgorithm);
+
+        PreAuthenticatedAuthenticationJsonWebToken auth = usingToken(token);
+        assertThat(auth, is(notNullValue()));
+        assertThat(auth.getIssuer(), is(nullValue()));
+    }
+
+    @Test
+    public void shouldGetAlgorithm() throws Exception {
+        String token = JWT.create()
+                .sign(hmacAlgorithm);
+
+        PreAuthenticatedAuthenticationJsonWebToken auth = usingToken(token);
+        assertThat(auth, is(notNullValue()));
+        assertThat(auth.getAlgorithm(), is("HS256"));
+    }
+
     @Test
     public void shouldGetStringToken() throws Exception {
         String token = JWT.create()
@@ -181,4 +213,20 @@ public class PreAuthenticatedAuthenticationJsonWebTokenTest {
         assertThat(auth.getAuthorities(), is(IsEmptyCollection.empty()));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void shouldVerifyUsingTheAlreadyDecodedToken() throws Exception {
+        String token = JWT.create()
+                .withIssuer("auth0")
+                .sign(hmacAlgorithm);
+
+        PreAuthenticatedAuthenticationJsonWebToken auth = usingToken(token);
+        DecodedJwtVerifier verifier = DecodedJwtVerifier.require(hmacAlgorithm)
+                .withIssuer("auth0")
+                .build();
+
+        Authentication verified = auth.verify(verifier);
+        assertThat(verified, is(instanceOf(AuthenticationJsonWebToken.class)));
+        assertThat(verified.isAuthenticated(), is(true));
+        assertThat(verified.getDetails(), is(sameInstance(auth.getDetails())));
+    }
+}
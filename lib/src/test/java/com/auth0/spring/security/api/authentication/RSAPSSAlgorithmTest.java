@@ -0,0 +1,97 @@
+package com.auth0.spring.security.api.authentication;
+
+import com.auth0.jwt.exceptions.SignatureGenerationException;
+import com.auth0.jwt.exceptions.SignatureVerificationException;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAKey;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+public class RSAPSSAlgorithmTest {
+
+    private static final byte[] CONTENT = "header.payload".getBytes(StandardCharsets.UTF_8);
+
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+    private KeyPair keyPair;
+
+    @Before
+    public void setUp() throws Exception {
+        assumeTrue(RSAPSSAlgorithm.isSupported());
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        keyPair = generator.generateKeyPair();
+    }
+
+    @Test
+    public void shouldThrowOnNullKey() throws Exception {
+        exception.expect(IllegalArgumentException.class);
+        exception.expectMessage("The Key cannot be null.");
+        RSAPSSAlgorithm.PS256(null);
+    }
+
+    @Test
+    public void shouldHaveNames() throws Exception {
+        assertThat(RSAPSSAlgorithm.PS256(publicKey()).getName(), is("PS256"));
+        assertThat(RSAPSSAlgorithm.PS384(publicKey()).getName(), is("PS384"));
+        assertThat(RSAPSSAlgorithm.PS512(publicKey()).getName(), is("PS512"));
+    }
+
+    @Test
+    public void shouldVerifySignature() throws Exception {
+        byte[] signature = RSAPSSAlgorithm.PS256(privateKey()).sign(CONTENT);
+
+        RSAPSSAlgorithm.PS256(publicKey()).verify(CONTENT, signature);
+    }
+
+    @Test
+    public void shouldVerifySignatureWithLongerHashes() throws Exception {
+        RSAPSSAlgorithm.PS384(publicKey()).verify(CONTENT, RSAPSSAlgorithm.PS384(privateKey()).sign(CONTENT));
+        RSAPSSAlgorithm.PS512(publicKey()).verify(CONTENT, RSAPSSAlgorithm.PS512(privateKey()).sign(CONTENT));
+    }
+
+    @Test
+    public void shouldFailOnSignatureWithOtherHash() throws Exception {
+        byte[] signature = RSAPSSAlgorithm.PS512(privateKey()).sign(CONTENT);
+
+        exception.expect(SignatureVerificationException.class);
+        RSAPSSAlgorithm.PS256(publicKey()).verify(CONTENT, signature);
+    }
+
+    @Test
+    public void shouldFailOnTamperedContent() throws Exception {
+        byte[] signature = RSAPSSAlgorithm.PS256(privateKey()).sign(CONTENT);
+
+        exception.expect(SignatureVerificationException.class);
+        RSAPSSAlgorithm.PS256(publicKey()).verify("header.other".getBytes(StandardCharsets.UTF_8), signature);
+    }
+
+    @Test
+    public void shouldFailToVerifyWithPrivateKey() throws Exception {
+        exception.expect(SignatureVerificationException.class);
+        RSAPSSAlgorithm.PS256(privateKey()).verify(CONTENT, new byte[256]);
+    }
+
+    @Test
+    public void shouldFailToSignWithPublicKey() throws Exception {
+        exception.expect(SignatureGenerationException.class);
+        RSAPSSAlgorithm.PS256(publicKey()).sign(CONTENT);
+    }
+
+    private RSAKey publicKey() {
+        return (RSAKey) keyPair.getPublic();
+    }
+
+    private RSAKey privateKey() {
+        return (RSAKey) keyPair.getPrivate();
+    }
+}
@@ -0,0 +1,113 @@
+package com.auth0.spring.security.api.authentication;
+
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.SignatureVerificationException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class ThreadLocalHMACAlgorithmTest {
+
+    private static final byte[] SECRET = "secret".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] CONTENT = "header.payload".getBytes(StandardCharsets.UTF_8);
+
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+
+    @Test
+    public void shouldThrowOnNullSecret() throws Exception {
+        exception.expect(IllegalArgumentException.class);
+        exception.expectMessage("The Secret cannot be null");
+        ThreadLocalHMACAlgorithm.HS256(null);
+    }
+
+    @Test
+    public void shouldHaveNames() throws Exception {
+        assertThat(ThreadLocalHMACAlgorithm.HS256(SECRET).getName(), is("HS256"));
+        assertThat(ThreadLocalHMACAlgorithm.HS384(SECRET).getName(), is("HS384"));
+        assertThat(ThreadLocalHMACAlgorithm.HS512(SECRET).getName(), is("HS512"));
+    }
+
+    @Test
+    public void shouldCreateSameSignaturesAsJavaJwt() throws Exception {
+        assertThat(ThreadLocalHMACAlgorithm.HS256(SECRET).sign(CONTENT), is(Algorithm.HMAC256(SECRET).sign(CONTENT)));
+        assertThat(ThreadLocalHMACAlgorithm.HS384(SECRET).sign(CONTENT), is(Algorithm.HMAC384(SECRET).sign(CONTENT)));
+        assertThat(ThreadLocalHMACAlgorithm.HS512(SECRET).sign(CONTENT), is(Algorithm.HMAC512(SECRET).sign(CONTENT)));
+    }
+
+    @Test
+    public void shouldVerifySignatureManyTimes() throws Exception {
+        ThreadLocalHMACAlgorithm algorithm = ThreadLocalHMACAlgorithm.HS256(SECRET);
+        byte[] signature = Algorithm.HMAC256(SECRET).sign(CONTENT);
+
+        for (int i = 0; i < 5; i++) {
+            algorithm.verify(CONTENT, signature);
+        }
+    }
+
+    @Test
+    public void shouldFailOnSignatureWithOtherSecret() throws Exception {
+        byte[] signature = Algorithm.HMAC256("other-secret").sign(CONTENT);
+
+        exception.expect(SignatureVerificationException.class);
+        ThreadLocalHMACAlgorithm.HS256(SECRET).verify(CONTENT, signature);
+    }
+
+    @Test
+    public void shouldVerifyAfterFailure() throws Exception {
+        ThreadLocalHMACAlgorithm algorithm = ThreadLocalHMACAlgorithm.HS256(SECRET);
+        try {
+            algorithm.verify(CONTENT, new byte[3]);
+        } catch (SignatureVerificationException ignored) {
+        }
+
+        algorithm.verify(CONTENT, Algorithm.HMAC256(SECRET).sign(CONTENT));
+    }
+
+    @Test
+    public void shouldNotShareSecretArray() throws Exception {
+        byte[] secret = SECRET.clone();
+        ThreadLocalHMACAlgorithm algorithm = ThreadLocalHMACAlgorithm.HS256(secret);
+        secret[0] = 'x';
+
+        algorithm.verify(CONTENT, Algorithm.HMAC256(SECRET).sign(CONTENT));
+    }
+
+    @Test
+    public void shouldVerifyConcurrently() throws Exception {
+        final ThreadLocalHMACAlgorithm algorithm = ThreadLocalHMACAlgorithm.HS256(SECRET);
+        final byte[] signature = Algorithm.HMAC256(SECRET).sign(CONTENT);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() throws Exception {
+                        for (int j = 0; j < 200; j++) {
+                            algorithm.verify(CONTENT, signature);
+                        }
+                        return true;
+                    }
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertThat(result.get(10, TimeUnit.SECONDS), is(true));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
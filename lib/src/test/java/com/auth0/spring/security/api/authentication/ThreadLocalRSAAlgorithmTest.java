@@ -0,0 +1,145 @@
+package com.auth0.spring.security.api.authentication;
+
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.SignatureGenerationException;
+import com.auth0.jwt.exceptions.SignatureVerificationException;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAKey;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class ThreadLocalRSAAlgorithmTest {
+
+    private static final byte[] CONTENT = "header.payload".getBytes(StandardCharsets.UTF_8);
+
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+    private KeyPair keyPair;
+
+    @Before
+    public void setUp() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        keyPair = generator.generateKeyPair();
+    }
+
+    @Test
+    public void shouldThrowOnNullKey() throws Exception {
+        exception.expect(IllegalArgumentException.class);
+        exception.expectMessage("The Key cannot be null.");
+        ThreadLocalRSAAlgorithm.RS256(null);
+    }
+
+    @Test
+    public void shouldHaveNames() throws Exception {
+        assertThat(ThreadLocalRSAAlgorithm.RS256(publicKey()).getName(), is("RS256"));
+        assertThat(ThreadLocalRSAAlgorithm.RS384(publicKey()).getName(), is("RS384"));
+        assertThat(ThreadLocalRSAAlgorithm.RS512(publicKey()).getName(), is("RS512"));
+    }
+
+    @Test
+    public void shouldVerifySignaturesOfJavaJwt() throws Exception {
+        ThreadLocalRSAAlgorithm.RS256(publicKey()).verify(CONTENT, Algorithm.RSA256(privateKey()).sign(CONTENT));
+        ThreadLocalRSAAlgorithm.RS384(publicKey()).verify(CONTENT, Algorithm.RSA384(privateKey()).sign(CONTENT));
+        ThreadLocalRSAAlgorithm.RS512(publicKey()).verify(CONTENT, Algorithm.RSA512(privateKey()).sign(CONTENT));
+    }
+
+    @Test
+    public void shouldCreateSignaturesVerifiedByJavaJwt() throws Exception {
+        Algorithm.RSA256(publicKey()).verify(CONTENT, ThreadLocalRSAAlgorithm.RS256(privateKey()).sign(CONTENT));
+    }
+
+    @Test
+    public void shouldVerifySignatureManyTimes() throws Exception {
+        ThreadLocalRSAAlgorithm algorithm = ThreadLocalRSAAlgorithm.RS256(publicKey());
+        byte[] signature = Algorithm.RSA256(privateKey()).sign(CONTENT);
+
+        for (int i = 0; i < 5; i++) {
+            algorithm.verify(CONTENT, signature);
+        }
+    }
+
+    @Test
+    public void shouldFailOnSignatureOfOtherContent() throws Exception {
+        byte[] signature = Algorithm.RSA256(privateKey()).sign("header.other".getBytes(StandardCharsets.UTF_8));
+
+        exception.expect(SignatureVerificationException.class);
+        ThreadLocalRSAAlgorithm.RS256(publicKey()).verify(CONTENT, signature);
+    }
+
+    @Test
+    public void shouldVerifyAfterMalformedSignature() throws Exception {
+        ThreadLocalRSAAlgorithm algorithm = ThreadLocalRSAAlgorithm.RS256(publicKey());
+        try {
+            algorithm.verify(CONTENT, new byte[3]);
+        } catch (SignatureVerificationException ignored) {
+        }
+        try {
+            algorithm.verify(CONTENT, new byte[256]);
+        } catch (SignatureVerificationException ignored) {
+        }
+
+        algorithm.verify(CONTENT, Algorithm.RSA256(privateKey()).sign(CONTENT));
+    }
+
+    @Test
+    public void shouldFailToVerifyWithPrivateKey() throws Exception {
+        exception.expect(SignatureVerificationException.class);
+        ThreadLocalRSAAlgorithm.RS256(privateKey()).verify(CONTENT, new byte[256]);
+    }
+
+    @Test
+    public void shouldFailToSignWithPublicKey() throws Exception {
+        exception.expect(SignatureGenerationException.class);
+        ThreadLocalRSAAlgorithm.RS256(publicKey()).sign(CONTENT);
+    }
+
+    @Test
+    public void shouldVerifyConcurrently() throws Exception {
+        final ThreadLocalRSAAlgorithm algorithm = ThreadLocalRSAAlgorithm.RS256(publicKey());
+        final byte[] signature = Algorithm.RSA256(privateKey()).sign(CONTENT);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() throws Exception {
+                        for (int j = 0; j < 50; j++) {
+                            algorithm.verify(CONTENT, signature);
+                        }
+                        return true;
+                    }
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertThat(result.get(10, TimeUnit.SECONDS), is(true));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private RSAKey publicKey() {
+        return (RSAKey) keyPair.getPublic();
+    }
+
+    private RSAKey privateKey() {
+        return (RSAKey) keyPair.getPrivate();
+    }
+}